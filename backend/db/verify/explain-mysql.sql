@@ -0,0 +1,55 @@
+-- EXPLAIN check for every NoteRepository / NoteTombstoneRepository / UserRepository query (MySQL 8).
+-- Run against a migrated database:
+--   mysql -u root -p noteguard < db/verify/explain-mysql.sql
+-- Expected `key` column is noted above each statement; `type` must not be ALL.
+
+-- findByShareTokenAndNotExpired -> key: uk_notes_share_token (const)
+EXPLAIN SELECT * FROM notes n
+ WHERE n.share_token = '00000000-0000-0000-0000-000000000000'
+   AND n.share_expiration_time > NOW(6);
+
+-- findByShareToken -> key: uk_notes_share_token (const)
+EXPLAIN SELECT * FROM notes n WHERE n.share_token = '00000000-0000-0000-0000-000000000000';
+
+-- findByUserOrderByCreatedAtDesc -> key: idx_notes_user_created (ref, Backward index scan, no filesort)
+EXPLAIN SELECT * FROM notes n WHERE n.user_id = 1 ORDER BY n.created_at DESC;
+
+-- countByUser -> key: idx_notes_user_created (ref, Using index)
+EXPLAIN SELECT COUNT(n.id) FROM notes n WHERE n.user_id = 1;
+
+-- invalidateExpiredShareTokens -> key: idx_notes_share_expiration (range)
+EXPLAIN UPDATE notes SET share_token = NULL, share_expiration_time = NULL
+ WHERE share_expiration_time <= NOW(6);
+
+-- countExpiredNotes -> key: idx_notes_expiration (range, Using index)
+EXPLAIN SELECT COUNT(n.id) FROM notes n
+ WHERE n.expiration_time IS NOT NULL AND n.expiration_time <= NOW(6);
+
+-- deleteExpiredNotes -> key: idx_notes_expiration (range)
+EXPLAIN DELETE FROM notes WHERE expiration_time IS NOT NULL AND expiration_time <= NOW(6);
+
+-- countNotesExpiringBefore -> key: idx_notes_expiration (range, Using index)
+EXPLAIN SELECT COUNT(n.id) FROM notes n
+ WHERE n.expiration_time IS NOT NULL AND n.expiration_time <= NOW(6) + INTERVAL 24 HOUR;
+
+-- countByShareTokenIsNotNull -> key: uk_notes_share_token (range, Using index)
+EXPLAIN SELECT COUNT(n.id) FROM notes n WHERE n.share_token IS NOT NULL;
+
+-- findByUsername / existsByUsername -> key: uk_users_username (const)
+EXPLAIN SELECT * FROM users u WHERE u.username = 'admin';
+
+-- findByEmail / existsByEmail -> key: uk_users_email (const)
+EXPLAIN SELECT * FROM users u WHERE u.email = 'admin@noteguard.com';
+
+-- countByRole -> key: idx_users_role (ref, Using index)
+EXPLAIN SELECT COUNT(u.id) FROM users u WHERE u.role = 'ADMIN';
+
+-- findChangesSince -> key: idx_notes_owner_updated / idx_note_tombstones_owner_deleted (range, both branches)
+EXPLAIN SELECT n.id, n.updated_at, CAST(NULL AS CHAR) FROM notes n
+ WHERE n.owner_id = 1 AND n.updated_at > NOW(6) - INTERVAL 1 HOUR
+UNION ALL
+SELECT t.note_id, t.deleted_at, CAST(t.reason AS CHAR) FROM note_tombstones t
+ WHERE t.owner_id = 1 AND t.deleted_at > NOW(6) - INTERVAL 1 HOUR;
+
+-- deleteTombstonesBefore -> key: idx_note_tombstones_deleted (range)
+EXPLAIN DELETE FROM note_tombstones WHERE deleted_at < NOW(6) - INTERVAL 30 DAY;
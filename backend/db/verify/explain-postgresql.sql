@@ -0,0 +1,62 @@
+-- EXPLAIN check for every NoteRepository / NoteTombstoneRepository / UserRepository query (PostgreSQL).
+-- Run against a migrated database:
+--   psql "$DATABASE_URL" -f db/verify/explain-postgresql.sql
+-- Sequential scans are disabled so the plan shows whether a usable index
+-- exists at all; on tiny tables the planner would otherwise prefer Seq Scan.
+-- The plan must reference the index noted above each statement (Index Scan,
+-- Index Only Scan or Bitmap Index Scan).
+
+SET enable_seqscan = off;
+
+-- findByShareTokenAndNotExpired -> uk_notes_share_token
+EXPLAIN SELECT * FROM notes n
+ WHERE n.share_token = '00000000-0000-0000-0000-000000000000'
+   AND n.share_expiration_time > now();
+
+-- findByShareToken -> uk_notes_share_token
+EXPLAIN SELECT * FROM notes n WHERE n.share_token = '00000000-0000-0000-0000-000000000000';
+
+-- findByUserOrderByCreatedAtDesc -> idx_notes_user_created (no Sort node)
+EXPLAIN SELECT * FROM notes n WHERE n.user_id = 1 ORDER BY n.created_at DESC;
+
+-- countByUser -> idx_notes_user_created
+EXPLAIN SELECT COUNT(n.id) FROM notes n WHERE n.user_id = 1;
+
+-- invalidateExpiredShareTokens -> idx_notes_share_expiration
+EXPLAIN UPDATE notes SET share_token = NULL, share_expiration_time = NULL
+ WHERE share_expiration_time <= now();
+
+-- countExpiredNotes -> idx_notes_expiration
+EXPLAIN SELECT COUNT(n.id) FROM notes n
+ WHERE n.expiration_time IS NOT NULL AND n.expiration_time <= now();
+
+-- deleteExpiredNotes -> idx_notes_expiration
+EXPLAIN DELETE FROM notes WHERE expiration_time IS NOT NULL AND expiration_time <= now();
+
+-- countNotesExpiringBefore -> idx_notes_expiration
+EXPLAIN SELECT COUNT(n.id) FROM notes n
+ WHERE n.expiration_time IS NOT NULL AND n.expiration_time <= now() + INTERVAL '24 hours';
+
+-- countByShareTokenIsNotNull -> uk_notes_share_token
+EXPLAIN SELECT COUNT(n.id) FROM notes n WHERE n.share_token IS NOT NULL;
+
+-- findByUsername / existsByUsername -> uk_users_username
+EXPLAIN SELECT * FROM users u WHERE u.username = 'admin';
+
+-- findByEmail / existsByEmail -> uk_users_email
+EXPLAIN SELECT * FROM users u WHERE u.email = 'admin@noteguard.com';
+
+-- countByRole -> idx_users_role
+EXPLAIN SELECT COUNT(u.id) FROM users u WHERE u.role = 'ADMIN';
+
+-- findChangesSince -> idx_notes_owner_updated / idx_note_tombstones_owner_deleted
+EXPLAIN SELECT n.id, n.updated_at, CAST(NULL AS VARCHAR) FROM notes n
+ WHERE n.owner_id = 1 AND n.updated_at > now() - INTERVAL '1 hour'
+UNION ALL
+SELECT t.note_id, t.deleted_at, CAST(t.reason AS VARCHAR) FROM note_tombstones t
+ WHERE t.owner_id = 1 AND t.deleted_at > now() - INTERVAL '1 hour';
+
+-- deleteTombstonesBefore -> idx_note_tombstones_deleted
+EXPLAIN DELETE FROM note_tombstones WHERE deleted_at < now() - INTERVAL '30 days';
+
+RESET enable_seqscan;
@@ -0,0 +1,142 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop load generator for comparing platform and virtual request threads.
+ *
+ * Registers a user, creates a few notes and a share link, then runs N concurrent
+ * clients for the given duration, each looping over a mix of authenticated note
+ * reads, note list reads, public share reads and logins (1 in 50 requests).
+ * Prints throughput, error count and latency percentiles.
+ *
+ * Usage (JDK 21, no build needed):
+ *   java loadtest/LoadTest.java http://localhost:8080 400 30
+ *
+ * The base URL must include the servlet context path if one is configured.
+ */
+public class LoadTest {
+
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern SHARE_TOKEN = Pattern.compile("\"shareToken\"\\s*:\\s*\"([^\"]+)\"");
+
+    public static void main(String[] args) throws Exception {
+        String base = args.length > 0 ? args[0] : "http://localhost:8080";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+
+        HttpClient http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+        String user = "load" + System.currentTimeMillis();
+        String credentials = "{\"emailOrUsername\":\"" + user + "\",\"password\":\"loadtest123\"}";
+        post(http, base + "/api/auth/register", null,
+            "{\"username\":\"" + user + "\",\"email\":\"" + user + "@example.com\",\"password\":\"loadtest123\"}");
+        String jwt = extract(TOKEN, post(http, base + "/api/auth/login", null, credentials));
+
+        List<String> noteIds = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            noteIds.add(extract(ID, post(http, base + "/api/notes", jwt,
+                "{\"title\":\"load " + i + "\",\"content\":\"" + "x".repeat(2000) + "\"}")));
+        }
+        String shareToken = extract(SHARE_TOKEN,
+            post(http, base + "/api/notes/" + noteIds.get(0) + "/share?expirationHours=1", jwt, ""));
+
+        System.out.printf("Running %d clients for %d s against %s%n", clients, seconds, base);
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        long[][] latencies = new long[clients][];
+        AtomicLong errors = new AtomicLong();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                int client = c;
+                executor.submit(() -> {
+                    long[] samples = new long[1 << 16];
+                    int count = 0;
+                    int i = client;
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = switch (i++ % 50) {
+                            case 0 -> jsonPost(base + "/api/auth/login", null, credentials);
+                            case 1, 2, 3, 4, 5, 6, 7, 8, 9 -> get(base + "/api/notes/user", jwt);
+                            case 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21, 22, 23, 24 ->
+                                get(base + "/api/notes/share/" + shareToken, null);
+                            default -> get(base + "/api/notes/" + noteIds.get(i % noteIds.size()), jwt);
+                        };
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        if (count == samples.length) {
+                            samples = Arrays.copyOf(samples, count * 2);
+                        }
+                        samples[count++] = System.nanoTime() - start;
+                    }
+                    latencies[client] = Arrays.copyOf(samples, count);
+                });
+            }
+        }
+
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("requests=%d  throughput=%.0f req/s  errors=%d%n",
+            all.length, all.length / (double) seconds, errors.get());
+        System.out.printf("latency ms  p50=%.1f  p90=%.1f  p99=%.1f  max=%.1f%n",
+            percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99), percentile(all, 1.0));
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    private static HttpRequest get(String url, String jwt) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(30));
+        if (jwt != null) {
+            builder.header("Authorization", "Bearer " + jwt);
+        }
+        return builder.GET().build();
+    }
+
+    private static HttpRequest jsonPost(String url, String jwt, String body) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+            .timeout(Duration.ofSeconds(30))
+            .header("Content-Type", "application/json");
+        if (jwt != null) {
+            builder.header("Authorization", "Bearer " + jwt);
+        }
+        return builder.POST(HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+
+    private static String post(HttpClient http, String url, String jwt, String body) throws Exception {
+        return http.send(jsonPost(url, jwt, body), HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    private static String extract(Pattern pattern, String body) {
+        Matcher matcher = pattern.matcher(body);
+        if (!matcher.find()) {
+            throw new IllegalStateException("Unexpected response: " + body);
+        }
+        return matcher.group(1);
+    }
+}
@@ -0,0 +1,112 @@
+package com.noteguard.backend.cache;
+
+import com.noteguard.backend.model.Note;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable snapshot of a note held by {@link NoteCache}.
+ * Title and content are plaintext, or ciphertext when {@link #isEncrypted()}.
+ */
+public class CachedNote {
+
+    // Rough per-entry overhead: object headers, boxed key, timestamps and cache node
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+
+    private final Long noteId;
+    private final Long ownerId;
+    private final String title;
+    private final String content;
+    private final boolean encrypted;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime updatedAt;
+    private final Long version;
+    private final LocalDateTime expirationTime;
+    private final String shareToken;
+    private final LocalDateTime shareExpirationTime;
+    private final int estimatedBytes;
+
+    public CachedNote(Note note, String title, String content, boolean encrypted) {
+        this.noteId = note.getId();
+        this.ownerId = note.getUser() != null ? note.getUser().getId() : note.getOwnerId();
+        this.title = title;
+        this.content = content;
+        this.encrypted = encrypted;
+        this.createdAt = note.getCreatedAt();
+        this.updatedAt = note.getUpdatedAt();
+        this.version = note.getVersion();
+        this.expirationTime = note.getExpirationTime();
+        this.shareToken = note.getShareToken();
+        this.shareExpirationTime = note.getShareExpirationTime();
+        this.estimatedBytes = ENTRY_OVERHEAD_BYTES + 2 * (length(title) + length(content) + length(shareToken));
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    /**
+     * @return true if the note itself has expired
+     */
+    public boolean isExpired(LocalDateTime now) {
+        return expirationTime != null && now.isAfter(expirationTime);
+    }
+
+    /**
+     * @return true if the note carries a share token that has expired
+     */
+    public boolean isShareExpired(LocalDateTime now) {
+        return shareExpirationTime != null && !now.isBefore(shareExpirationTime);
+    }
+
+    public Long getNoteId() {
+        return noteId;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public boolean isEncrypted() {
+        return encrypted;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public LocalDateTime getExpirationTime() {
+        return expirationTime;
+    }
+
+    public String getShareToken() {
+        return shareToken;
+    }
+
+    public LocalDateTime getShareExpirationTime() {
+        return shareExpirationTime;
+    }
+
+    /**
+     * @return Approximate heap footprint in bytes, used as the cache weight
+     */
+    public int getEstimatedBytes() {
+        return estimatedBytes;
+    }
+}
@@ -0,0 +1,245 @@
+package com.noteguard.backend.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.noteguard.backend.config.ReplicaRoutingDataSource;
+import com.noteguard.backend.dto.NoteDto;
+import com.noteguard.backend.event.NoteChangedEvent;
+import com.noteguard.backend.event.UserChangedEvent;
+import com.noteguard.backend.jfr.NoteDecryptEvent;
+import com.noteguard.backend.model.Note;
+import com.noteguard.backend.model.User;
+import com.noteguard.backend.util.EncryptionUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-note read cache for {@code NoteService.getNoteById}, keyed by note id.
+ *
+ * Bounded by the estimated heap size of its entries rather than by entry count.
+ * Entries carry the owner id so callers can authorize without loading the note.
+ * With app.note-cache.store-encrypted=true entries keep the ciphertext and are
+ * decrypted on every hit, so no plaintext is retained on the heap.
+ *
+ * Invalidation is strict: every note change evicts after commit, and a load that
+ * started before any eviction is not stored (see {@link #generation()}). Loads
+ * served by a read replica are not stored either, since they may predate the
+ * last eviction.
+ */
+@Component
+public class NoteCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteCache.class);
+
+    private final EncryptionUtil encryptionUtil;
+    private final boolean enabled;
+    private final boolean storeEncrypted;
+    private final long maxBytes;
+    private final Cache<Long, CachedNote> cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    public NoteCache(EncryptionUtil encryptionUtil,
+                     @Value("${app.note-cache.enabled:true}") boolean enabled,
+                     @Value("${app.note-cache.store-encrypted:false}") boolean storeEncrypted,
+                     @Value("${app.note-cache.max-bytes:16777216}") long maxBytes,
+                     @Value("${app.note-cache.ttl:10m}") Duration ttl) {
+        this.encryptionUtil = encryptionUtil;
+        this.enabled = enabled;
+        this.storeEncrypted = storeEncrypted;
+        this.maxBytes = maxBytes;
+        this.cache = Caffeine.newBuilder()
+            .maximumWeight(maxBytes)
+            .weigher((Long noteId, CachedNote note) -> note.getEstimatedBytes())
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build();
+        logger.info("Note cache {} (max {} bytes, ttl {}, {} entries)",
+            enabled ? "enabled" : "disabled", maxBytes, ttl, storeEncrypted ? "encrypted" : "plaintext");
+    }
+
+    /**
+     * @return The cached note, or null on a miss
+     */
+    public CachedNote get(Long noteId) {
+        return enabled ? cache.getIfPresent(noteId) : null;
+    }
+
+    /**
+     * Must be read before loading a note from the database and passed to {@link #put}
+     * @return The current invalidation generation
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Builds a cache entry from a note loaded from the database (encrypted fields)
+     * and stores it unless an invalidation happened since {@code loadGeneration}
+     * or the note was read from the replica
+     * @param note The note entity as loaded, with encrypted title and content
+     * @param loadGeneration The value of {@link #generation()} taken before the load
+     * @return The entry, whether or not it was stored
+     * @throws Exception If decryption fails
+     */
+    public CachedNote put(Note note, long loadGeneration) throws Exception {
+        CachedNote entry;
+        if (storeEncrypted) {
+            entry = new CachedNote(note, note.getTitle(), note.getContent(), true);
+        } else {
+            NoteDecryptEvent event = new NoteDecryptEvent();
+            event.begin();
+            String title = encryptionUtil.decrypt(note.getTitle());
+            String content = encryptionUtil.decrypt(note.getContent());
+            event.complete(note.getId(), "cache-fill", note.getTitle(), note.getContent(), title, content);
+            entry = new CachedNote(note, title, content, false);
+        }
+
+        if (enabled && generation.get() == loadGeneration && !ReplicaRoutingDataSource.isReplicaRead()) {
+            cache.put(entry.getNoteId(), entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Builds the API view of a cache entry, decrypting it if needed
+     * @param entry The cache entry
+     * @param owner The note's owner, for the owner name (may be null)
+     * @return The note with decrypted content
+     * @throws Exception If decryption fails
+     */
+    public NoteDto toDto(CachedNote entry, User owner) throws Exception {
+        boolean shareExpired = entry.isShareExpired(LocalDateTime.now());
+        String title = entry.getTitle();
+        String content = entry.getContent();
+        if (entry.isEncrypted()) {
+            NoteDecryptEvent event = new NoteDecryptEvent();
+            event.begin();
+            title = encryptionUtil.decrypt(entry.getTitle());
+            content = encryptionUtil.decrypt(entry.getContent());
+            event.complete(entry.getNoteId(), "cache-hit", entry.getTitle(), entry.getContent(), title, content);
+        }
+        return new NoteDto(entry.getNoteId(), title, content, entry.getUpdatedAt(), entry.getVersion(), entry.getCreatedAt(),
+            entry.getExpirationTime(),
+            shareExpired ? null : entry.getShareToken(),
+            shareExpired ? null : entry.getShareExpirationTime(),
+            entry.getOwnerId(),
+            owner != null ? owner.getUsername() : null);
+    }
+
+    public void evict(Long noteId) {
+        generation.incrementAndGet();
+        cache.invalidate(noteId);
+    }
+
+    /**
+     * Evicts all notes belonging to a user
+     */
+    public void evictOwner(Long ownerId) {
+        generation.incrementAndGet();
+        cache.asMap().values().removeIf(entry -> ownerId.equals(entry.getOwnerId()));
+    }
+
+    /**
+     * Evicts notes whose expiration or share expiration has passed
+     */
+    public void evictExpired(LocalDateTime now) {
+        generation.incrementAndGet();
+        cache.asMap().values().removeIf(entry -> entry.isExpired(now) || entry.isShareExpired(now));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNoteChanged(NoteChangedEvent event) {
+        if (event.getType() != NoteChangedEvent.Type.CREATED) {
+            evict(event.getNoteId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.getType() == UserChangedEvent.Type.DELETED) {
+            evictOwner(event.getUserId());
+        }
+    }
+
+    /**
+     * Get hit rate and memory use of the note cache
+     * @return NoteCacheStats snapshot
+     */
+    public NoteCacheStats getStats() {
+        CacheStats stats = cache.stats();
+        long weightedSize = cache.policy().eviction()
+            .map(eviction -> eviction.weightedSize().orElse(0L))
+            .orElse(0L);
+        return new NoteCacheStats(enabled, storeEncrypted, cache.estimatedSize(), weightedSize, maxBytes,
+            stats.hitCount(), stats.missCount(), stats.evictionCount());
+    }
+
+    // Inner class for statistics
+    public static class NoteCacheStats {
+        private final boolean enabled;
+        private final boolean storeEncrypted;
+        private final long entries;
+        private final long estimatedBytes;
+        private final long maxBytes;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+
+        public NoteCacheStats(boolean enabled, boolean storeEncrypted, long entries, long estimatedBytes,
+                              long maxBytes, long hits, long misses, long evictions) {
+            this.enabled = enabled;
+            this.storeEncrypted = storeEncrypted;
+            this.entries = entries;
+            this.estimatedBytes = estimatedBytes;
+            this.maxBytes = maxBytes;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public boolean isStoreEncrypted() {
+            return storeEncrypted;
+        }
+
+        public long getEntries() {
+            return entries;
+        }
+
+        public long getEstimatedBytes() {
+            return estimatedBytes;
+        }
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public double getHitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.noteguard.backend.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.noteguard.backend.dto.NoteDto;
+import com.noteguard.backend.event.NoteChangedEvent;
+import com.noteguard.backend.event.UserChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-user version of the note list served by {@code GET /api/notes/user}, so a
+ * conditional request can be answered with 304 without querying or decrypting.
+ *
+ * Every state gets a fresh number from one global counter, and ETags also carry
+ * a random per-process epoch, so an ETag is never reused after a change, an
+ * eviction or a restart. Any change to a user's notes drops their state after
+ * commit. The list also changes by itself when a note or share link expires,
+ * so each state is valid only until the earliest such expiry in the list
+ * (validUntil).
+ *
+ * Assumes a single instance: changes made on other nodes are not seen.
+ */
+@Component
+public class NoteListVersions {
+
+    private final boolean enabled;
+    private final long epoch = new SecureRandom().nextInt() & 0xffffffffL;
+    private final AtomicLong counter = new AtomicLong();
+    private final Cache<Long, ListState> states;
+
+    public NoteListVersions(@Value("${app.etag.enabled:true}") boolean enabled,
+                            @Value("${app.etag.list-versions.max-users:100000}") long maxUsers,
+                            @Value("${app.etag.list-versions.ttl:1h}") Duration ttl) {
+        this.enabled = enabled;
+        this.states = Caffeine.newBuilder()
+            .maximumSize(maxUsers)
+            .expireAfterAccess(ttl)
+            .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return The ETag of the list last served to this user, or null if it may have changed since
+     */
+    public String currentETag(Long ownerId, LocalDateTime now) {
+        if (!enabled) {
+            return null;
+        }
+        ListState state = states.getIfPresent(ownerId);
+        return state != null && state.etag != null && now.isBefore(state.validUntil) ? state.etag : null;
+    }
+
+    /**
+     * Must be called before loading the list; pass the result to {@link #completeLoad}
+     * @return The version the loaded list will belong to
+     */
+    public long beginLoad(Long ownerId) {
+        return states.get(ownerId, id -> new ListState(counter.incrementAndGet(), null, null)).version;
+    }
+
+    /**
+     * Records the ETag of a freshly loaded list, unless a change happened during the load
+     * @param validUntil Earliest future note or share expiry in the list, or null if none
+     * @return The ETag to send with the list
+     */
+    public String completeLoad(Long ownerId, long version, LocalDateTime validUntil) {
+        LocalDateTime until = validUntil != null ? validUntil : LocalDateTime.MAX;
+        String etag = "\"l" + Long.toHexString(epoch) + '-' + version
+            + (validUntil != null ? "-" + Long.toHexString(validUntil.toEpochSecond(ZoneOffset.UTC)) : "") + '"';
+        states.asMap().computeIfPresent(ownerId,
+            (id, state) -> state.version == version ? new ListState(version, etag, until) : state);
+        return etag;
+    }
+
+    /**
+     * Drops a user's state, for changes that publish no event (buffered autosaves)
+     */
+    public void invalidate(Long ownerId) {
+        states.invalidate(ownerId);
+    }
+
+    /**
+     * Drops every state, for bulk changes that publish no events (CleanupService)
+     */
+    public void invalidateAll() {
+        states.invalidateAll();
+    }
+
+    /**
+     * @return The earliest note or share expiry after {@code now} in the list, or null if none
+     */
+    public static LocalDateTime validUntil(List<NoteDto> notes, LocalDateTime now) {
+        LocalDateTime until = null;
+        for (NoteDto note : notes) {
+            until = earliestAfter(until, note.expirationTime(), now);
+            if (note.shareToken() != null) {
+                until = earliestAfter(until, note.shareExpirationTime(), now);
+            }
+        }
+        return until;
+    }
+
+    private static LocalDateTime earliestAfter(LocalDateTime current, LocalDateTime candidate, LocalDateTime now) {
+        if (candidate == null || !candidate.isAfter(now)) {
+            return current;
+        }
+        return current == null || candidate.isBefore(current) ? candidate : current;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNoteChanged(NoteChangedEvent event) {
+        if (event.getOwnerId() != null) {
+            states.invalidate(event.getOwnerId());
+        }
+    }
+
+    /**
+     * Notes embed their owner, so a profile change changes the list too
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        states.invalidate(event.getUserId());
+    }
+
+    private record ListState(long version, String etag, LocalDateTime validUntil) {
+    }
+}
@@ -0,0 +1,128 @@
+package com.noteguard.backend.cache;
+
+import com.noteguard.backend.config.ReplicaRoutingConfig;
+import com.noteguard.backend.util.SingleFlight;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight layer in front of note loads that miss {@link NoteCache}.
+ *
+ * Concurrent requests for the same note id or share token wait on one query and
+ * decrypt and all receive the same immutable {@link CachedNote}; if that load
+ * fails, every waiter gets the same exception.
+ *
+ * Keys include the note cache generation, so a request that starts after a note
+ * change never joins a load that started before it. Callers read the generation
+ * before the first statement of their transaction: on MySQL the snapshot is
+ * fixed by that statement, so a generation read later could postdate a commit
+ * the snapshot does not see. With a read replica, loads that will read the
+ * replica and loads pinned to the primary are kept apart, so a user who just
+ * wrote never receives a replica's lagging copy.
+ */
+@Component
+public class NoteLoadCoalescer {
+
+    private final boolean enabled;
+    private final SingleFlight<String, CachedNote> loads;
+    private final ObjectProvider<ReplicaRoutingConfig.ReplicaRoutingPostProcessor> replicaRouting;
+
+    public NoteLoadCoalescer(@Value("${app.single-flight.enabled:true}") boolean enabled,
+                             @Value("${app.single-flight.timeout:5s}") Duration timeout,
+                             ObjectProvider<ReplicaRoutingConfig.ReplicaRoutingPostProcessor> replicaRouting) {
+        this.enabled = enabled;
+        this.loads = new SingleFlight<>(timeout);
+        this.replicaRouting = replicaRouting;
+    }
+
+    /**
+     * @param noteId The ID of the note
+     * @param generation The {@link NoteCache#generation()} read before the transaction's first statement
+     * @param loader Loads the note and caches it under that generation
+     * @return The loaded entry
+     */
+    public CachedNote loadById(Long noteId, long generation, Supplier<CachedNote> loader) {
+        return load("id:" + noteId, generation, loader);
+    }
+
+    /**
+     * @param shareToken The share token
+     * @param generation The {@link NoteCache#generation()} read before the transaction's first statement
+     * @param loader Loads the shared note and caches it under that generation
+     * @return The loaded entry
+     */
+    public CachedNote loadByShareToken(String shareToken, long generation, Supplier<CachedNote> loader) {
+        return load("share:" + shareToken, generation, loader);
+    }
+
+    private CachedNote load(String key, long generation, Supplier<CachedNote> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        try {
+            return loads.execute(key + "@" + generation + route(), loader::get);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    private String route() {
+        ReplicaRoutingConfig.ReplicaRoutingPostProcessor routing = replicaRouting.getIfAvailable();
+        if (routing == null || routing.getRoutingDataSource() == null) {
+            return "";
+        }
+        return routing.getRoutingDataSource().readsFromReplica() ? "@replica" : "@primary";
+    }
+
+    /**
+     * Get load and coalescing counters
+     * @return CoalescingStats snapshot
+     */
+    public CoalescingStats getStats() {
+        return new CoalescingStats(enabled, loads.getInFlight(), loads.getLoads(),
+            loads.getCoalesced(), loads.getTimeouts());
+    }
+
+    // Inner class for statistics
+    public static class CoalescingStats {
+        private final boolean enabled;
+        private final int inFlight;
+        private final long loads;
+        private final long coalesced;
+        private final long timeouts;
+
+        public CoalescingStats(boolean enabled, int inFlight, long loads, long coalesced, long timeouts) {
+            this.enabled = enabled;
+            this.inFlight = inFlight;
+            this.loads = loads;
+            this.coalesced = coalesced;
+            this.timeouts = timeouts;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public int getInFlight() {
+            return inFlight;
+        }
+
+        public long getLoads() {
+            return loads;
+        }
+
+        public long getCoalesced() {
+            return coalesced;
+        }
+
+        public long getTimeouts() {
+            return timeouts;
+        }
+    }
+}
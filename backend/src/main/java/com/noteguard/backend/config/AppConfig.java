@@ -1,5 +1,7 @@
 package com.noteguard.backend.config;
 
+import com.noteguard.backend.metrics.NoteGuardMetrics;
+import com.noteguard.backend.security.BoundedPasswordEncoder;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -15,9 +17,14 @@ public class AppConfig {
     @Value("${jwt.expiration}")
     private long jwtExpiration;
 
+    // 0 = one concurrent hash per available processor
+    @Value("${app.security.max-concurrent-hashes:0}")
+    private int maxConcurrentHashes;
+
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(NoteGuardMetrics metrics) {
+        int permits = maxConcurrentHashes > 0 ? maxConcurrentHashes : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), permits, metrics);
     }
 
     public String getJwtSecret() {
@@ -1,20 +1,83 @@
 package com.noteguard.backend.config;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.util.JsonRecyclerPools;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 
+/**
+ * Object mappers for the API. JSON is the default; clients may instead send
+ * and accept CBOR ({@code application/cbor}) or Smile
+ * ({@code application/x-jackson-smile}) on every endpoint. All three mappers
+ * share the same configuration, so a response has the same fields in every format.
+ *
+ * Responses are immutable DTO records (see {@code dto}), never entities, so the
+ * serializers Jackson builds for them are fixed and cached once per type.
+ */
 @Configuration
 public class JacksonConfig {
 
     @Bean
     @Primary
-    public ObjectMapper objectMapper() {
-        ObjectMapper mapper = new ObjectMapper();
-        
+    public ObjectMapper objectMapper(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        // Jackson's default buffer recycler pool is ThreadLocal-based; with a new virtual
+        // thread per request every request would allocate fresh buffers, so share a bounded pool
+        JsonFactory factory = virtualThreads
+            ? JsonFactory.builder().recyclerPool(JsonRecyclerPools.sharedBoundedPool()).build()
+            : new JsonFactory();
+        return tuned(new ObjectMapper(factory));
+    }
+
+    @Bean
+    public CBORMapper cborMapper(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        CBORFactory factory = virtualThreads
+            ? CBORFactory.builder().recyclerPool(JsonRecyclerPools.sharedBoundedPool()).build()
+            : new CBORFactory();
+        return tuned(new CBORMapper(factory));
+    }
+
+    @Bean
+    public SmileMapper smileMapper(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        SmileFactory factory = virtualThreads
+            ? SmileFactory.builder().recyclerPool(JsonRecyclerPools.sharedBoundedPool()).build()
+            : new SmileFactory();
+        return tuned(new SmileMapper(factory));
+    }
+
+    // Replace the converters Spring MVC would otherwise build with default mappers; JSON stays first
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(CBORMapper cborMapper) {
+        return new MappingJackson2CborHttpMessageConverter(cborMapper);
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(SmileMapper smileMapper) {
+        return new MappingJackson2SmileHttpMessageConverter(smileMapper);
+    }
+
+    private static <T extends ObjectMapper> T tuned(T mapper) {
+        // Blackbird replaces reflective getter/constructor calls with generated lambdas
+        mapper.registerModule(new BlackbirdModule());
+        return configure(mapper);
+    }
+
+    /**
+     * Shared settings without the Blackbird module; the serialization benchmark
+     * uses this for its untuned baseline
+     */
+    public static <T extends ObjectMapper> T configure(T mapper) {
         // Configure Jackson to handle Java 8 date/time types
         mapper.registerModule(new JavaTimeModule());
         mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
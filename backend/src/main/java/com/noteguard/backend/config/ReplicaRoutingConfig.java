@@ -0,0 +1,158 @@
+package com.noteguard.backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Read/write split: when app.datasource.replica.enabled=true the application's
+ * DataSource (auto-configured or DatabaseConfig.railwayDataSource) is wrapped so
+ * that @Transactional(readOnly = true) work goes to a replica pool configured
+ * under app.datasource.replica.pool.* (same keys as spring.datasource.hikari plus
+ * jdbc-url, username, password).
+ *
+ * The primary pool is wrapped rather than replaced, so Flyway, Hibernate and the
+ * pool metrics keep working unchanged; non-transactional work always uses the primary.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingConfig.class);
+
+    @Bean
+    public static ReplicaRoutingPostProcessor replicaRoutingPostProcessor(Environment environment) {
+        return new ReplicaRoutingPostProcessor(environment);
+    }
+
+    @Bean
+    public ReplicaMonitor replicaMonitor(ReplicaRoutingPostProcessor postProcessor,
+                                         ObjectProvider<MeterRegistry> meterRegistry,
+                                         Environment environment) {
+        int timeoutSeconds = environment.getProperty("app.datasource.replica.health-check-timeout-seconds", Integer.class, 2);
+        return new ReplicaMonitor(postProcessor, meterRegistry, timeoutSeconds);
+    }
+
+    /**
+     * Wraps the primary DataSource bean in lazy proxy -> routing data source.
+     * Ordered first so that other DataSource wrappers go around the routing proxy.
+     */
+    public static class ReplicaRoutingPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final Environment environment;
+        private ReplicaRoutingDataSource routingDataSource;
+
+        public ReplicaRoutingPostProcessor(Environment environment) {
+            this.environment = environment;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+            if (!(bean instanceof HikariDataSource primary) || routingDataSource != null) {
+                return bean;
+            }
+
+            HikariDataSource replica = Binder.get(environment)
+                .bind("app.datasource.replica.pool", HikariDataSource.class)
+                .orElseThrow(() -> new IllegalStateException(
+                    "app.datasource.replica.enabled is true but app.datasource.replica.pool is not configured"));
+            if (replica.getPoolName() == null) {
+                replica.setPoolName(primary.getPoolName() + "-replica");
+            }
+            if (replica.getDataSourceProperties().isEmpty()) {
+                replica.setDataSourceProperties(primary.getDataSourceProperties());
+            }
+            replica.setReadOnly(true);
+
+            Duration window = environment.getProperty("app.datasource.replica.read-your-writes-window",
+                Duration.class, Duration.ofSeconds(5));
+            routingDataSource = new ReplicaRoutingDataSource(primary, replica, window);
+
+            logger.info("Routing read-only transactions from '{}' to replica pool '{}' (read-your-writes window {})",
+                primary.getPoolName(), replica.getPoolName(), window);
+            return new LazyConnectionDataSourceProxy(routingDataSource);
+        }
+
+        public ReplicaRoutingDataSource getRoutingDataSource() {
+            return routingDataSource;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+
+    /**
+     * Periodic replica health check, replica pool metrics and routing counters
+     */
+    public static class ReplicaMonitor {
+
+        private final ReplicaRoutingPostProcessor postProcessor;
+        private final ObjectProvider<MeterRegistry> meterRegistry;
+        private final int timeoutSeconds;
+
+        public ReplicaMonitor(ReplicaRoutingPostProcessor postProcessor, ObjectProvider<MeterRegistry> meterRegistry,
+                              int timeoutSeconds) {
+            this.postProcessor = postProcessor;
+            this.meterRegistry = meterRegistry;
+            this.timeoutSeconds = timeoutSeconds;
+        }
+
+        /**
+         * Boot binds pool metrics only for DataSource beans; the replica pool is not one
+         */
+        @EventListener(ApplicationReadyEvent.class)
+        public void bindMetrics() {
+            ReplicaRoutingDataSource routing = postProcessor.getRoutingDataSource();
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+            if (routing == null || registry == null) {
+                return;
+            }
+            HikariDataSource replica = (HikariDataSource) routing.getReplica();
+            if (replica.getMetricsTrackerFactory() == null && replica.getMetricRegistry() == null) {
+                replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            }
+            Gauge.builder("noteguard.datasource.replica.healthy", routing, r -> r.isReplicaHealthy() ? 1 : 0)
+                .description("1 while read-only transactions are routed to the replica")
+                .register(registry);
+            FunctionCounter.builder("noteguard.datasource.reads", routing, ReplicaRoutingDataSource::getReplicaReads)
+                .tag("target", "replica").register(registry);
+            FunctionCounter.builder("noteguard.datasource.reads", routing, ReplicaRoutingDataSource::getPrimaryReads)
+                .tag("target", "primary-fallback").register(registry);
+            FunctionCounter.builder("noteguard.datasource.reads", routing, ReplicaRoutingDataSource::getPinnedReads)
+                .tag("target", "primary-read-your-writes").register(registry);
+            FunctionCounter.builder("noteguard.datasource.replica.failovers", routing, ReplicaRoutingDataSource::getFallbacks)
+                .register(registry);
+        }
+
+        @Scheduled(fixedDelayString = "${app.datasource.replica.health-check-interval-ms:10000}")
+        public void checkReplica() {
+            ReplicaRoutingDataSource routing = postProcessor.getRoutingDataSource();
+            if (routing != null) {
+                routing.checkReplica(timeoutSeconds);
+                routing.purgeWriteMarks();
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.noteguard.backend.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends read-only transactions to the replica and everything else to the primary.
+ *
+ * Reads stay on the primary when:
+ * - the replica is marked unhealthy or refuses a connection;
+ * - the current user wrote within the read-your-writes window, so they always
+ *   see their own changes despite replication lag.
+ *
+ * Must sit behind a LazyConnectionDataSourceProxy. The routing decision then
+ * happens at the first statement, after the transaction's read-only flag is
+ * bound. Without the proxy, JpaTransactionManager would fetch the connection
+ * before that and every transaction would go to the primary.
+ *
+ * A transaction that got a replica connection is marked (see {@link #isReplicaRead()}),
+ * so shared caches can refuse what it read: a lagging row cached for everyone
+ * would also reach the user who just wrote it.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    public enum Route { PRIMARY, REPLICA }
+
+    // Bound to the transaction while it holds a replica connection
+    private static final Object REPLICA_READ = new Object();
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final long readYourWritesNanos;
+
+    // username -> System.nanoTime() of the user's last write transaction
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+    private final LongAdder primaryReads = new LongAdder();
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder pinnedReads = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    private volatile boolean replicaHealthy = true;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration readYourWritesWindow) {
+        this.primary = primary;
+        this.replica = replica;
+        this.readYourWritesNanos = readYourWritesWindow.toNanos();
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String user = currentUser();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (user != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+                lastWrites.put(user, System.nanoTime());
+            }
+            return Route.PRIMARY;
+        }
+        if (!replicaHealthy) {
+            primaryReads.increment();
+            return Route.PRIMARY;
+        }
+        if (isPinned(user)) {
+            pinnedReads.increment();
+            return Route.PRIMARY;
+        }
+        replicaReads.increment();
+        return Route.REPLICA;
+    }
+
+    private boolean isPinned(String user) {
+        if (user == null) {
+            return false;
+        }
+        Long lastWrite = lastWrites.get(user);
+        return lastWrite != null && System.nanoTime() - lastWrite < readYourWritesNanos;
+    }
+
+    /**
+     * @return true if a read-only transaction started now by the current user would go to the replica
+     */
+    public boolean readsFromReplica() {
+        return replicaHealthy && !isPinned(currentUser());
+    }
+
+    /**
+     * @return true if the current transaction reads from the replica, so what it reads may lag the primary
+     */
+    public static boolean isReplicaRead() {
+        return TransactionSynchronizationManager.hasResource(REPLICA_READ);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Object route = determineCurrentLookupKey();
+        if (route == Route.REPLICA) {
+            try {
+                Connection connection = replica.getConnection();
+                markReplicaRead();
+                return connection;
+            } catch (SQLException e) {
+                fallbacks.increment();
+                markReplicaHealthy(false, e.getMessage());
+            }
+        }
+        return primary.getConnection();
+    }
+
+    private static void markReplicaRead() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(REPLICA_READ)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(REPLICA_READ, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(REPLICA_READ);
+            }
+        });
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    /**
+     * Marks the replica usable or not; logs only on transitions
+     */
+    public void markReplicaHealthy(boolean healthy, String reason) {
+        if (replicaHealthy != healthy) {
+            replicaHealthy = healthy;
+            if (healthy) {
+                logger.info("Read replica is healthy again, routing read-only transactions to it");
+            } else {
+                logger.warn("Read replica unavailable ({}), routing reads to the primary", reason);
+            }
+        }
+    }
+
+    /**
+     * Checks the replica with a fresh connection
+     * @return true if a connection could be obtained and validated
+     */
+    public boolean checkReplica(int timeoutSeconds) {
+        try (Connection connection = replica.getConnection()) {
+            boolean valid = connection.isValid(timeoutSeconds);
+            markReplicaHealthy(valid, "connection validation failed");
+            return valid;
+        } catch (SQLException e) {
+            markReplicaHealthy(false, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Drops read-your-writes entries older than the window
+     */
+    public void purgeWriteMarks() {
+        long now = System.nanoTime();
+        lastWrites.values().removeIf(lastWrite -> now - lastWrite >= readYourWritesNanos);
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    public DataSource getReplica() {
+        return replica;
+    }
+
+    public boolean isReplicaHealthy() {
+        return replicaHealthy;
+    }
+
+    public long getReplicaReads() {
+        return replicaReads.sum();
+    }
+
+    public long getPrimaryReads() {
+        return primaryReads.sum();
+    }
+
+    public long getPinnedReads() {
+        return pinnedReads.sum();
+    }
+
+    public long getFallbacks() {
+        return fallbacks.sum();
+    }
+
+    public int getPinnedUsers() {
+        return lastWrites.size();
+    }
+}
@@ -0,0 +1,57 @@
+package com.noteguard.backend.config;
+
+import com.noteguard.backend.metrics.RequestTimings;
+import com.noteguard.backend.metrics.ServerTimingFilter;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server-Timing header on /api/* responses (app.server-timing.enabled).
+ *
+ * Nothing here is registered when the flag is off, and the instrumented code
+ * (JwtAuthenticationFilter, NoteService, EncryptionUtil, repositories) then finds
+ * no timing context and skips the clock reads. With app.server-timing.admin-only
+ * the header is only sent to ADMIN users.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.server-timing.enabled", havingValue = "true")
+public class ServerTimingConfig {
+
+    @Bean
+    public FilterRegistrationBean<ServerTimingFilter> serverTimingFilter(
+            @Value("${app.server-timing.admin-only:true}") boolean adminOnly) {
+        FilterRegistrationBean<ServerTimingFilter> registration = new FilterRegistrationBean<>(new ServerTimingFilter(adminOnly));
+        registration.addUrlPatterns("/api/*");
+        // Outside the security filter chain, so the auth phase is inside the timed span
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 10);
+        return registration;
+    }
+
+    /**
+     * Times every repository call as the db phase, using the same invocation listener
+     * hook that feeds the spring.data.repository.invocations metric
+     */
+    @Bean
+    public static BeanPostProcessor repositoryTimingPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addInvocationListener(
+                        invocation -> RequestTimings.record(RequestTimings.Phase.DB,
+                            invocation.getDuration(TimeUnit.NANOSECONDS))));
+                }
+                return bean;
+            }
+        };
+    }
+}
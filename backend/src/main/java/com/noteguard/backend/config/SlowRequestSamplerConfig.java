@@ -0,0 +1,70 @@
+package com.noteguard.backend.config;
+
+import com.noteguard.backend.metrics.SamplingDataSource;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * Puts the statement-timing {@link SamplingDataSource} in front of the application
+ * DataSource when the slow request sampler is on (app.slow-requests.enabled).
+ * Other DataSource beans (a library's own pool, a test database) are left alone.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.slow-requests.enabled", havingValue = "true", matchIfMissing = true)
+public class SlowRequestSamplerConfig {
+
+    @Bean
+    public static SamplingDataSourcePostProcessor samplingDataSourcePostProcessor() {
+        return new SamplingDataSourcePostProcessor();
+    }
+
+    /**
+     * Runs last, so the replica routing wrapper (which looks for the Hikari pool) sees the pool itself
+     */
+    public static class SamplingDataSourcePostProcessor implements BeanPostProcessor, BeanFactoryAware, Ordered {
+
+        // Bean name of the auto-configured DataSource
+        private static final String DEFAULT_NAME = "dataSource";
+
+        private ConfigurableListableBeanFactory beanFactory;
+
+        @Override
+        public void setBeanFactory(BeanFactory beanFactory) {
+            this.beanFactory = (ConfigurableListableBeanFactory) beanFactory;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+            if (bean instanceof DataSource dataSource && !(bean instanceof SamplingDataSource)
+                && isApplicationDataSource(beanName)) {
+                return new SamplingDataSource(dataSource);
+            }
+            return bean;
+        }
+
+        // The @Primary DataSource (DatabaseConfig.railwayDataSource on prod), else the auto-configured one
+        private boolean isApplicationDataSource(String beanName) {
+            if (!beanFactory.containsBeanDefinition(beanName)) {
+                return false;
+            }
+            if (beanFactory.getBeanDefinition(beanName).isPrimary()) {
+                return true;
+            }
+            return DEFAULT_NAME.equals(beanName);
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+}
@@ -1,16 +1,31 @@
 package com.noteguard.backend.controller;
 
-import com.noteguard.backend.model.Note;
-import com.noteguard.backend.model.User;
+import com.noteguard.backend.jfr.FlightRecordingService;
+import com.noteguard.backend.metrics.RouteLatencyTracker;
+import com.noteguard.backend.metrics.SlowRequestSampler;
 import com.noteguard.backend.service.AdminService;
+import com.noteguard.backend.service.CacheService;
+import com.noteguard.backend.service.SerializationBenchmarkService;
+import com.noteguard.backend.service.ShareTokenFilter;
+import com.noteguard.backend.service.ShareTokenIndex;
 import com.noteguard.backend.dto.ApiResponse;
+import com.noteguard.backend.dto.NoteDto;
+import com.noteguard.backend.dto.UserDto;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.bind.annotation.*;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.util.List;
 
 @RestController
@@ -22,14 +37,35 @@ public class AdminController {
     @Autowired
     private AdminService adminService;
 
+    @Autowired
+    private CacheService cacheService;
+
+    @Autowired
+    private ShareTokenFilter shareTokenFilter;
+
+    @Autowired
+    private ShareTokenIndex shareTokenIndex;
+
+    @Autowired
+    private FlightRecordingService flightRecordingService;
+
+    @Autowired
+    private RouteLatencyTracker routeLatencyTracker;
+
+    @Autowired
+    private SlowRequestSampler slowRequestSampler;
+
+    @Autowired
+    private SerializationBenchmarkService serializationBenchmarkService;
+
     /**
      * Get all users in the system
      * Only accessible to ADMIN role
      */
     @GetMapping("/users")
-    public ResponseEntity<ApiResponse<List<User>>> getAllUsers(Authentication authentication) {
+    public ResponseEntity<ApiResponse<List<UserDto>>> getAllUsers(Authentication authentication) {
         try {
-            List<User> users = adminService.getAllUsers();
+            List<UserDto> users = adminService.getAllUsers();
             return ResponseEntity.ok(new ApiResponse<>("Users retrieved successfully", users, true));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -42,9 +78,9 @@ public class AdminController {
      * Only accessible to ADMIN role
      */
     @GetMapping("/notes")
-    public ResponseEntity<ApiResponse<List<Note>>> getAllNotes(Authentication authentication) {
+    public ResponseEntity<ApiResponse<List<NoteDto>>> getAllNotes(Authentication authentication) {
         try {
-            List<Note> notes = adminService.getAllNotes();
+            List<NoteDto> notes = adminService.getAllNotes();
             return ResponseEntity.ok(new ApiResponse<>("Notes retrieved successfully", notes, true));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -143,6 +179,176 @@ public class AdminController {
         }
     }
 
+    /**
+     * Get per-route latency percentiles, throughput and error rates
+     * Rolling window of app.latency.intervals x app.latency.interval-ms, busiest route first
+     */
+    @GetMapping("/dashboard/latency")
+    public ResponseEntity<ApiResponse<RouteLatencyTracker.LatencyReport>> getLatencyDashboard(Authentication authentication) {
+        try {
+            RouteLatencyTracker.LatencyReport report = routeLatencyTracker.getReport();
+            return ResponseEntity.ok(new ApiResponse<>("Latency dashboard data retrieved successfully", report, true));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ApiResponse<>("Failed to retrieve latency dashboard data: " + e.getMessage(), null, false));
+        }
+    }
+
+    /**
+     * Get the most recent requests slower than app.slow-requests.threshold
+     * Newest first, with their SQL statements, row counts and crypto time
+     */
+    @GetMapping("/slow-requests")
+    public ResponseEntity<ApiResponse<List<SlowRequestSampler.SlowRequest>>> getSlowRequests(Authentication authentication) {
+        try {
+            List<SlowRequestSampler.SlowRequest> requests = slowRequestSampler.getSlowRequests();
+            return ResponseEntity.ok(new ApiResponse<>("Slow requests retrieved successfully", requests, true));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ApiResponse<>("Failed to retrieve slow requests: " + e.getMessage(), null, false));
+        }
+    }
+
+    /**
+     * Compare payload size and encode/decode time of JSON, CBOR and Smile
+     * on a generated note list (see SerializationBenchmarkService)
+     */
+    @GetMapping("/serialization/compare")
+    public ResponseEntity<ApiResponse<SerializationBenchmarkService.SerializationReport>> compareSerialization(
+            @RequestParam(defaultValue = "500") int notes,
+            @RequestParam(defaultValue = "50") int iterations,
+            Authentication authentication) {
+        try {
+            SerializationBenchmarkService.SerializationReport report = serializationBenchmarkService.compare(notes, iterations);
+            return ResponseEntity.ok(new ApiResponse<>("Serialization comparison completed", report, true));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new ApiResponse<>(e.getMessage(), null, false));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ApiResponse<>("Failed to compare serialization formats: " + e.getMessage(), null, false));
+        }
+    }
+
+    /**
+     * Get cache statistics
+     * Hit/miss/put counts per second-level cache region, plus note cache hit rate and memory use
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<ApiResponse<CacheService.CacheStats>> getCacheStats(Authentication authentication) {
+        try {
+            CacheService.CacheStats stats = cacheService.getCacheStats();
+            return ResponseEntity.ok(new ApiResponse<>("Cache statistics retrieved successfully", stats, true));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ApiResponse<>("Failed to retrieve cache statistics: " + e.getMessage(), null, false));
+        }
+    }
+
+    /**
+     * Get share token filter statistics
+     * Size, memory, expected false positive rate and rejected lookups
+     */
+    @GetMapping("/share-filter/stats")
+    public ResponseEntity<ApiResponse<ShareTokenFilter.ShareFilterStats>> getShareFilterStats(Authentication authentication) {
+        try {
+            ShareTokenFilter.ShareFilterStats stats = shareTokenFilter.getStats();
+            return ResponseEntity.ok(new ApiResponse<>("Share filter statistics retrieved successfully", stats, true));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ApiResponse<>("Failed to retrieve share filter statistics: " + e.getMessage(), null, false));
+        }
+    }
+
+    /**
+     * Get share token index statistics
+     * Token count, table capacity and memory footprint
+     */
+    @GetMapping("/share-index/stats")
+    public ResponseEntity<ApiResponse<ShareTokenIndex.ShareIndexStats>> getShareIndexStats(Authentication authentication) {
+        try {
+            ShareTokenIndex.ShareIndexStats stats = shareTokenIndex.getStats();
+            return ResponseEntity.ok(new ApiResponse<>("Share index statistics retrieved successfully", stats, true));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ApiResponse<>("Failed to retrieve share index statistics: " + e.getMessage(), null, false));
+        }
+    }
+
+    /**
+     * Start a JDK Flight Recorder recording
+     * Duration and size are capped by app.jfr.max-duration and app.jfr.max-size
+     */
+    @PostMapping("/jfr/start")
+    public ResponseEntity<ApiResponse<FlightRecordingService.RecordingStatus>> startRecording(
+            @RequestParam(defaultValue = "60") long durationSeconds,
+            @RequestParam(required = false) Long maxSizeMb,
+            Authentication authentication) {
+        try {
+            FlightRecordingService.RecordingStatus status = flightRecordingService.start(
+                Duration.ofSeconds(durationSeconds), maxSizeMb != null ? DataSize.ofMegabytes(maxSizeMb) : null);
+            return ResponseEntity.ok(new ApiResponse<>("Recording started", status, true));
+        } catch (Exception e) {
+            HttpStatus status = e.getMessage() != null && e.getMessage().contains("already running") ?
+                HttpStatus.CONFLICT : HttpStatus.INTERNAL_SERVER_ERROR;
+            return ResponseEntity.status(status)
+                .body(new ApiResponse<>("Failed to start recording: " + e.getMessage(), null, false));
+        }
+    }
+
+    /**
+     * Stop the JDK Flight Recorder recording; it stays available for download
+     */
+    @PostMapping("/jfr/stop")
+    public ResponseEntity<ApiResponse<FlightRecordingService.RecordingStatus>> stopRecording(Authentication authentication) {
+        try {
+            FlightRecordingService.RecordingStatus status = flightRecordingService.stop();
+            return ResponseEntity.ok(new ApiResponse<>("Recording stopped", status, true));
+        } catch (Exception e) {
+            HttpStatus status = e.getMessage() != null && e.getMessage().contains("No recording") ?
+                HttpStatus.NOT_FOUND : HttpStatus.INTERNAL_SERVER_ERROR;
+            return ResponseEntity.status(status)
+                .body(new ApiResponse<>("Failed to stop recording: " + e.getMessage(), null, false));
+        }
+    }
+
+    /**
+     * Get the state and size of the current or last recording
+     */
+    @GetMapping("/jfr/status")
+    public ResponseEntity<ApiResponse<FlightRecordingService.RecordingStatus>> getRecordingStatus(Authentication authentication) {
+        FlightRecordingService.RecordingStatus status = flightRecordingService.getStatus();
+        if (status == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(new ApiResponse<>("No recording found", null, false));
+        }
+        return ResponseEntity.ok(new ApiResponse<>("Recording status retrieved successfully", status, true));
+    }
+
+    /**
+     * Download the recording as a .jfr file
+     * A running recording is downloaded as a snapshot and keeps running
+     */
+    @GetMapping("/jfr/download")
+    public ResponseEntity<?> downloadRecording(Authentication authentication) {
+        try {
+            Path file = flightRecordingService.dump();
+            long size = Files.size(file);
+            // Each download streams its own dump, deleted once the response is written
+            InputStreamResource body = new InputStreamResource(Files.newInputStream(file, StandardOpenOption.DELETE_ON_CLOSE));
+            return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(size)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"noteguard.jfr\"")
+                .body(body);
+        } catch (Exception e) {
+            HttpStatus status = e.getMessage() != null && e.getMessage().contains("No recording") ?
+                HttpStatus.NOT_FOUND : HttpStatus.INTERNAL_SERVER_ERROR;
+            return ResponseEntity.status(status)
+                .body(new ApiResponse<>("Failed to download recording: " + e.getMessage(), null, false));
+        }
+    }
+
     // Inner class for dashboard data
     public static class AdminDashboard {
         private final AdminService.UserStats userStats;
@@ -1,18 +1,40 @@
 package com.noteguard.backend.controller;
 
+import com.noteguard.backend.cache.NoteListVersions;
+import com.noteguard.backend.event.NoteEventBroadcaster;
 import com.noteguard.backend.model.Note;
+import com.noteguard.backend.security.CustomUserDetailsService;
+import com.noteguard.backend.service.AutosaveService;
+import com.noteguard.backend.service.NoteRevisionService;
 import com.noteguard.backend.service.NoteService;
 import com.noteguard.backend.service.CleanupService;
 import com.noteguard.backend.dto.ApiResponse;
+import com.noteguard.backend.dto.AutosaveResponse;
+import com.noteguard.backend.dto.NoteDto;
+import com.noteguard.backend.dto.NotePatchRequest;
+import com.noteguard.backend.dto.NotePatchResponse;
+import com.noteguard.backend.dto.NoteRevisionDto;
+import com.noteguard.backend.dto.NoteRevisionSummary;
+import com.noteguard.backend.exception.LoadTimeoutException;
+import com.noteguard.backend.exception.PreconditionFailedException;
+import com.noteguard.backend.exception.VersionConflictException;
+import com.noteguard.backend.dto.NoteSyncResponse;
 import com.noteguard.backend.dto.ShareTokenResponse;
+import com.noteguard.backend.util.ETags;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import jakarta.validation.Valid;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -26,16 +48,31 @@ public class NoteController {
     @Autowired
     private CleanupService cleanupService;
 
+    @Autowired
+    private NoteListVersions noteListVersions;
+
+    @Autowired
+    private NoteEventBroadcaster noteEventBroadcaster;
+
+    @Autowired
+    private AutosaveService autosaveService;
+
+    @Autowired
+    private NoteRevisionService noteRevisionService;
+
+    // Let the browser keep responses but revalidate them (If-None-Match) on every use
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     /**
      * Create a new note
      * Only authenticated users can create notes
      */
     @PostMapping
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<ApiResponse<Note>> createNote(@Valid @RequestBody Note note, Authentication authentication) {
+    public ResponseEntity<ApiResponse<NoteDto>> createNote(@Valid @RequestBody Note note, Authentication authentication) {
         try {
             String username = authentication.getName();
-            Note createdNote = noteService.createNote(note, username);
+            NoteDto createdNote = noteService.createNote(note, username);
             
             return ResponseEntity.status(HttpStatus.CREATED)
                 .body(new ApiResponse<>("Note created successfully", createdNote, true));
@@ -51,13 +88,13 @@ public class NoteController {
      */
     @PostMapping("/with-expiration")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<ApiResponse<Note>> createNoteWithExpiration(@Valid @RequestBody Note note,
+    public ResponseEntity<ApiResponse<NoteDto>> createNoteWithExpiration(@Valid @RequestBody Note note,
                                                                       @RequestParam int expirationHours,
                                                                       Authentication authentication) {
         try {
             String username = authentication.getName();
             java.time.LocalDateTime expirationTime = java.time.LocalDateTime.now().plusHours(expirationHours);
-            Note createdNote = noteService.createNote(note, username, expirationTime);
+            NoteDto createdNote = noteService.createNote(note, username, expirationTime);
             
             return ResponseEntity.status(HttpStatus.CREATED)
                 .body(new ApiResponse<>("Note created with expiration successfully", createdNote, true));
@@ -70,15 +107,33 @@ public class NoteController {
     /**
      * Get a note by ID
      * Only the owner or admin can access the note
+     * Answers 304 when If-None-Match holds the current ETag, without loading the content
      */
     @GetMapping("/{id}")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<ApiResponse<Note>> getNoteById(@PathVariable Long id, Authentication authentication) {
+    public ResponseEntity<ApiResponse<NoteDto>> getNoteById(@PathVariable Long id,
+                                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                         Authentication authentication) {
         try {
             String username = authentication.getName();
-            Note note = noteService.getNoteById(id, username);
+            if (ifNoneMatch != null && noteListVersions.isEnabled()) {
+                String etag = noteService.getNoteETag(id, username);
+                if (ETags.matches(ifNoneMatch, etag)) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
+                }
+            }
+
+            NoteDto note = noteService.getNoteById(id, username);
             
-            return ResponseEntity.ok(new ApiResponse<>("Note retrieved successfully", note, true));
+            if (!noteListVersions.isEnabled()) {
+                return ResponseEntity.ok(new ApiResponse<>("Note retrieved successfully", note, true));
+            }
+            return ResponseEntity.ok()
+                .eTag(ETags.forNote(note.id(), note.updatedAt(), note.shareToken(), note.shareExpirationTime()))
+                .cacheControl(REVALIDATE)
+                .body(new ApiResponse<>("Note retrieved successfully", note, true));
+        } catch (LoadTimeoutException e) {
+            return loadTimedOut(e);
         } catch (Exception e) {
             HttpStatus status = e.getMessage().contains("Access denied") ? 
                 HttpStatus.FORBIDDEN : HttpStatus.NOT_FOUND;
@@ -91,40 +146,118 @@ public class NoteController {
     /**
      * Get all notes for the current user
      * Only authenticated users can access their own notes
+     * Answers 304 from the in-memory list version when If-None-Match is current
      */
     @GetMapping("/user")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<ApiResponse<List<Note>>> getUserNotes(Authentication authentication) {
+    public ResponseEntity<ApiResponse<List<NoteDto>>> getUserNotes(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                                Authentication authentication) {
         try {
             String username = authentication.getName();
-            List<Note> notes = noteService.getNotesByUser(username);
+            Long userId = authentication.getPrincipal() instanceof CustomUserDetailsService.UserPrincipal principal
+                ? principal.getId() : null;
+            if (userId == null || !noteListVersions.isEnabled()) {
+                List<NoteDto> notes = noteService.getNotesByUser(username);
+                return ResponseEntity.ok(new ApiResponse<>("Notes retrieved successfully", notes, true));
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            String current = noteListVersions.currentETag(userId, now);
+            if (ETags.matches(ifNoneMatch, current)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(current).cacheControl(REVALIDATE).build();
+            }
+
+            long version = noteListVersions.beginLoad(userId);
+            List<NoteDto> notes = noteService.getNotesByUser(username);
+            String etag = noteListVersions.completeLoad(userId, version, NoteListVersions.validUntil(notes, now));
             
-            return ResponseEntity.ok(new ApiResponse<>("Notes retrieved successfully", notes, true));
+            return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(REVALIDATE)
+                .body(new ApiResponse<>("Notes retrieved successfully", notes, true));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(new ApiResponse<>("Failed to retrieve notes: " + e.getMessage(), null, false));
         }
     }
 
+    /**
+     * Get the current user's notes changed since a sync cursor, plus tombstones for
+     * deleted and expired ones. Omit {@code since} for a full resync.
+     */
+    @GetMapping("/sync")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ApiResponse<NoteSyncResponse>> syncNotes(@RequestParam(required = false)
+                                                                   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+                                                                   Authentication authentication) {
+        try {
+            String username = authentication.getName();
+            NoteSyncResponse changes = noteService.getChangesSince(username, since);
+
+            return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(new ApiResponse<>("Notes synchronized successfully", changes, true));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ApiResponse<>("Failed to synchronize notes: " + e.getMessage(), null, false));
+        }
+    }
+
+    /**
+     * Stream of change events (id, type, version) for the current user's notes,
+     * as server-sent events named "note". After reconnecting, catch up with /sync.
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<SseEmitter> streamNoteEvents(Authentication authentication) {
+        Long userId = authentication.getPrincipal() instanceof CustomUserDetailsService.UserPrincipal principal
+            ? principal.getId() : null;
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        try {
+            SseEmitter emitter = noteEventBroadcaster.subscribe(userId);
+            return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                // Keep nginx-style proxies from buffering the stream
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
     /**
      * Update a note by ID
      * Only the owner or admin can update the note
+     * Answers 409, with the current note, if the body's version is no longer current
      */
     @PutMapping("/{id}")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<ApiResponse<Note>> updateNote(@PathVariable Long id, 
+    public ResponseEntity<ApiResponse<NoteDto>> updateNote(@PathVariable Long id, 
                                                        @Valid @RequestBody Note note, 
                                                        Authentication authentication) {
         try {
             String username = authentication.getName();
-            Note updatedNote = noteService.updateNote(id, note, username);
+            NoteDto updatedNote = noteService.updateNote(id, note, username);
             
             return ResponseEntity.ok(new ApiResponse<>("Note updated successfully", updatedNote, true));
+        } catch (VersionConflictException e) {
+            // The current note, so the client can show or merge what it would have overwritten
+            NoteDto current;
+            try {
+                current = noteService.getNoteById(id, authentication.getName());
+            } catch (Exception ignored) {
+                current = null;
+            }
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new ApiResponse<>(e.getMessage() + " (current version " + e.getCurrentVersion() + ")",
+                    current, false));
         } catch (Exception e) {
             HttpStatus status;
             if (e.getMessage().contains("Access denied")) {
                 status = HttpStatus.FORBIDDEN;
-            } else if (e.getMessage().contains("not found")) {
+            } else if (e.getMessage().contains("not found") || e.getMessage().contains("expired")) {
                 status = HttpStatus.NOT_FOUND;
             } else {
                 status = HttpStatus.BAD_REQUEST;
@@ -135,6 +268,136 @@ public class NoteController {
         }
     }
 
+    /**
+     * Autosave a note from the editor: buffered in memory and written once edits pause
+     * Only the owner or admin can autosave the note; omitted title or content is kept
+     * Answers 202 while the save is buffered, 200 if it was written straight away
+     */
+    @PutMapping("/{id}/autosave")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ApiResponse<AutosaveResponse>> autosaveNote(@PathVariable Long id,
+                                                                   @RequestBody Note note,
+                                                                   Authentication authentication) {
+        try {
+            String username = authentication.getName();
+            AutosaveResponse result = autosaveService.save(id, note.getTitle(), note.getContent(), username);
+
+            return ResponseEntity.status(result.buffered() ? HttpStatus.ACCEPTED : HttpStatus.OK)
+                .eTag(result.etag())
+                .body(new ApiResponse<>("Note autosaved successfully", result, true));
+        } catch (Exception e) {
+            HttpStatus status;
+            if (e.getMessage().contains("Access denied")) {
+                status = HttpStatus.FORBIDDEN;
+            } else if (e.getMessage().contains("not found") || e.getMessage().contains("expired")) {
+                status = HttpStatus.NOT_FOUND;
+            } else {
+                status = HttpStatus.BAD_REQUEST;
+            }
+
+            return ResponseEntity.status(status)
+                .body(new ApiResponse<>(e.getMessage(), null, false));
+        }
+    }
+
+    /**
+     * Patch a note with a text diff against the version named in If-Match
+     * Only the owner or admin can patch the note
+     * Answers 428 without If-Match and 412, with the current ETag, if the note has moved on
+     */
+    @PatchMapping("/{id}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ApiResponse<NotePatchResponse>> patchNote(@PathVariable Long id,
+                                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                                 @RequestBody NotePatchRequest patch,
+                                                                 Authentication authentication) {
+        if (ifMatch == null) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED)
+                .body(new ApiResponse<>("If-Match with the note's ETag is required", null, false));
+        }
+        try {
+            String username = authentication.getName();
+            NotePatchResponse result = noteService.patchNote(id, patch, ifMatch, username);
+
+            return ResponseEntity.ok()
+                .eTag(result.etag())
+                .body(new ApiResponse<>("Note patched successfully", result, true));
+        } catch (PreconditionFailedException e) {
+            // A conflict found on write carries no ETag; the patch transaction has rolled back, so read it now
+            String current = e.getCurrentETag() != null ? e.getCurrentETag()
+                : noteService.getNoteETag(id, authentication.getName());
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .eTag(current)
+                .body(new ApiResponse<>(e.getMessage(), null, false));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(new ApiResponse<>(e.getMessage(), null, false));
+        } catch (Exception e) {
+            HttpStatus status;
+            if (e.getMessage().contains("Access denied")) {
+                status = HttpStatus.FORBIDDEN;
+            } else if (e.getMessage().contains("not found") || e.getMessage().contains("expired")) {
+                status = HttpStatus.NOT_FOUND;
+            } else {
+                status = HttpStatus.INTERNAL_SERVER_ERROR;
+            }
+
+            return ResponseEntity.status(status)
+                .body(new ApiResponse<>(e.getMessage(), null, false));
+        }
+    }
+
+    /**
+     * List the stored earlier versions of a note, newest first
+     * Only the owner or admin can see a note's history
+     */
+    @GetMapping("/{id}/revisions")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ApiResponse<List<NoteRevisionSummary>>> getRevisions(@PathVariable Long id,
+                                                                             Authentication authentication) {
+        try {
+            String username = authentication.getName();
+            List<NoteRevisionSummary> revisions = noteRevisionService.listRevisions(id, username);
+
+            return ResponseEntity.ok(new ApiResponse<>("Revisions retrieved successfully", revisions, true));
+        } catch (Exception e) {
+            HttpStatus status = e.getMessage().contains("Access denied") ?
+                HttpStatus.FORBIDDEN : HttpStatus.NOT_FOUND;
+
+            return ResponseEntity.status(status)
+                .body(new ApiResponse<>(e.getMessage(), null, false));
+        }
+    }
+
+    /**
+     * Get a note as it was at a version, the current one included
+     * Only the owner or admin can see a note's history
+     */
+    @GetMapping("/{id}/revisions/{version}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ApiResponse<NoteRevisionDto>> getRevision(@PathVariable Long id,
+                                                                  @PathVariable Long version,
+                                                                  Authentication authentication) {
+        try {
+            String username = authentication.getName();
+            NoteRevisionDto revision = noteRevisionService.getRevision(id, version, username);
+
+            return ResponseEntity.ok(new ApiResponse<>("Revision retrieved successfully", revision, true));
+        } catch (Exception e) {
+            HttpStatus status;
+            if (e.getMessage().contains("Access denied")) {
+                status = HttpStatus.FORBIDDEN;
+            } else if (e.getMessage().contains("not found") || e.getMessage().contains("expired")) {
+                status = HttpStatus.NOT_FOUND;
+            } else {
+                status = HttpStatus.INTERNAL_SERVER_ERROR;
+            }
+
+            return ResponseEntity.status(status)
+                .body(new ApiResponse<>(e.getMessage(), null, false));
+        }
+    }
+
     /**
      * Delete a note by ID
      * Only the owner or admin can delete the note
@@ -205,11 +468,13 @@ public class NoteController {
      * Public endpoint - no authentication required
      */
     @GetMapping("/share/{token}")
-    public ResponseEntity<ApiResponse<Note>> getNoteByShareToken(@PathVariable String token) {
+    public ResponseEntity<ApiResponse<NoteDto>> getNoteByShareToken(@PathVariable String token) {
         try {
-            Note note = noteService.getNoteByShareToken(token);
+            NoteDto note = noteService.getNoteByShareToken(token);
             
             return ResponseEntity.ok(new ApiResponse<>("Shared note retrieved successfully", note, true));
+        } catch (LoadTimeoutException e) {
+            return loadTimedOut(e);
         } catch (Exception e) {
             HttpStatus status = e.getMessage().contains("not found") || e.getMessage().contains("expired") ? 
                 HttpStatus.NOT_FOUND : HttpStatus.INTERNAL_SERVER_ERROR;
@@ -280,6 +545,13 @@ public class NoteController {
         }
     }
 
+    // The note is still loading for another request; worth retrying shortly
+    private static <T> ResponseEntity<ApiResponse<T>> loadTimedOut(LoadTimeoutException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, "1")
+            .body(new ApiResponse<>(e.getMessage(), null, false));
+    }
+
     // Inner class for cleanup statistics
     public static class CleanupStats {
         private final long notesExpiringCount;
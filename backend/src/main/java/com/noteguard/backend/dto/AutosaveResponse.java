@@ -0,0 +1,13 @@
+package com.noteguard.backend.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Result of an autosave
+ * @param updatedAt Version time of the saved state, as reads will report it
+ * @param etag ETag of the saved state, usable as If-Match for a following PATCH
+ * @param version Row version the saved state has, or will have once written
+ * @param buffered Whether the save is waiting in memory (false once it has been written)
+ */
+public record AutosaveResponse(Long id, LocalDateTime updatedAt, String etag, Long version, boolean buffered) {
+}
@@ -0,0 +1,12 @@
+package com.noteguard.backend.dto;
+
+/**
+ * Data of a "note" event on GET /api/notes/events. Carries no note content;
+ * clients fetch the note, or call /api/notes/sync, when they need it.
+ *
+ * @param type CREATED, UPDATED, DELETED, SHARED, SHARE_REVOKED or EXPIRED
+ * @param version The note's row version after the change, as in NoteDto.version;
+ *                null for DELETED and EXPIRED
+ */
+public record NoteChangeMessage(Long id, String type, Long version) {
+}
@@ -0,0 +1,14 @@
+package com.noteguard.backend.dto;
+
+import com.noteguard.backend.util.EncryptionUtil.TextEdit;
+
+import java.util.List;
+
+/**
+ * Body of PATCH /api/notes/{id}. The base version is the ETag in If-Match.
+ * @param title New title, or null to keep the current one
+ * @param edits Splices against the base content, ascending and non-overlapping;
+ *              offsets refer to the base text, not to the text after earlier edits
+ */
+public record NotePatchRequest(String title, List<TextEdit> edits) {
+}
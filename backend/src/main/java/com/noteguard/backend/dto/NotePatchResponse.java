@@ -0,0 +1,14 @@
+package com.noteguard.backend.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Result of a note patch. Carries no content: the client already holds the
+ * patched text, and the new ETag is the base for its next patch.
+ * @param version Row version after the patch
+ * @param length Content length after the patch
+ * @param chunksRewritten Encrypted chunks written by this patch, out of chunks
+ */
+public record NotePatchResponse(Long id, LocalDateTime updatedAt, String etag, Long version, int length,
+                                int chunks, int chunksRewritten) {
+}
@@ -0,0 +1,11 @@
+package com.noteguard.backend.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * A version of a note, reconstructed with decrypted title and content
+ * @param deltasApplied Deltas applied to rebuild it, at most app.revisions.snapshot-interval
+ */
+public record NoteRevisionDto(Long id, Long version, String title, String content, LocalDateTime updatedAt,
+                              int deltasApplied) {
+}
@@ -0,0 +1,11 @@
+package com.noteguard.backend.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * A stored version of a note, as listed by GET /api/notes/{id}/revisions
+ * @param updatedAt When this version was written
+ * @param replacedAt When the next version replaced it
+ */
+public record NoteRevisionSummary(Long version, LocalDateTime updatedAt, LocalDateTime replacedAt) {
+}
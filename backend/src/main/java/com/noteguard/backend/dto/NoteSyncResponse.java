@@ -0,0 +1,23 @@
+package com.noteguard.backend.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Result of GET /api/notes/sync. Pass {@code cursor} as {@code since} on the next call.
+ * When {@code full} is true, {@code notes} is the complete set of live notes and
+ * the client should drop anything it holds that is not in it.
+ */
+public record NoteSyncResponse(
+    boolean full,
+    List<NoteDto> notes,
+    List<DeletedNote> deleted,
+    LocalDateTime cursor
+) {
+
+    /**
+     * @param reason DELETED or EXPIRED
+     */
+    public record DeletedNote(Long noteId, LocalDateTime deletedAt, String reason) {
+    }
+}
@@ -0,0 +1,22 @@
+package com.noteguard.backend.dto;
+
+import com.noteguard.backend.model.Role;
+import com.noteguard.backend.model.User;
+
+import java.time.LocalDateTime;
+
+/**
+ * User as returned by the API; never carries the password hash
+ */
+public record UserDto(
+    Long id,
+    String username,
+    String email,
+    Role role,
+    LocalDateTime createdAt
+) {
+
+    public static UserDto from(User user) {
+        return new UserDto(user.getId(), user.getUsername(), user.getEmail(), user.getRole(), user.getCreatedAt());
+    }
+}
@@ -0,0 +1,127 @@
+package com.noteguard.backend.event;
+
+import com.noteguard.backend.model.Note;
+import com.noteguard.backend.model.NoteTombstone;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published whenever a note is created, changed or removed.
+ * Carries only ids and share state, never note content.
+ */
+public class NoteChangedEvent {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        SHARED,
+        SHARE_REVOKED,
+        EXPIRED
+    }
+
+    private final Type type;
+    private final Long noteId;
+    private final Long ownerId;
+    private final String shareToken;
+    private final String previousShareToken;
+    private final LocalDateTime shareExpirationTime;
+    private final LocalDateTime changedAt;
+    private final Long version;
+
+    public NoteChangedEvent(Type type, Long noteId, Long ownerId, String shareToken,
+                            String previousShareToken, LocalDateTime shareExpirationTime, LocalDateTime changedAt,
+                            Long version) {
+        this.type = type;
+        this.noteId = noteId;
+        this.ownerId = ownerId;
+        this.shareToken = shareToken;
+        this.previousShareToken = previousShareToken;
+        this.shareExpirationTime = shareExpirationTime;
+        this.changedAt = changedAt;
+        this.version = version;
+    }
+
+    public static NoteChangedEvent created(Note note) {
+        return new NoteChangedEvent(Type.CREATED, note.getId(), note.getOwnerId(), null, null, null,
+            note.getUpdatedAt(), note.getVersion());
+    }
+
+    public static NoteChangedEvent updated(Note note) {
+        return new NoteChangedEvent(Type.UPDATED, note.getId(), note.getOwnerId(),
+            note.getShareToken(), note.getShareToken(), note.getShareExpirationTime(), note.getUpdatedAt(),
+            note.getVersion());
+    }
+
+    /**
+     * @param note The note as it was before deletion, so its share token can be released
+     */
+    public static NoteChangedEvent deleted(Note note) {
+        return new NoteChangedEvent(Type.DELETED, note.getId(), note.getOwnerId(),
+            null, note.getShareToken(), null, LocalDateTime.now(), null);
+    }
+
+    public static NoteChangedEvent shared(Note note, String previousShareToken) {
+        return new NoteChangedEvent(Type.SHARED, note.getId(), note.getOwnerId(),
+            note.getShareToken(), previousShareToken, note.getShareExpirationTime(), note.getUpdatedAt(),
+            note.getVersion());
+    }
+
+    public static NoteChangedEvent shareRevoked(Note note, String previousShareToken) {
+        return new NoteChangedEvent(Type.SHARE_REVOKED, note.getId(), note.getOwnerId(),
+            null, previousShareToken, null, note.getUpdatedAt(), note.getVersion());
+    }
+
+    /**
+     * Published by the expiry cleanup from the tombstones it wrote; the bulk
+     * delete itself publishes nothing
+     */
+    public static NoteChangedEvent expired(NoteTombstone tombstone) {
+        return new NoteChangedEvent(Type.EXPIRED, tombstone.getNoteId(), tombstone.getOwnerId(),
+            null, null, null, tombstone.getDeletedAt(), null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getNoteId() {
+        return noteId;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    /**
+     * @return The share token after the change, or null if the note is not shared
+     */
+    public String getShareToken() {
+        return shareToken;
+    }
+
+    /**
+     * @return The share token before the change, or null if the note was not shared
+     */
+    public String getPreviousShareToken() {
+        return previousShareToken;
+    }
+
+    public LocalDateTime getShareExpirationTime() {
+        return shareExpirationTime;
+    }
+
+    /**
+     * @return When the change happened: the note's updatedAt, or the deletion time
+     */
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+
+    /**
+     * @return The note's version after the change, or null once it is gone
+     */
+    public Long getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,252 @@
+package com.noteguard.backend.event;
+
+import com.noteguard.backend.dto.NoteChangeMessage;
+import com.noteguard.backend.metrics.NoteGuardMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes note change events to the open event streams (GET /api/notes/events)
+ * of the note's owner.
+ *
+ * Streams are async servlet requests ({@link SseEmitter}), so an idle stream
+ * holds a socket but no thread. Each subscriber has a bounded queue that is
+ * drained on a virtual thread only while it has something to send. A publisher
+ * never blocks: if a subscriber's queue is full, because the client stopped
+ * reading, the subscriber is evicted and the client reconnects and resyncs
+ * through /api/notes/sync. Heartbeat comments keep proxies from closing idle
+ * streams. They also fill the queue of a dead connection, so it gets evicted.
+ *
+ * Events are not replayed. A client that reconnects catches up with
+ * /api/notes/sync.
+ */
+@Component
+public class NoteEventBroadcaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteEventBroadcaster.class);
+
+    private static final String EVENT_NAME = "note";
+    private static final Object HEARTBEAT = new Object();
+
+    private final int bufferSize;
+    private final int maxPerUser;
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+    private final long reconnectMillis;
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService sender = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sse-send-", 0).factory());
+    private final Counter evictions;
+
+    public NoteEventBroadcaster(NoteGuardMetrics metrics,
+                                @Value("${app.sse.buffer-size:32}") int bufferSize,
+                                @Value("${app.sse.max-per-user:8}") int maxPerUser,
+                                @Value("${app.sse.max-subscribers:10000}") int maxSubscribers,
+                                @Value("${app.sse.timeout:30m}") Duration timeout,
+                                @Value("${app.sse.reconnect:5s}") Duration reconnect) {
+        this.bufferSize = Math.max(bufferSize, 1);
+        this.maxPerUser = Math.max(maxPerUser, 1);
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeout.toMillis();
+        this.reconnectMillis = reconnect.toMillis();
+        this.evictions = metrics.getRegistry().counter("noteguard.sse.evictions");
+        Gauge.builder("noteguard.sse.subscribers", subscriberCount, AtomicInteger::get)
+            .description("Open note event streams")
+            .register(metrics.getRegistry());
+    }
+
+    /**
+     * Opens an event stream for a user. Past app.sse.max-per-user streams, the
+     * user's oldest stream is closed, e.g. one left behind by a crashed tab.
+     * @throws IllegalStateException If app.sse.max-subscribers streams are open
+     */
+    public SseEmitter subscribe(Long userId) {
+        if (subscriberCount.get() >= maxSubscribers) {
+            throw new IllegalStateException("Too many open event streams");
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(userId, emitter);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> {
+            // Ends the stream normally; the client reconnects after the retry delay
+            remove(subscriber);
+            emitter.complete();
+        });
+        emitter.onError(e -> remove(subscriber));
+
+        Subscriber[] oldest = new Subscriber[1];
+        subscribers.compute(userId, (key, set) -> {
+            Set<Subscriber> userSubscribers = set != null ? set : ConcurrentHashMap.newKeySet();
+            if (userSubscribers.size() >= maxPerUser) {
+                for (Subscriber candidate : userSubscribers) {
+                    if (oldest[0] == null || candidate.openedAt < oldest[0].openedAt) {
+                        oldest[0] = candidate;
+                    }
+                }
+            }
+            userSubscribers.add(subscriber);
+            return userSubscribers;
+        });
+        subscriberCount.incrementAndGet();
+        if (oldest[0] != null) {
+            evict(oldest[0], "too many streams");
+        }
+
+        // First write commits the response headers so the client sees the stream open
+        subscriber.offer(HEARTBEAT);
+        return emitter;
+    }
+
+    /**
+     * @return Whether any stream is open; lets bulk jobs skip building events nobody receives
+     */
+    public boolean hasSubscribers() {
+        return subscriberCount.get() > 0;
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNoteChanged(NoteChangedEvent event) {
+        Set<Subscriber> userSubscribers = event.getOwnerId() != null ? subscribers.get(event.getOwnerId()) : null;
+        if (userSubscribers == null) {
+            return;
+        }
+        NoteChangeMessage message = new NoteChangeMessage(event.getNoteId(), event.getType().name(), event.getVersion());
+        for (Subscriber subscriber : userSubscribers) {
+            subscriber.offer(message);
+        }
+    }
+
+    /**
+     * Sends a heartbeat comment to every stream that has nothing queued
+     */
+    @Scheduled(fixedRateString = "${app.sse.heartbeat-interval-ms:25000}")
+    public void heartbeat() {
+        for (Set<Subscriber> userSubscribers : subscribers.values()) {
+            for (Subscriber subscriber : userSubscribers) {
+                if (subscriber.queue.isEmpty()) {
+                    subscriber.offer(HEARTBEAT);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Set<Subscriber> userSubscribers : subscribers.values()) {
+            for (Subscriber subscriber : userSubscribers) {
+                subscriber.closed = true;
+                remove(subscriber);
+                subscriber.emitter.complete();
+            }
+        }
+        sender.shutdown();
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscriber.closed = true;
+        if (subscriber.removed.compareAndSet(false, true)) {
+            subscribers.computeIfPresent(subscriber.userId, (key, set) -> {
+                set.remove(subscriber);
+                return set.isEmpty() ? null : set;
+            });
+            subscriberCount.decrementAndGet();
+        }
+    }
+
+    private void evict(Subscriber subscriber, String reason) {
+        subscriber.closed = true;
+        subscriber.queue.clear();
+        remove(subscriber);
+        evictions.increment();
+        logger.debug("Evicted event stream of user {}: {}", subscriber.userId, reason);
+        // complete() waits for a send in progress, so never call it on the publishing thread
+        sender.execute(subscriber.emitter::complete);
+    }
+
+    /**
+     * One open stream: a bounded queue and at most one virtual thread draining it
+     */
+    private final class Subscriber {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final long openedAt = System.nanoTime();
+        private final ArrayBlockingQueue<Object> queue = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean removed = new AtomicBoolean();
+        private volatile boolean closed;
+
+        Subscriber(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        void offer(Object item) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(item)) {
+                evict(this, "slow consumer");
+                return;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this::drain);
+                } catch (RuntimeException e) {
+                    // Rejected during shutdown
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                Object item;
+                while (!closed && (item = queue.poll()) != null) {
+                    emitter.send(item == HEARTBEAT
+                        ? SseEmitter.event().reconnectTime(reconnectMillis).comment("ping")
+                        : SseEmitter.event().name(EVENT_NAME).data(item, MediaType.APPLICATION_JSON));
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away or the emitter already completed
+                closed = true;
+                remove(this);
+            } finally {
+                draining.set(false);
+            }
+            // An offer may have raced with the end of the loop
+            if (!closed && !queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+    }
+}
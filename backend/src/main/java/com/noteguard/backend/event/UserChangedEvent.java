@@ -0,0 +1,51 @@
+package com.noteguard.backend.event;
+
+import com.noteguard.backend.model.Role;
+import com.noteguard.backend.model.User;
+
+/**
+ * Published when a user account is registered or deleted.
+ */
+public class UserChangedEvent {
+
+    public enum Type {
+        REGISTERED,
+        DELETED
+    }
+
+    private final Type type;
+    private final Long userId;
+    private final String username;
+    private final Role role;
+
+    public UserChangedEvent(Type type, Long userId, String username, Role role) {
+        this.type = type;
+        this.userId = userId;
+        this.username = username;
+        this.role = role;
+    }
+
+    public static UserChangedEvent registered(User user) {
+        return new UserChangedEvent(Type.REGISTERED, user.getId(), user.getUsername(), user.getRole());
+    }
+
+    public static UserChangedEvent deleted(User user) {
+        return new UserChangedEvent(Type.DELETED, user.getId(), user.getUsername(), user.getRole());
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+}
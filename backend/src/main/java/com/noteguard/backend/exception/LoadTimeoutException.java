@@ -0,0 +1,12 @@
+package com.noteguard.backend.exception;
+
+/**
+ * Thrown when a request gives up waiting for another request's load of the
+ * same data; the load itself still completes, so a retry usually succeeds
+ */
+public class LoadTimeoutException extends RuntimeException {
+
+    public LoadTimeoutException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,21 @@
+package com.noteguard.backend.exception;
+
+/**
+ * Thrown when a conditional write names a version of the resource that is no longer current
+ */
+public class PreconditionFailedException extends RuntimeException {
+
+    private final String currentETag;
+
+    public PreconditionFailedException(String message, String currentETag) {
+        super(message);
+        this.currentETag = currentETag;
+    }
+
+    /**
+     * @return The resource's current ETag, so the client can refetch and retry
+     */
+    public String getCurrentETag() {
+        return currentETag;
+    }
+}
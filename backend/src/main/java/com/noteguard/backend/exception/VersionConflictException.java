@@ -0,0 +1,21 @@
+package com.noteguard.backend.exception;
+
+/**
+ * Thrown when an update is based on a version of a note that is no longer current
+ */
+public class VersionConflictException extends RuntimeException {
+
+    private final Long currentVersion;
+
+    public VersionConflictException(String message, Long currentVersion) {
+        super(message);
+        this.currentVersion = currentVersion;
+    }
+
+    /**
+     * @return The note's current version, so the client can refetch and merge
+     */
+    public Long getCurrentVersion() {
+        return currentVersion;
+    }
+}
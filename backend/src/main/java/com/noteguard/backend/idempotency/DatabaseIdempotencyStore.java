@@ -0,0 +1,122 @@
+package com.noteguard.backend.idempotency;
+
+import com.noteguard.backend.model.IdempotencyRecord;
+import com.noteguard.backend.repository.IdempotencyRecordRepository;
+import com.noteguard.backend.util.EncryptionUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Idempotency keys in the idempotency_keys table, for several instances behind
+ * one database. A claim is a plain INSERT, so the primary key decides between
+ * concurrent requests on any node. A claim that is never completed (the node
+ * died mid-request) can be taken over once app.idempotency.lease has passed.
+ *
+ * Response bodies hold note content, so they are stored encrypted like the
+ * notes themselves.
+ */
+@Component
+@ConditionalOnProperty(name = "app.idempotency.store", havingValue = "database")
+public class DatabaseIdempotencyStore implements IdempotencyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseIdempotencyStore.class);
+
+    private final IdempotencyRecordRepository repository;
+    private final EncryptionUtil encryptionUtil;
+    private final Duration ttl;
+    private final Duration lease;
+
+    public DatabaseIdempotencyStore(IdempotencyRecordRepository repository,
+                                    EncryptionUtil encryptionUtil,
+                                    @Value("${app.idempotency.ttl:24h}") Duration ttl,
+                                    @Value("${app.idempotency.lease:30s}") Duration lease) {
+        this.repository = repository;
+        this.encryptionUtil = encryptionUtil;
+        this.ttl = ttl;
+        this.lease = lease;
+    }
+
+    @Override
+    public Claim claim(String key, String fingerprint) {
+        // Read first, so a plain retry does not run into the primary key; the INSERT
+        // still decides races. A second round follows a lost race, or a removed expired row.
+        for (int attempt = 0; attempt < 2; attempt++) {
+            LocalDateTime now = LocalDateTime.now();
+            IdempotencyRecord record = repository.findCurrent(key).orElse(null);
+            if (record != null && record.getExpiresAt().isBefore(now)) {
+                repository.deleteIfExpired(key, now);
+                record = null;
+            }
+            if (record == null) {
+                try {
+                    repository.insertClaim(key, fingerprint, now, now.plus(lease));
+                    return Claim.of(Outcome.ACQUIRED);
+                } catch (DataIntegrityViolationException e) {
+                    continue;
+                }
+            }
+            if (!record.getFingerprint().equals(fingerprint)) {
+                return Claim.of(Outcome.MISMATCH);
+            }
+            if (record.getResponseStatus() == null) {
+                return Claim.of(Outcome.IN_PROGRESS);
+            }
+            return new Claim(Outcome.REPLAY, new StoredResponse(record.getResponseStatus(), record.getContentType(),
+                decryptBody(record.getResponseBody())));
+        }
+        return Claim.of(Outcome.IN_PROGRESS);
+    }
+
+    @Override
+    public void complete(String key, StoredResponse response) {
+        int updated = repository.complete(key, response.status(), response.contentType(),
+            encryptBody(response.body()), LocalDateTime.now().plus(ttl));
+        if (updated == 0) {
+            // The lease ran out and another request took the key over
+            logger.warn("Idempotency claim expired before its request completed; raise app.idempotency.lease");
+        }
+    }
+
+    @Override
+    public void release(String key) {
+        repository.deleteClaim(key);
+    }
+
+    // Base64 before encrypting, as responses may be CBOR or Smile and encrypt takes text
+    private String encryptBody(byte[] body) {
+        try {
+            return encryptionUtil.encrypt(Base64.getEncoder().encodeToString(body));
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to encrypt idempotent response", e);
+        }
+    }
+
+    private byte[] decryptBody(String stored) {
+        if (stored == null) {
+            return new byte[0];
+        }
+        try {
+            return Base64.getDecoder().decode(encryptionUtil.decrypt(stored));
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to decrypt idempotent response", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval-ms:600000}",
+               initialDelayString = "${app.idempotency.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        int deleted = repository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            logger.debug("Purged {} expired idempotency keys", deleted);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.noteguard.backend.idempotency;
+
+/**
+ * Remembers the responses to requests sent with an Idempotency-Key (see {@link IdempotencyFilter}).
+ *
+ * A key is claimed before the request runs and completed with its response
+ * afterwards. Claims are atomic, so of two concurrent requests with the same
+ * key exactly one runs; the other is told the key is in progress.
+ */
+public interface IdempotencyStore {
+
+    /**
+     * Claims a key, or reports what it already holds
+     * @param key Scoped key (user, route and client key, hashed)
+     * @param fingerprint Hash of the request body the key was sent with
+     */
+    Claim claim(String key, String fingerprint);
+
+    /**
+     * Stores the response to a claimed key, to be replayed until the key expires
+     */
+    void complete(String key, StoredResponse response);
+
+    /**
+     * Drops an unfinished claim, so the request can be retried
+     */
+    void release(String key);
+
+    enum Outcome {
+        // The caller holds the key and runs the request
+        ACQUIRED,
+        // The request already ran; its response is returned again
+        REPLAY,
+        // The first request with this key is still running
+        IN_PROGRESS,
+        // The key was used with a different request body
+        MISMATCH
+    }
+
+    record Claim(Outcome outcome, StoredResponse response) {
+
+        static Claim of(Outcome outcome) {
+            return new Claim(outcome, null);
+        }
+    }
+
+    /**
+     * A response as sent, replayed byte for byte
+     */
+    record StoredResponse(int status, String contentType, byte[] body) {
+    }
+}
@@ -0,0 +1,74 @@
+package com.noteguard.backend.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Idempotency keys in a Caffeine cache bounded by estimated bytes, each kept
+ * app.idempotency.ttl after it was completed. A claim whose request is still
+ * running weighs nothing, so the size bound never evicts it and lets a retry
+ * run the request a second time; it lives for app.idempotency.lease instead.
+ * Assumes a single instance, like the other in-memory state; use
+ * app.idempotency.store=database when several nodes share the API.
+ */
+@Component
+@ConditionalOnProperty(name = "app.idempotency.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    // Rough per-entry overhead on top of the stored body
+    private static final int ENTRY_OVERHEAD_BYTES = 320;
+
+    private final Cache<String, Entry> entries;
+
+    public InMemoryIdempotencyStore(@Value("${app.idempotency.ttl:24h}") Duration ttl,
+                                    @Value("${app.idempotency.lease:30s}") Duration lease,
+                                    @Value("${app.idempotency.max-bytes:16777216}") long maxBytes) {
+        this.entries = Caffeine.newBuilder()
+            .maximumWeight(maxBytes)
+            .weigher((String key, Entry entry) -> entry.weight())
+            .expireAfter(Expiry.writing((String key, Entry entry) -> entry.response() != null ? ttl : lease))
+            .build();
+    }
+
+    @Override
+    public Claim claim(String key, String fingerprint) {
+        Entry existing = entries.asMap().putIfAbsent(key, new Entry(fingerprint, null));
+        if (existing == null) {
+            return Claim.of(Outcome.ACQUIRED);
+        }
+        if (!existing.fingerprint().equals(fingerprint)) {
+            return Claim.of(Outcome.MISMATCH);
+        }
+        return existing.response() == null ? Claim.of(Outcome.IN_PROGRESS) : new Claim(Outcome.REPLAY, existing.response());
+    }
+
+    @Override
+    public void complete(String key, StoredResponse response) {
+        entries.asMap().computeIfPresent(key, (k, entry) -> new Entry(entry.fingerprint(), response));
+    }
+
+    @Override
+    public void release(String key) {
+        entries.asMap().computeIfPresent(key, (k, entry) -> entry.response() == null ? null : entry);
+    }
+
+    /**
+     * Runs pending evictions now instead of on Caffeine's maintenance schedule
+     */
+    void cleanUp() {
+        entries.cleanUp();
+    }
+
+    private record Entry(String fingerprint, StoredResponse response) {
+
+        int weight() {
+            return response != null ? ENTRY_OVERHEAD_BYTES + response.body().length : 0;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.noteguard.backend.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One run of CleanupService.deleteExpiredNotes
+ */
+@Name("noteguard.CleanupBatch")
+@Label("Cleanup Batch")
+@Category({"NoteGuard", "Maintenance"})
+@Description("Expired share token invalidation and expired note deletion")
+public class CleanupBatchEvent extends jdk.jfr.Event {
+
+    @Label("Share Tokens Invalidated")
+    public int shareTokensInvalidated;
+
+    @Label("Notes Deleted")
+    public int notesDeleted;
+
+    @Label("Success")
+    public boolean success;
+}
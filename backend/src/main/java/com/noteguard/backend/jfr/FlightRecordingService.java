@@ -0,0 +1,236 @@
+package com.noteguard.backend.jfr;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * On-demand JDK Flight Recorder recordings for admins.
+ *
+ * At most one recording exists at a time. Its duration and on-disk size are
+ * capped by app.jfr.max-duration and app.jfr.max-size whatever the caller asks
+ * for, so a forgotten recording stops by itself and cannot fill the disk.
+ * The NoteGuard events (see this package) are included with the JDK settings.
+ *
+ * The last recording stays available for download until a new one is started.
+ */
+@Service
+public class FlightRecordingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecordingService.class);
+
+    private static final String RECORDING_NAME = "noteguard-admin";
+
+    private final Duration maxDuration;
+    private final DataSize maxSize;
+    private final String settings;
+
+    // A lock rather than synchronized: dumps do file I/O and must not pin a virtual thread's carrier
+    private final ReentrantLock lock = new ReentrantLock();
+    private Recording recording;
+
+    public FlightRecordingService(@Value("${app.jfr.max-duration:10m}") Duration maxDuration,
+                                  @Value("${app.jfr.max-size:64MB}") DataSize maxSize,
+                                  @Value("${app.jfr.settings:profile}") String settings) {
+        this.maxDuration = maxDuration;
+        this.maxSize = maxSize;
+        this.settings = settings;
+    }
+
+    /**
+     * Starts a recording; the previous one, if stopped, is discarded
+     * @param duration Requested duration, capped at app.jfr.max-duration
+     * @param size Requested maximum size, capped at app.jfr.max-size (null, zero or negative for the cap)
+     * @return The status of the new recording
+     * @throws IllegalStateException If a recording is already running
+     */
+    public RecordingStatus start(Duration duration, DataSize size) throws IOException, ParseException {
+        lock.lock();
+        try {
+            if (recording != null && recording.getState() == RecordingState.RUNNING) {
+                throw new IllegalStateException("A recording is already running");
+            }
+            discard();
+
+            Recording newRecording = new Recording(Configuration.getConfiguration(settings));
+            newRecording.setName(RECORDING_NAME);
+            newRecording.setToDisk(true);
+            newRecording.setDuration(min(duration, maxDuration));
+            newRecording.setMaxSize(min(size, maxSize));
+            newRecording.start();
+            recording = newRecording;
+
+            logger.info("Started JFR recording {} ({} settings, duration {}, max size {} bytes)",
+                recording.getId(), settings, recording.getDuration(), recording.getMaxSize());
+            return status();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops the current recording and keeps its data for download
+     * @return The status of the stopped recording
+     * @throws IllegalStateException If no recording exists
+     */
+    public RecordingStatus stop() {
+        lock.lock();
+        try {
+            if (recording == null) {
+                throw new IllegalStateException("No recording found");
+            }
+            if (recording.getState() == RecordingState.RUNNING) {
+                recording.stop();
+                logger.info("Stopped JFR recording {}", recording.getId());
+            }
+            return status();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the recording to a new file. A running recording is dumped as a snapshot and keeps running.
+     * Each call gets its own file, so a download still streaming is never replaced under it.
+     * @return Path of the .jfr file; the caller deletes it
+     * @throws IllegalStateException If no recording exists
+     */
+    public Path dump() throws IOException {
+        lock.lock();
+        try {
+            if (recording == null || recording.getState() == RecordingState.CLOSED) {
+                throw new IllegalStateException("No recording found");
+            }
+            if (recording.getState() == RecordingState.NEW || recording.getState() == RecordingState.DELAYED) {
+                throw new IllegalStateException("No recording data yet");
+            }
+            Path file = Files.createTempFile("noteguard-", ".jfr");
+            try {
+                recording.dump(file);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(file);
+                throw e;
+            }
+            return file;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Status of the current or last recording, or null if none was started
+     */
+    public RecordingStatus getStatus() {
+        lock.lock();
+        try {
+            return recording != null ? status() : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        lock.lock();
+        try {
+            discard();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private RecordingStatus status() {
+        Instant startTime = recording.getStartTime();
+        Instant stopTime = recording.getStopTime();
+        return new RecordingStatus(recording.getId(), recording.getState().name(), settings,
+            startTime, stopTime, recording.getDuration(), recording.getMaxSize(), recording.getSize());
+    }
+
+    private void discard() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    private static Duration min(Duration requested, Duration cap) {
+        return requested == null || requested.isNegative() || requested.isZero() || requested.compareTo(cap) > 0
+            ? cap : requested;
+    }
+
+    // Recording.setMaxSize(0) means unlimited, so zero and negative sizes also get the cap
+    private static long min(DataSize requested, DataSize cap) {
+        return requested == null || requested.toBytes() <= 0 || requested.toBytes() > cap.toBytes()
+            ? cap.toBytes() : requested.toBytes();
+    }
+
+    // Inner class for recording status
+    public static class RecordingStatus {
+        private final long id;
+        private final String state;
+        private final String settings;
+        private final Instant startTime;
+        private final Instant stopTime;
+        private final Duration duration;
+        private final long maxSizeBytes;
+        private final long sizeBytes;
+
+        public RecordingStatus(long id, String state, String settings, Instant startTime, Instant stopTime,
+                               Duration duration, long maxSizeBytes, long sizeBytes) {
+            this.id = id;
+            this.state = state;
+            this.settings = settings;
+            this.startTime = startTime;
+            this.stopTime = stopTime;
+            this.duration = duration;
+            this.maxSizeBytes = maxSizeBytes;
+            this.sizeBytes = sizeBytes;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getState() {
+            return state;
+        }
+
+        public String getSettings() {
+            return settings;
+        }
+
+        public Instant getStartTime() {
+            return startTime;
+        }
+
+        public Instant getStopTime() {
+            return stopTime;
+        }
+
+        public Duration getDuration() {
+            return duration;
+        }
+
+        public long getMaxSizeBytes() {
+            return maxSizeBytes;
+        }
+
+        public long getSizeBytes() {
+            return sizeBytes;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.noteguard.backend.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Signature and expiry check of a bearer token in JwtUtils.validateToken
+ */
+@Name("noteguard.JwtVerify")
+@Label("JWT Verify")
+@Category({"NoteGuard", "Security"})
+@Description("Signature and expiry validation of a JWT")
+@StackTrace(false)
+public class JwtVerifyEvent extends jdk.jfr.Event {
+
+    @Label("Token Size")
+    @DataAmount
+    public int tokenBytes;
+
+    @Label("Outcome")
+    @Description("valid, expired, malformed, unsupported or invalid")
+    public String outcome;
+}
@@ -0,0 +1,53 @@
+package com.noteguard.backend.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Decryption of a note's title and content, emitted by NoteCache and the list paths.
+ * Duration is the time spent in AES for both fields.
+ */
+@Name("noteguard.NoteDecrypt")
+@Label("Note Decrypt")
+@Category({"NoteGuard", "Crypto"})
+@Description("Decryption of a note's title and content")
+@StackTrace(false)
+public class NoteDecryptEvent extends jdk.jfr.Event {
+
+    @Label("Note Id")
+    public long noteId;
+
+    @Label("Ciphertext Size")
+    @DataAmount
+    public long ciphertextBytes;
+
+    @Label("Plaintext Length")
+    @Description("Decrypted title plus content, in chars")
+    public long plaintextChars;
+
+    @Label("Source")
+    @Description("Code path that decrypted the note: cache-fill, cache-hit, list or admin")
+    public String source;
+
+    /**
+     * Fills in the fields and commits, if the event is being recorded
+     */
+    public void complete(long noteId, String source, String cipherTitle, String cipherContent,
+                         String title, String content) {
+        if (shouldCommit()) {
+            this.noteId = noteId;
+            this.source = source;
+            this.ciphertextBytes = length(cipherTitle) + length(cipherContent);
+            this.plaintextChars = length(title) + length(content);
+            commit();
+        }
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+}
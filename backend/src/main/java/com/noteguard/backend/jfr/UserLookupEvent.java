@@ -0,0 +1,29 @@
+package com.noteguard.backend.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * User load in CustomUserDetailsService, which runs once per authenticated request
+ * (from JwtAuthenticationFilter) and on every login
+ */
+@Name("noteguard.UserLookup")
+@Label("User Lookup")
+@Category({"NoteGuard", "Security"})
+@Description("Loading the user behind an authenticated request or login")
+@StackTrace(false)
+public class UserLookupEvent extends jdk.jfr.Event {
+
+    @Label("Username")
+    public String username;
+
+    @Label("Found")
+    public boolean found;
+
+    @Label("By Email")
+    @Description("The username lookup missed and the email lookup was tried")
+    public boolean byEmail;
+}
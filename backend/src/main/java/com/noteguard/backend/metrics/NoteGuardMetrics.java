@@ -0,0 +1,129 @@
+package com.noteguard.backend.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Application meters, registered once and reused so that recording on the hot
+ * path is a lookup plus {@code Timer.record}. Percentile histograms for every
+ * noteguard.* meter are switched on in application.yml.
+ */
+@Component
+public class NoteGuardMetrics {
+
+    public static final String SUCCESS = "success";
+    public static final String NOT_FOUND = "not_found";
+    public static final String DENIED = "denied";
+    public static final String ERROR = "error";
+
+    // Upper bounds (bytes) of the payload size buckets used to tag crypto timers
+    private static final int[] SIZE_BOUNDS = {1024, 16 * 1024, 256 * 1024};
+    private static final String[] SIZE_TAGS = {"le_1k", "le_16k", "le_256k", "gt_256k"};
+
+    private final MeterRegistry registry;
+    private final Timer[] encryptTimers = new Timer[SIZE_TAGS.length];
+    private final Timer[] decryptTimers = new Timer[SIZE_TAGS.length];
+    private final DistributionSummary encryptBytes;
+    private final DistributionSummary decryptBytes;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public NoteGuardMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (int i = 0; i < SIZE_TAGS.length; i++) {
+            encryptTimers[i] = cryptoTimer("encrypt", SIZE_TAGS[i]);
+            decryptTimers[i] = cryptoTimer("decrypt", SIZE_TAGS[i]);
+        }
+        this.encryptBytes = cryptoSummary("encrypt");
+        this.decryptBytes = cryptoSummary("decrypt");
+    }
+
+    private Timer cryptoTimer(String operation, String size) {
+        return Timer.builder("noteguard.crypto")
+            .description("AES encrypt/decrypt time by payload size")
+            .tag("operation", operation)
+            .tag("size", size)
+            .register(registry);
+    }
+
+    private DistributionSummary cryptoSummary(String operation) {
+        return DistributionSummary.builder("noteguard.crypto.payload")
+            .description("Plaintext size of encrypted/decrypted payloads")
+            .baseUnit("bytes")
+            .tag("operation", operation)
+            .register(registry);
+    }
+
+    /**
+     * @param encrypt true for encryption, false for decryption
+     * @param plaintextLength Length of the plaintext in chars
+     * @param nanos Elapsed time
+     */
+    public void recordCrypto(boolean encrypt, int plaintextLength, long nanos) {
+        int bucket = 0;
+        while (bucket < SIZE_BOUNDS.length && plaintextLength > SIZE_BOUNDS[bucket]) {
+            bucket++;
+        }
+        (encrypt ? encryptTimers : decryptTimers)[bucket].record(nanos, TimeUnit.NANOSECONDS);
+        (encrypt ? encryptBytes : decryptBytes).record(plaintextLength);
+    }
+
+    /**
+     * NoteService operations, tagged by method name and outcome
+     */
+    public Timer noteOperation(String operation, String outcome) {
+        return timer("noteguard.note.operation", "operation", operation, outcome);
+    }
+
+    /**
+     * JWT signature/expiry validation, outcome is valid, expired, malformed, unsupported or invalid
+     */
+    public Timer jwtValidation(String outcome) {
+        return timer("noteguard.jwt.validation", null, null, outcome);
+    }
+
+    /**
+     * Password hashing, operation is verify or encode, outcome is match, mismatch or encoded
+     */
+    public Timer password(String operation, String outcome) {
+        return timer("noteguard.auth.password", "operation", operation, outcome);
+    }
+
+    /**
+     * Time spent waiting for a password hashing permit
+     */
+    public Timer passwordWait() {
+        return timer("noteguard.auth.password.wait", null, null, SUCCESS);
+    }
+
+    /**
+     * CleanupService runs
+     */
+    public Timer cleanup(String outcome) {
+        return timer("noteguard.cleanup", null, null, outcome);
+    }
+
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    private Timer timer(String name, String tagKey, String tagValue, String outcome) {
+        String key = name + '|' + tagValue + '|' + outcome;
+        Timer timer = timers.get(key);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(key, k -> {
+                Timer.Builder builder = Timer.builder(name).tag("outcome", outcome);
+                if (tagKey != null) {
+                    builder.tag(tagKey, tagValue);
+                }
+                return builder.register(registry);
+            });
+        }
+        return timer;
+    }
+}
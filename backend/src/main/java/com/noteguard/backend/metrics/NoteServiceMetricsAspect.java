@@ -0,0 +1,47 @@
+package com.noteguard.backend.metrics;
+
+import com.noteguard.backend.exception.ResourceNotFoundException;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every public NoteService method as noteguard.note.operation{operation, outcome}.
+ * The outcome follows the exception mapping used by NoteController.
+ * The same duration feeds the service phase of the Server-Timing header.
+ */
+@Aspect
+@Component
+public class NoteServiceMetricsAspect {
+
+    private final NoteGuardMetrics metrics;
+
+    public NoteServiceMetricsAspect(NoteGuardMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Around("execution(public * com.noteguard.backend.service.NoteService.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        String outcome = NoteGuardMetrics.ERROR;
+        try {
+            Object result = joinPoint.proceed();
+            outcome = NoteGuardMetrics.SUCCESS;
+            return result;
+        } catch (ResourceNotFoundException e) {
+            outcome = NoteGuardMetrics.NOT_FOUND;
+            throw e;
+        } catch (AccessDeniedException e) {
+            outcome = NoteGuardMetrics.DENIED;
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            metrics.noteOperation(joinPoint.getSignature().getName(), outcome).record(elapsed, TimeUnit.NANOSECONDS);
+            RequestTimings.record(RequestTimings.Phase.SERVICE, elapsed);
+        }
+    }
+}
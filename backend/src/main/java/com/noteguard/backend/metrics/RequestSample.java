@@ -0,0 +1,123 @@
+package com.noteguard.backend.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SQL and crypto work done by the current request, collected for the slow request
+ * sampler. Bound by SlowRequestFilter and dropped at the end of the request
+ * unless the request turned out slow.
+ *
+ * Only the request thread touches an instance, so it needs no synchronization.
+ */
+public final class RequestSample {
+
+    private static final ThreadLocal<RequestSample> CURRENT = new ThreadLocal<>();
+
+    private final int maxStatements;
+    private final boolean captureCaller;
+    private List<SqlStatement> statements;
+    private int statementCount;
+    private long sqlNanos;
+    private long cryptoNanos;
+
+    private RequestSample(int maxStatements, boolean captureCaller) {
+        this.maxStatements = maxStatements;
+        this.captureCaller = captureCaller;
+    }
+
+    static RequestSample bind(int maxStatements, boolean captureCaller) {
+        RequestSample sample = new RequestSample(maxStatements, captureCaller);
+        CURRENT.set(sample);
+        return sample;
+    }
+
+    static void unbind() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return The sample of the current request, or null when sampling is off
+     */
+    public static RequestSample current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Adds AES time to the current request's sample, if any
+     */
+    public static void recordCrypto(long elapsedNanos) {
+        RequestSample sample = CURRENT.get();
+        if (sample != null) {
+            sample.cryptoNanos += elapsedNanos;
+        }
+    }
+
+    /**
+     * Starts tracking an executed statement
+     * @return The statement entry, or null once app.slow-requests.max-statements is reached
+     *         (time and count are still added to the totals)
+     */
+    SqlStatement addStatement(String sql, long elapsedNanos) {
+        statementCount++;
+        sqlNanos += elapsedNanos;
+        if (statements == null) {
+            statements = new ArrayList<>();
+        } else if (statements.size() >= maxStatements) {
+            return null;
+        }
+        SqlStatement statement = new SqlStatement(sql, elapsedNanos, captureCaller ? findCaller() : null);
+        statements.add(statement);
+        return statement;
+    }
+
+    /**
+     * First application frame below the persistence machinery, e.g. NoteService.getNoteById:142
+     */
+    private static String findCaller() {
+        return StackWalker.getInstance().walk(frames -> frames
+            .filter(frame -> frame.getClassName().startsWith("com.noteguard.backend.")
+                && !frame.getClassName().startsWith("com.noteguard.backend.metrics.")
+                && !frame.getClassName().contains("$$"))
+            .findFirst()
+            .map(frame -> {
+                String className = frame.getClassName();
+                return className.substring(className.lastIndexOf('.') + 1) + '.' + frame.getMethodName()
+                    + ':' + frame.getLineNumber();
+            })
+            .orElse(null));
+    }
+
+    List<SqlStatement> getStatements() {
+        return statements != null ? statements : List.of();
+    }
+
+    int getStatementCount() {
+        return statementCount;
+    }
+
+    long getSqlNanos() {
+        return sqlNanos;
+    }
+
+    long getCryptoNanos() {
+        return cryptoNanos;
+    }
+
+    /**
+     * One executed statement. Rows of a query are counted while the result set is read;
+     * -1 when unknown.
+     */
+    static final class SqlStatement {
+        final String sql;
+        final long nanos;
+        final String caller;
+        long rows = -1;
+
+        SqlStatement(String sql, long nanos, String caller) {
+            this.sql = sql;
+            this.nanos = nanos;
+            this.caller = caller;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.noteguard.backend.metrics;
+
+/**
+ * Per-request time breakdown reported in the Server-Timing response header.
+ *
+ * Instrumented code calls {@link #start()} and {@link #stop(Phase, long)}. When
+ * no timing context is bound to the thread (the feature is off, or the request
+ * is not an API request) {@code start()} returns 0 and {@code stop} returns
+ * without touching the clock, so the disabled path is one ThreadLocal read and
+ * allocates nothing.
+ *
+ * Phases may overlap: DB time during the user load also counts towards auth,
+ * and db/crypto time inside NoteService also counts towards service.
+ */
+public final class RequestTimings {
+
+    public enum Phase {
+        AUTH("auth", "JWT parse and user load"),
+        DB("db", "Repository calls"),
+        CRYPTO("crypto", "AES encrypt/decrypt"),
+        SERVICE("service", "NoteService"),
+        SERIALIZATION("ser", "Response serialization");
+
+        private final String metricName;
+        private final String description;
+
+        Phase(String metricName, String description) {
+            this.metricName = metricName;
+            this.description = description;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+
+    private final long startNanos = System.nanoTime();
+    private final long[] nanos = new long[PHASES.length];
+    private final int[] counts = new int[PHASES.length];
+    private boolean exposed;
+    private long serializationStart;
+
+    private RequestTimings(boolean exposed) {
+        this.exposed = exposed;
+    }
+
+    /**
+     * Binds a new timing context to the current thread
+     * @param exposed Whether the header may be sent; admin-only mode decides this later
+     */
+    static RequestTimings bind(boolean exposed) {
+        RequestTimings timings = new RequestTimings(exposed);
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    static void unbind() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return The context bound to this thread, or null when timing is off
+     */
+    public static RequestTimings current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * @return A start timestamp to pass to {@link #stop}, or 0 when timing is off
+     */
+    public static long start() {
+        return CURRENT.get() != null ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Adds the time since {@code start} to a phase; no-op if {@code start} is 0
+     */
+    public static void stop(Phase phase, long start) {
+        if (start != 0L) {
+            record(phase, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Adds an already measured duration to a phase
+     */
+    public static void record(Phase phase, long elapsedNanos) {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.nanos[phase.ordinal()] += elapsedNanos;
+            timings.counts[phase.ordinal()]++;
+        }
+    }
+
+    boolean isExposed() {
+        return exposed;
+    }
+
+    void setExposed(boolean exposed) {
+        this.exposed = exposed;
+    }
+
+    /**
+     * Called just before the response body is handed to the message converter
+     */
+    void markSerializationStart() {
+        serializationStart = System.nanoTime();
+    }
+
+    /**
+     * Records the serialization phase once the body has been written to the buffer
+     */
+    void markSerializationEnd() {
+        if (serializationStart != 0L) {
+            nanos[Phase.SERIALIZATION.ordinal()] += System.nanoTime() - serializationStart;
+            counts[Phase.SERIALIZATION.ordinal()]++;
+            serializationStart = 0L;
+        }
+    }
+
+    /**
+     * Formats the header value, e.g. {@code auth;dur=1.2, db;dur=3.4;desc="Repository calls (2)", total;dur=9.1}.
+     * Phases that never ran are left out.
+     */
+    String toHeaderValue() {
+        StringBuilder header = new StringBuilder(160);
+        for (Phase phase : PHASES) {
+            int count = counts[phase.ordinal()];
+            if (count == 0) {
+                continue;
+            }
+            appendMetric(header, phase.metricName, nanos[phase.ordinal()]);
+            header.append(";desc=\"").append(phase.description);
+            if (count > 1) {
+                header.append(" (").append(count).append(')');
+            }
+            header.append('"');
+        }
+        appendMetric(header, "total", System.nanoTime() - startNanos);
+        return header.toString();
+    }
+
+    private static void appendMetric(StringBuilder header, String name, long elapsedNanos) {
+        if (!header.isEmpty()) {
+            header.append(", ");
+        }
+        // Milliseconds with microsecond precision, without going through String.format
+        long micros = elapsedNanos / 1_000;
+        header.append(name).append(";dur=").append(micros / 1_000).append('.');
+        long fraction = micros % 1_000;
+        if (fraction < 100) {
+            header.append('0');
+        }
+        if (fraction < 10) {
+            header.append('0');
+        }
+        header.append(fraction);
+    }
+}
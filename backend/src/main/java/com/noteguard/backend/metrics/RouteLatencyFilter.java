@@ -0,0 +1,56 @@
+package com.noteguard.backend.metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Feeds {@link RouteLatencyTracker} with the duration and status of every /api request.
+ * Runs first so that the security filters are part of the measured time.
+ *
+ * Requests are keyed by the matched handler pattern ("GET /api/notes/{id}") so
+ * ids in the path don't create new routes. Requests rejected before reaching a
+ * handler (e.g. 401) are grouped as "GET unmatched".
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+public class RouteLatencyFilter extends OncePerRequestFilter {
+
+    private final RouteLatencyTracker tracker;
+
+    public RouteLatencyFilter(RouteLatencyTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !tracker.isEnabled() || !request.getRequestURI().startsWith(request.getContextPath() + "/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long start = System.nanoTime();
+        int status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        try {
+            filterChain.doFilter(request, response);
+            status = response.getStatus();
+        } finally {
+            // Long-lived async responses (streams) would only skew the figures
+            if (!request.isAsyncStarted()) {
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                String route = request.getMethod() + ' ' + (pattern != null ? pattern : "unmatched");
+                tracker.record(route, System.nanoTime() - start, status);
+            }
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.noteguard.backend.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rolling-window latency percentiles, throughput and error rate per route, for
+ * the admin dashboard.
+ *
+ * Requests are recorded into an HdrHistogram {@link Recorder} per route, which is
+ * wait-free for writers. Every app.latency.interval-ms the scheduler swaps each
+ * recorder's interval histogram out into a ring of app.latency.intervals slots.
+ * Slots are immutable once published, so reports merge them without ever
+ * blocking request threads. The interval in progress is not part of a report.
+ */
+@Component
+public class RouteLatencyTracker {
+
+    // Routes beyond this many are folded into OTHER_ROUTE to keep memory bounded
+    private static final int MAX_ROUTES = 256;
+    private static final String OTHER_ROUTE = "other";
+
+    // Microsecond resolution up to one minute, 2 significant digits (~1% error)
+    private static final long HIGHEST_TRACKABLE_MICROS = 60_000_000L;
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final boolean enabled;
+    private final long intervalMillis;
+    private final int intervals;
+    private final Map<String, RouteRecorder> routes = new ConcurrentHashMap<>();
+
+    public RouteLatencyTracker(@Value("${app.latency.enabled:true}") boolean enabled,
+                               @Value("${app.latency.interval-ms:10000}") long intervalMillis,
+                               @Value("${app.latency.intervals:6}") int intervals) {
+        this.enabled = enabled;
+        this.intervalMillis = intervalMillis;
+        this.intervals = Math.max(intervals, 1);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param route Route key, e.g. "GET /api/notes/{id}"
+     * @param nanos Request duration
+     * @param status HTTP status sent
+     */
+    public void record(String route, long nanos, int status) {
+        RouteRecorder recorder = routes.get(route);
+        if (recorder == null) {
+            recorder = routes.size() < MAX_ROUTES
+                ? routes.computeIfAbsent(route, key -> new RouteRecorder(key, intervals))
+                : routes.computeIfAbsent(OTHER_ROUTE, key -> new RouteRecorder(key, intervals));
+        }
+        recorder.recorder.recordValue(Math.min(Math.max(nanos / 1_000, 1), HIGHEST_TRACKABLE_MICROS));
+        if (status >= 500) {
+            recorder.serverErrors.increment();
+        } else if (status >= 400) {
+            recorder.clientErrors.increment();
+        }
+    }
+
+    /**
+     * Closes the current interval of every route and publishes it to the ring
+     */
+    @Scheduled(fixedRateString = "${app.latency.interval-ms:10000}")
+    public void rotate() {
+        for (RouteRecorder recorder : routes.values()) {
+            recorder.rotate();
+        }
+    }
+
+    /**
+     * @return Percentiles over the last app.latency.intervals completed intervals, busiest route first
+     */
+    public LatencyReport getReport() {
+        List<RouteLatency> report = new ArrayList<>();
+        double windowSeconds = intervalMillis * intervals / 1000.0;
+        for (RouteRecorder recorder : routes.values()) {
+            Histogram merged = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+            long serverErrors = 0;
+            long clientErrors = 0;
+            int filled = 0;
+            for (int i = 0; i < recorder.ring.length(); i++) {
+                Interval interval = recorder.ring.get(i);
+                if (interval != null) {
+                    merged.add(interval.histogram);
+                    serverErrors += interval.serverErrors;
+                    clientErrors += interval.clientErrors;
+                    filled++;
+                }
+            }
+            long count = merged.getTotalCount();
+            if (count == 0) {
+                continue;
+            }
+            // Routes seen for less than the full window are averaged over the intervals they have
+            report.add(new RouteLatency(recorder.route, count, count / (filled * intervalMillis / 1000.0),
+                (double) serverErrors / count, (double) clientErrors / count,
+                millis(merged.getValueAtPercentile(50)), millis(merged.getValueAtPercentile(90)),
+                millis(merged.getValueAtPercentile(99)), millis(merged.getValueAtPercentile(99.9)),
+                millis(merged.getMaxValue()), merged.getMean() / 1000.0));
+        }
+        report.sort(Comparator.comparingLong(RouteLatency::getRequests).reversed());
+        return new LatencyReport(enabled, windowSeconds, report);
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    /**
+     * Live recorder of one route plus its ring of completed intervals
+     */
+    private static class RouteRecorder {
+        private final String route;
+        private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        private final LongAdder serverErrors = new LongAdder();
+        private final LongAdder clientErrors = new LongAdder();
+        private final AtomicReferenceArray<Interval> ring;
+        private int next;
+
+        RouteRecorder(String route, int intervals) {
+            this.route = route;
+            this.ring = new AtomicReferenceArray<>(intervals);
+        }
+
+        // Only called from the scheduler thread
+        void rotate() {
+            Histogram histogram = recorder.getIntervalHistogram();
+            ring.set(next, new Interval(histogram, serverErrors.sumThenReset(), clientErrors.sumThenReset()));
+            next = (next + 1) % ring.length();
+        }
+    }
+
+    private record Interval(Histogram histogram, long serverErrors, long clientErrors) {
+    }
+
+    // Inner class for one route's figures; latencies in milliseconds
+    public static class RouteLatency {
+        private final String route;
+        private final long requests;
+        private final double throughputPerSecond;
+        private final double errorRate;
+        private final double clientErrorRate;
+        private final double p50;
+        private final double p90;
+        private final double p99;
+        private final double p999;
+        private final double max;
+        private final double mean;
+
+        public RouteLatency(String route, long requests, double throughputPerSecond, double errorRate,
+                            double clientErrorRate, double p50, double p90, double p99, double p999,
+                            double max, double mean) {
+            this.route = route;
+            this.requests = requests;
+            this.throughputPerSecond = throughputPerSecond;
+            this.errorRate = errorRate;
+            this.clientErrorRate = clientErrorRate;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.p999 = p999;
+            this.max = max;
+            this.mean = mean;
+        }
+
+        public String getRoute() {
+            return route;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        public double getThroughputPerSecond() {
+            return throughputPerSecond;
+        }
+
+        /**
+         * Share of requests answered with a 5xx status
+         */
+        public double getErrorRate() {
+            return errorRate;
+        }
+
+        /**
+         * Share of requests answered with a 4xx status
+         */
+        public double getClientErrorRate() {
+            return clientErrorRate;
+        }
+
+        public double getP50() {
+            return p50;
+        }
+
+        public double getP90() {
+            return p90;
+        }
+
+        public double getP99() {
+            return p99;
+        }
+
+        public double getP999() {
+            return p999;
+        }
+
+        public double getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return mean;
+        }
+    }
+
+    // Inner class for the dashboard payload
+    public static class LatencyReport {
+        private final boolean enabled;
+        private final double windowSeconds;
+        private final List<RouteLatency> routes;
+
+        public LatencyReport(boolean enabled, double windowSeconds, List<RouteLatency> routes) {
+            this.enabled = enabled;
+            this.windowSeconds = windowSeconds;
+            this.routes = routes;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public double getWindowSeconds() {
+            return windowSeconds;
+        }
+
+        public List<RouteLatency> getRoutes() {
+            return routes;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.noteguard.backend.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * JDBC proxy that times statements into the current {@link RequestSample}.
+ *
+ * Connections are only wrapped while a sample is bound (an /api request with
+ * the sampler on); Flyway, scheduled jobs and startup get the plain connection.
+ * Statement proxies time the execute* calls and count the rows of updates,
+ * batches and result sets.
+ *
+ * Extends DelegatingDataSource so Boot can still unwrap the Hikari pool for
+ * metrics and health.
+ */
+public class SamplingDataSource extends DelegatingDataSource {
+
+    public SamplingDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private static Connection wrap(Connection connection) {
+        RequestSample sample = RequestSample.current();
+        if (sample == null) {
+            return connection;
+        }
+        return proxy(Connection.class, new ConnectionHandler(connection, sample));
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(SamplingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static final class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+        private final RequestSample sample;
+
+        ConnectionHandler(Connection target, RequestSample sample) {
+            this.target = target;
+            this.sample = sample;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = SamplingDataSource.invoke(target, method, args);
+            if (result instanceof Statement statement) {
+                // prepareStatement/prepareCall carry the SQL; createStatement gets it at execute time
+                String sql = method.getName().startsWith("prepare") ? (String) args[0] : null;
+                return proxy(method.getReturnType(), new StatementHandler(statement, sql, sample));
+            }
+            return result;
+        }
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final String sql;
+        private final RequestSample sample;
+        private RequestSample.SqlStatement last;
+
+        StatementHandler(Statement target, String sql, RequestSample sample) {
+            this.target = target;
+            this.sql = sql;
+            this.sample = sample;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (!name.startsWith("execute")) {
+                Object result = SamplingDataSource.invoke(target, method, args);
+                if (result instanceof ResultSet resultSet && last != null && "getResultSet".equals(name)) {
+                    return countRows(resultSet, last);
+                }
+                return result;
+            }
+
+            long start = System.nanoTime();
+            Object result = SamplingDataSource.invoke(target, method, args);
+            String executed = args != null && args.length > 0 && args[0] instanceof String text ? text : sql;
+            last = sample.addStatement(executed, System.nanoTime() - start);
+            if (last == null) {
+                return result;
+            }
+            if (result instanceof ResultSet resultSet) {
+                return countRows(resultSet, last);
+            }
+            if (result instanceof Integer count) {
+                last.rows = count;
+            } else if (result instanceof Long count) {
+                last.rows = count;
+            } else if (result instanceof int[] counts) {
+                long rows = 0;
+                for (int count : counts) {
+                    rows += Math.max(count, 0);
+                }
+                last.rows = rows;
+            }
+            return result;
+        }
+
+        private static ResultSet countRows(ResultSet resultSet, RequestSample.SqlStatement statement) {
+            statement.rows = 0;
+            return proxy(ResultSet.class, (proxy, method, args) -> {
+                Object result = SamplingDataSource.invoke(resultSet, method, args);
+                if (Boolean.TRUE.equals(result) && "next".equals(method.getName())) {
+                    statement.rows++;
+                }
+                return result;
+            });
+        }
+    }
+}
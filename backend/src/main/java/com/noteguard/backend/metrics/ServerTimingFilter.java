@@ -0,0 +1,58 @@
+package com.noteguard.backend.metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+
+/**
+ * Binds a {@link RequestTimings} context for each API request and adds the
+ * Server-Timing header to the response.
+ *
+ * The body is buffered so the header can still be set after serialization has
+ * been timed. Downloads are streamed as-is and get no header.
+ * Registered by ServerTimingConfig only when app.server-timing.enabled=true.
+ */
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Server-Timing";
+
+    private final boolean adminOnly;
+
+    /**
+     * @param adminOnly Send the header only to authenticated admins (decided by {@link ServerTimingAdvice})
+     */
+    public ServerTimingFilter(boolean adminOnly) {
+        this.adminOnly = adminOnly;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // Flight recordings can be tens of MB and event streams never end; don't buffer them
+        String uri = request.getRequestURI();
+        return uri.startsWith(request.getContextPath() + "/api/admin/jfr/")
+            || uri.equals(request.getContextPath() + "/api/notes/events");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        RequestTimings timings = RequestTimings.bind(!adminOnly);
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(request, wrapper);
+            timings.markSerializationEnd();
+            if (timings.isExposed() && !wrapper.isCommitted()) {
+                wrapper.setHeader(HEADER, timings.toHeaderValue());
+            }
+        } finally {
+            RequestTimings.unbind();
+            wrapper.copyBodyToResponse();
+        }
+    }
+}
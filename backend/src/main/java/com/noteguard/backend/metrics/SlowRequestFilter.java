@@ -0,0 +1,50 @@
+package com.noteguard.backend.metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Binds a {@link RequestSample} around every /api request and hands it to
+ * {@link SlowRequestSampler}, which keeps it only if the request was slow.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 6)
+public class SlowRequestFilter extends OncePerRequestFilter {
+
+    private final SlowRequestSampler sampler;
+
+    public SlowRequestFilter(SlowRequestSampler sampler) {
+        this.sampler = sampler;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !sampler.isEnabled() || !request.getRequestURI().startsWith(request.getContextPath() + "/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        RequestSample sample = sampler.begin();
+        long start = System.nanoTime();
+        int status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        try {
+            filterChain.doFilter(request, response);
+            status = response.getStatus();
+        } finally {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            sampler.end(sample, request.getMethod(), pattern != null ? pattern.toString() : request.getRequestURI(),
+                status, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.noteguard.backend.metrics;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Keeps the last app.slow-requests.capacity requests that took longer than
+ * app.slow-requests.threshold, with the SQL they ran and their crypto time.
+ *
+ * Captures go into a lock-free ring: a sequence number picks the slot and the
+ * oldest entry is overwritten. With app.slow-requests.log=true each capture is
+ * also logged from a background thread; if that thread falls behind, log lines
+ * are dropped rather than slowing requests down.
+ */
+@Component
+public class SlowRequestSampler {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowRequestSampler.class);
+
+    private final boolean enabled;
+    private final long thresholdNanos;
+    private final int maxStatements;
+    private final boolean captureCaller;
+    private final AtomicReferenceArray<SlowRequest> ring;
+    private final AtomicLong sequence = new AtomicLong();
+    private final ThreadPoolExecutor logExecutor;
+
+    public SlowRequestSampler(@Value("${app.slow-requests.enabled:true}") boolean enabled,
+                              @Value("${app.slow-requests.threshold:1s}") Duration threshold,
+                              @Value("${app.slow-requests.capacity:100}") int capacity,
+                              @Value("${app.slow-requests.max-statements:100}") int maxStatements,
+                              @Value("${app.slow-requests.capture-caller:false}") boolean captureCaller,
+                              @Value("${app.slow-requests.log:false}") boolean log) {
+        this.enabled = enabled;
+        this.thresholdNanos = threshold.toNanos();
+        this.maxStatements = maxStatements;
+        this.captureCaller = captureCaller;
+        this.ring = new AtomicReferenceArray<>(Math.max(capacity, 1));
+        this.logExecutor = log ? new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(256), runnable -> {
+                Thread thread = new Thread(runnable, "slow-request-log");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.DiscardPolicy()) : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Binds a sample for the request on the current thread
+     */
+    RequestSample begin() {
+        return RequestSample.bind(maxStatements, captureCaller);
+    }
+
+    /**
+     * Unbinds the sample and keeps it if the request was slow
+     * @param route Matched route, or the request URI if none matched
+     */
+    void end(RequestSample sample, String method, String route, int status, long elapsedNanos) {
+        RequestSample.unbind();
+        if (elapsedNanos < thresholdNanos) {
+            return;
+        }
+
+        List<SlowStatement> statements = new ArrayList<>(sample.getStatements().size());
+        for (RequestSample.SqlStatement statement : sample.getStatements()) {
+            statements.add(new SlowStatement(statement.sql, statement.nanos / 1_000_000.0, statement.rows, statement.caller));
+        }
+        SlowRequest slowRequest = new SlowRequest(Instant.now(), method, route, status, elapsedNanos / 1_000_000.0,
+            sample.getSqlNanos() / 1_000_000.0, sample.getCryptoNanos() / 1_000_000.0,
+            sample.getStatementCount(), statements);
+
+        long slot = sequence.getAndIncrement();
+        ring.set((int) (slot % ring.length()), slowRequest);
+
+        if (logExecutor != null) {
+            logExecutor.execute(() -> log(slowRequest));
+        }
+    }
+
+    private static void log(SlowRequest request) {
+        StringBuilder message = new StringBuilder(256)
+            .append("Slow request ").append(request.getMethod()).append(' ').append(request.getRoute())
+            .append(" -> ").append(request.getStatus()).append(" in ").append(request.getDurationMs())
+            .append(" ms (sql ").append(request.getSqlMs()).append(" ms over ").append(request.getStatementCount())
+            .append(" statements, crypto ").append(request.getCryptoMs()).append(" ms)");
+        for (SlowStatement statement : request.getStatements()) {
+            message.append("\n  ").append(statement.getDurationMs()).append(" ms, ")
+                .append(statement.getRows()).append(" rows, ").append(statement.getCaller())
+                .append(": ").append(statement.getSql());
+        }
+        logger.warn(message.toString());
+    }
+
+    /**
+     * @return Captured slow requests, newest first
+     */
+    public List<SlowRequest> getSlowRequests() {
+        List<SlowRequest> requests = new ArrayList<>(ring.length());
+        long newest = sequence.get() - 1;
+        for (long slot = newest; slot >= 0 && slot > newest - ring.length(); slot--) {
+            SlowRequest request = ring.get((int) (slot % ring.length()));
+            if (request != null) {
+                requests.add(request);
+            }
+        }
+        return requests;
+    }
+
+    /**
+     * @return Total number of slow requests captured since startup
+     */
+    public long getCapturedCount() {
+        return sequence.get();
+    }
+
+    public double getThresholdMs() {
+        return thresholdNanos / 1_000_000.0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (logExecutor != null) {
+            logExecutor.shutdown();
+        }
+    }
+
+    // Inner class for a captured request; times in milliseconds
+    public static class SlowRequest {
+        private final Instant timestamp;
+        private final String method;
+        private final String route;
+        private final int status;
+        private final double durationMs;
+        private final double sqlMs;
+        private final double cryptoMs;
+        private final int statementCount;
+        private final List<SlowStatement> statements;
+
+        public SlowRequest(Instant timestamp, String method, String route, int status, double durationMs,
+                           double sqlMs, double cryptoMs, int statementCount, List<SlowStatement> statements) {
+            this.timestamp = timestamp;
+            this.method = method;
+            this.route = route;
+            this.status = status;
+            this.durationMs = durationMs;
+            this.sqlMs = sqlMs;
+            this.cryptoMs = cryptoMs;
+            this.statementCount = statementCount;
+            this.statements = statements;
+        }
+
+        public Instant getTimestamp() {
+            return timestamp;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getRoute() {
+            return route;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public double getDurationMs() {
+            return durationMs;
+        }
+
+        public double getSqlMs() {
+            return sqlMs;
+        }
+
+        public double getCryptoMs() {
+            return cryptoMs;
+        }
+
+        /**
+         * All statements run, including any beyond app.slow-requests.max-statements
+         */
+        public int getStatementCount() {
+            return statementCount;
+        }
+
+        public List<SlowStatement> getStatements() {
+            return statements;
+        }
+    }
+
+    // Inner class for one statement of a captured request
+    public static class SlowStatement {
+        private final String sql;
+        private final double durationMs;
+        private final long rows;
+        private final String caller;
+
+        public SlowStatement(String sql, double durationMs, long rows, String caller) {
+            this.sql = sql;
+            this.durationMs = durationMs;
+            this.rows = rows;
+            this.caller = caller;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public double getDurationMs() {
+            return durationMs;
+        }
+
+        /**
+         * Rows returned or affected, -1 if the driver did not say
+         */
+        public long getRows() {
+            return rows;
+        }
+
+        public String getCaller() {
+            return caller;
+        }
+    }
+}
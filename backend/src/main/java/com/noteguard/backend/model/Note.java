@@ -15,7 +15,7 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Note {
 
@@ -53,6 +53,11 @@ public class Note {
     @Column(name = "owner_id", nullable = false)
     private Long ownerId;
 
+    // Null until persisted, so Spring Data still sees new notes as new
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -0,0 +1,60 @@
+package com.noteguard.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * An earlier version of a note, kept when its content or title is replaced.
+ *
+ * A DELTA holds encrypted edits that turn the next newer version (the next
+ * revision, or the note itself) back into this one; a SNAPSHOT holds this
+ * version's stored ciphertext as is. Every app.revisions.snapshot-interval
+ * deltas a snapshot is taken, which bounds reconstruction.
+ */
+@Entity
+@Table(name = "note_revisions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NoteRevision {
+
+    public enum Kind {
+        DELTA,
+        SNAPSHOT
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "note_id", nullable = false)
+    private Long noteId;
+
+    // The note's version while it had this content
+    @Column(nullable = false)
+    private Long version;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Kind kind;
+
+    // Encrypted, as in notes.title
+    @Column(nullable = false, length = 255)
+    private String title;
+
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // When the next version replaced this one; retention counts from here
+    @Column(name = "replaced_at", nullable = false)
+    private LocalDateTime replacedAt;
+}
@@ -0,0 +1,53 @@
+package com.noteguard.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Marker left behind when a note is deleted or expires, so that delta sync
+ * clients learn about the removal. Compacted after app.sync.tombstone-retention.
+ */
+@Entity
+@Table(name = "note_tombstones")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NoteTombstone {
+
+    public enum Reason {
+        DELETED,
+        EXPIRED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "note_id", nullable = false)
+    private Long noteId;
+
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Reason reason;
+
+    public static NoteTombstone deleted(Note note) {
+        return NoteTombstone.builder()
+            .noteId(note.getId())
+            .ownerId(note.getOwnerId())
+            .deletedAt(LocalDateTime.now())
+            .reason(Reason.DELETED)
+            .build();
+    }
+}
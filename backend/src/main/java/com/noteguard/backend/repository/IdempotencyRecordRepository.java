@@ -0,0 +1,56 @@
+package com.noteguard.backend.repository;
+
+import com.noteguard.backend.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Claims a key; a plain INSERT, so a concurrent claim of the same key fails
+     * on the primary key instead of being merged
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO idempotency_keys (id, fingerprint, created_at, expires_at) " +
+                   "VALUES (:id, :fingerprint, :createdAt, :expiresAt)", nativeQuery = true)
+    int insertClaim(@Param("id") String id, @Param("fingerprint") String fingerprint,
+                    @Param("createdAt") LocalDateTime createdAt, @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Reads a key on the primary; findById is read-only and may go to the replica
+     */
+    @Transactional
+    @Query("SELECT r FROM IdempotencyRecord r WHERE r.id = :id")
+    Optional<IdempotencyRecord> findCurrent(@Param("id") String id);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.responseStatus = :status, r.contentType = :contentType, " +
+           "r.responseBody = :body, r.expiresAt = :expiresAt WHERE r.id = :id AND r.responseStatus IS NULL")
+    int complete(@Param("id") String id, @Param("status") int status, @Param("contentType") String contentType,
+                 @Param("body") String body, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id AND r.responseStatus IS NULL")
+    int deleteClaim(@Param("id") String id);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id AND r.expiresAt < :now")
+    int deleteIfExpired(@Param("id") String id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,19 @@
+package com.noteguard.backend.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row of NoteRepository.findChangesSince: a note changed after the cursor,
+ * or a tombstone (reason DELETED or EXPIRED) written after it
+ */
+public interface NoteChangeView {
+
+    Long getNoteId();
+
+    LocalDateTime getChangedAt();
+
+    /**
+     * @return null for a changed note, else the tombstone reason
+     */
+    String getReason();
+}
@@ -0,0 +1,11 @@
+package com.noteguard.backend.repository;
+
+/**
+ * Projection of a note's metadata with its encrypted title and content, without the owner
+ */
+public interface NoteContentView extends NoteVersionView {
+
+    String getTitle();
+
+    String getContent();
+}
@@ -21,14 +21,20 @@ public interface NoteRepository extends JpaRepository<Note, Long> {
     long countByUser(User user);
     
     Optional<Note> findByShareToken(String shareToken);
+
     
     @Query("SELECT n FROM Note n WHERE n.shareToken = :token AND n.shareExpirationTime > :currentTime")
     Optional<Note> findByShareTokenAndNotExpired(@Param("token") String shareToken, @Param("currentTime") LocalDateTime currentTime);
     
+    /**
+     * Clears expired share links. Touches updatedAt so delta sync reports the
+     * change, and the version so a stale entity write cannot restore the link
+     */
     @Modifying
     @Transactional
-    @Query("UPDATE Note n SET n.shareToken = NULL, n.shareExpirationTime = NULL WHERE n.shareExpirationTime <= :currentTime")
-    void invalidateExpiredShareTokens(@Param("currentTime") LocalDateTime currentTime);
+    @Query("UPDATE Note n SET n.shareToken = NULL, n.shareExpirationTime = NULL, n.updatedAt = :currentTime, " +
+           "n.version = n.version + 1 WHERE n.shareExpirationTime <= :currentTime")
+    int invalidateExpiredShareTokens(@Param("currentTime") LocalDateTime currentTime);
     
     @Query("SELECT COUNT(n) FROM Note n WHERE n.expirationTime IS NOT NULL AND n.expirationTime <= :currentTime")
     long countExpiredNotes(@Param("currentTime") LocalDateTime currentTime);
@@ -42,4 +48,50 @@ public interface NoteRepository extends JpaRepository<Note, Long> {
     long countNotesExpiringBefore(@Param("futureTime") LocalDateTime futureTime);
     
     long countByShareTokenIsNotNull();
+    
+    @Query("SELECT n.shareToken FROM Note n WHERE n.shareToken IS NOT NULL AND n.shareExpirationTime > :currentTime")
+    List<String> findActiveShareTokens(@Param("currentTime") LocalDateTime currentTime);
+    
+    @Query("SELECT n.id AS id, n.shareToken AS shareToken, n.shareExpirationTime AS shareExpirationTime " +
+           "FROM Note n WHERE n.shareToken IS NOT NULL AND n.shareExpirationTime > :currentTime")
+    List<ShareLinkView> findActiveShareLinks(@Param("currentTime") LocalDateTime currentTime);
+
+    @Query("SELECT n.id AS id, n.ownerId AS ownerId, n.createdAt AS createdAt, n.updatedAt AS updatedAt, " +
+           "n.expirationTime AS expirationTime, n.shareToken AS shareToken, n.shareExpirationTime AS shareExpirationTime, n.version AS version " +
+           "FROM Note n WHERE n.id = :id")
+    Optional<NoteVersionView> findVersionById(@Param("id") Long id);
+
+    /**
+     * The note's columns without its owner entity, for writes that keep the version they replace
+     */
+    @Query("SELECT n.id AS id, n.ownerId AS ownerId, n.createdAt AS createdAt, n.updatedAt AS updatedAt, " +
+           "n.expirationTime AS expirationTime, n.shareToken AS shareToken, n.shareExpirationTime AS shareExpirationTime, " +
+           "n.version AS version, n.title AS title, n.content AS content " +
+           "FROM Note n WHERE n.id = :id")
+    Optional<NoteContentView> findContentById(@Param("id") Long id);
+
+    /**
+     * Replaces title and content if the note is still at the given version, is
+     * not expired and may be written by the user; bumps the version
+     * @return 1 if updated, 0 if any condition failed
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Note n SET n.title = :title, n.content = :content, n.updatedAt = :updatedAt, " +
+           "n.version = n.version + 1 " +
+           "WHERE n.id = :id AND n.version = :version AND (n.ownerId = :userId OR :admin = TRUE) " +
+           "AND (n.expirationTime IS NULL OR n.expirationTime >= :updatedAt)")
+    int updateContentIfVersion(@Param("id") Long id, @Param("version") Long version, @Param("userId") Long userId,
+                               @Param("admin") boolean admin, @Param("title") String title,
+                               @Param("content") String content, @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Changes of one owner since a sync cursor: notes updated after it plus
+     * tombstones written after it, in one round trip over two index ranges
+     */
+    @Query("SELECT n.id AS noteId, n.updatedAt AS changedAt, CAST(NULL AS String) AS reason FROM Note n " +
+           "WHERE n.ownerId = :ownerId AND n.updatedAt > :since " +
+           "UNION ALL " +
+           "SELECT t.noteId, t.deletedAt, CAST(t.reason AS String) FROM NoteTombstone t " +
+           "WHERE t.ownerId = :ownerId AND t.deletedAt > :since")
+    List<NoteChangeView> findChangesSince(@Param("ownerId") Long ownerId, @Param("since") LocalDateTime since);
 }
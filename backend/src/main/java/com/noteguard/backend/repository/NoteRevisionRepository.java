@@ -0,0 +1,62 @@
+package com.noteguard.backend.repository;
+
+import com.noteguard.backend.model.NoteRevision;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface NoteRevisionRepository extends JpaRepository<NoteRevision, Long> {
+
+    @Query("SELECT r.version AS version, r.updatedAt AS updatedAt, r.replacedAt AS replacedAt " +
+           "FROM NoteRevision r WHERE r.noteId = :noteId ORDER BY r.version DESC")
+    List<NoteRevisionView> findViewsByNoteId(@Param("noteId") Long noteId);
+
+    Optional<NoteRevision> findByNoteIdAndVersion(Long noteId, Long version);
+
+    Optional<NoteRevision> findFirstByNoteIdOrderByVersionDesc(Long noteId);
+
+    /**
+     * The oldest snapshot at or above a version: where reconstructing that version starts
+     */
+    Optional<NoteRevision> findFirstByNoteIdAndKindAndVersionGreaterThanEqualOrderByVersionAsc(
+        Long noteId, NoteRevision.Kind kind, Long version);
+
+    /**
+     * Revisions in [from, to), newest first: the deltas applied on the way down to from
+     */
+    @Query("SELECT r FROM NoteRevision r WHERE r.noteId = :noteId AND r.version >= :from AND r.version < :to " +
+           "ORDER BY r.version DESC")
+    List<NoteRevision> findChain(@Param("noteId") Long noteId, @Param("from") Long from, @Param("to") Long to);
+
+    /**
+     * Deltas above the newest snapshot, which reconstructions starting from the note itself pass through
+     */
+    @Query("SELECT COUNT(r) FROM NoteRevision r WHERE r.noteId = :noteId " +
+           "AND r.version > COALESCE((SELECT MAX(s.version) FROM NoteRevision s " +
+           "WHERE s.noteId = :noteId AND s.kind = com.noteguard.backend.model.NoteRevision.Kind.SNAPSHOT), -1)")
+    long countDeltasSinceSnapshot(@Param("noteId") Long noteId);
+
+    @Query("SELECT r.version FROM NoteRevision r WHERE r.noteId = :noteId ORDER BY r.version DESC")
+    List<Long> findVersions(@Param("noteId") Long noteId, Pageable pageable);
+
+    /**
+     * Drops a note's oldest revisions; newer ones never depend on older ones
+     */
+    @Modifying
+    @Query("DELETE FROM NoteRevision r WHERE r.noteId = :noteId AND r.version <= :version")
+    int deleteUpTo(@Param("noteId") Long noteId, @Param("version") Long version);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM NoteRevision r WHERE r.replacedAt < :cutoff")
+    int deleteReplacedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
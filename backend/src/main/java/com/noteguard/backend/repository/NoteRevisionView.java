@@ -0,0 +1,15 @@
+package com.noteguard.backend.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Revision metadata without title or payload, for listing a note's history
+ */
+public interface NoteRevisionView {
+
+    Long getVersion();
+
+    LocalDateTime getUpdatedAt();
+
+    LocalDateTime getReplacedAt();
+}
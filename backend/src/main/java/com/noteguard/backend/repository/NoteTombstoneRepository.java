@@ -0,0 +1,36 @@
+package com.noteguard.backend.repository;
+
+import com.noteguard.backend.model.NoteTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface NoteTombstoneRepository extends JpaRepository<NoteTombstone, Long> {
+
+    /**
+     * Tombstones every note that deleteExpiredNotes is about to remove; run in the same transaction, just before it
+     */
+    @Modifying
+    @Transactional
+    @Query("INSERT INTO NoteTombstone (noteId, ownerId, deletedAt, reason) " +
+           "SELECT n.id, n.ownerId, :currentTime, com.noteguard.backend.model.NoteTombstone.Reason.EXPIRED FROM Note n " +
+           "WHERE n.expirationTime IS NOT NULL AND n.expirationTime <= :currentTime")
+    int insertForExpiredNotes(@Param("currentTime") LocalDateTime currentTime);
+
+    /**
+     * Tombstones written by one insertForExpiredNotes run, which stamps them all with the same time
+     */
+    List<NoteTombstone> findByDeletedAtAndReason(LocalDateTime deletedAt, NoteTombstone.Reason reason);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM NoteTombstone t WHERE t.deletedAt < :cutoff")
+    int deleteTombstonesBefore(@Param("cutoff") LocalDateTime cutoff);
+}
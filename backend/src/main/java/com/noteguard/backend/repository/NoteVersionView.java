@@ -0,0 +1,25 @@
+package com.noteguard.backend.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of a note's metadata: the columns that decide its ETag, without title and content
+ */
+public interface NoteVersionView {
+
+    Long getId();
+
+    Long getOwnerId();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getUpdatedAt();
+
+    LocalDateTime getExpirationTime();
+
+    String getShareToken();
+
+    LocalDateTime getShareExpirationTime();
+
+    Long getVersion();
+}
@@ -0,0 +1,15 @@
+package com.noteguard.backend.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of the share columns of a note, used to build the share token index
+ */
+public interface ShareLinkView {
+
+    Long getId();
+
+    String getShareToken();
+
+    LocalDateTime getShareExpirationTime();
+}
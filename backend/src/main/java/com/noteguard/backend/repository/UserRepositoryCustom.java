@@ -0,0 +1,15 @@
+package com.noteguard.backend.repository;
+
+import com.noteguard.backend.model.User;
+
+import java.util.Optional;
+
+public interface UserRepositoryCustom {
+
+    /**
+     * Looks up a user by username through the natural-id cache
+     * @param username The username (natural id)
+     * @return The user, if one exists
+     */
+    Optional<User> findByUsername(String username);
+}
@@ -0,0 +1,79 @@
+package com.noteguard.backend.security;
+
+import com.noteguard.backend.metrics.NoteGuardMetrics;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Caps how many password hashes (BCrypt) run at once.
+ *
+ * Hashing is pure CPU work. With virtual threads there is no request thread pool
+ * to bound it, so a login burst could occupy every carrier thread and stall all
+ * other requests. Callers beyond the limit park on the semaphore, which does not
+ * pin a carrier.
+ *
+ * Records hashing time (noteguard.auth.password) and permit wait time
+ * (noteguard.auth.password.wait) separately.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final Semaphore permits;
+    private final NoteGuardMetrics metrics;
+
+    /**
+     * @param delegate The encoder doing the hashing
+     * @param maxConcurrent Maximum hashes in progress at once
+     * @param metrics Meters for hashing and wait time
+     */
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int maxConcurrent, NoteGuardMetrics metrics) {
+        this.delegate = delegate;
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return bounded(() -> {
+            long start = System.nanoTime();
+            String encoded = delegate.encode(rawPassword);
+            metrics.password("encode", "encoded").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return encoded;
+        });
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return bounded(() -> {
+            long start = System.nanoTime();
+            boolean matches = delegate.matches(rawPassword, encodedPassword);
+            metrics.password("verify", matches ? "match" : "mismatch")
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return matches;
+        });
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T bounded(Supplier<T> hash) {
+        long waitStart = System.nanoTime();
+        try {
+            permits.acquire();
+            metrics.passwordWait().record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to hash password", e);
+        }
+        try {
+            return hash.get();
+        } finally {
+            permits.release();
+        }
+    }
+}
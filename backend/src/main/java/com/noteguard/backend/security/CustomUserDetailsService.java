@@ -1,5 +1,6 @@
 package com.noteguard.backend.security;
 
+import com.noteguard.backend.jfr.UserLookupEvent;
 import com.noteguard.backend.model.User;
 import com.noteguard.backend.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
@@ -13,6 +14,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -23,11 +25,22 @@ public class CustomUserDetailsService implements UserDetailsService {
     @Override
     @Transactional
     public UserDetails loadUserByUsername(String usernameOrEmail) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(usernameOrEmail)
-                .orElseGet(() -> userRepository.findByEmail(usernameOrEmail)
-                        .orElseThrow(() -> new UsernameNotFoundException("User not found with username or email: " + usernameOrEmail)));
+        UserLookupEvent event = new UserLookupEvent();
+        event.begin();
+        Optional<User> user = userRepository.findByUsername(usernameOrEmail);
+        boolean byEmail = user.isEmpty();
+        if (byEmail) {
+            user = userRepository.findByEmail(usernameOrEmail);
+        }
+        if (event.shouldCommit()) {
+            event.username = usernameOrEmail;
+            event.found = user.isPresent();
+            event.byEmail = byEmail;
+            event.commit();
+        }
 
-        return UserPrincipal.create(user);
+        return UserPrincipal.create(user
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with username or email: " + usernameOrEmail)));
     }
 
     @Transactional
@@ -1,7 +1,10 @@
 package com.noteguard.backend.security;
 
+import com.noteguard.backend.jfr.JwtVerifyEvent;
+import com.noteguard.backend.metrics.NoteGuardMetrics;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -9,6 +12,7 @@ import org.springframework.stereotype.Component;
 
 import java.security.Key;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtUtils {
@@ -19,6 +23,9 @@ public class JwtUtils {
     @Value("${jwt.expiration}")
     private long jwtExpiration;
 
+    @Autowired
+    private NoteGuardMetrics metrics;
+
     private Key getSigningKey() {
         return Keys.hmacShaKeyFor(jwtSecret.getBytes());
     }
@@ -47,19 +54,34 @@ public class JwtUtils {
     }
 
     public boolean validateToken(String token) {
+        long start = System.nanoTime();
+        String outcome = "invalid";
+        JwtVerifyEvent event = new JwtVerifyEvent();
+        event.begin();
         try {
             Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(token);
+            outcome = "valid";
             return true;
         } catch (MalformedJwtException e) {
+            outcome = "malformed";
             System.err.println("Invalid JWT token: " + e.getMessage());
         } catch (ExpiredJwtException e) {
+            outcome = "expired";
             System.err.println("JWT token is expired: " + e.getMessage());
         } catch (UnsupportedJwtException e) {
+            outcome = "unsupported";
             System.err.println("JWT token is unsupported: " + e.getMessage());
         } catch (IllegalArgumentException e) {
             System.err.println("JWT claims string is empty: " + e.getMessage());
         } catch (Exception e) {
             System.err.println("JWT token validation error: " + e.getMessage());
+        } finally {
+            metrics.jwtValidation(outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (event.shouldCommit()) {
+                event.tokenBytes = token != null ? token.length() : 0;
+                event.outcome = outcome;
+                event.commit();
+            }
         }
         return false;
     }
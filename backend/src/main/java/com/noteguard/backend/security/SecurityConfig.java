@@ -1,6 +1,9 @@
 package com.noteguard.backend.security;
 
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -30,6 +33,10 @@ public class SecurityConfig {
     private final PasswordEncoder passwordEncoder;
     private final JwtAuthenticationEntryPoint unauthorizedHandler;
 
+    // Actuator's own port (management.server.port); -1 when it shares the API port
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
         return new JwtAuthenticationFilter();
@@ -55,8 +62,16 @@ public class SecurityConfig {
             .exceptionHandling(exception -> exception.authenticationEntryPoint(unauthorizedHandler))
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(authz -> authz
+                    // The request was authorized on its first dispatch; a stateless JWT context is
+                    // not carried into the async dispatch that ends an event stream
+                    .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                     // Health endpoints
                     .requestMatchers("/health", "/api/health").permitAll()
+                    // Actuator: health and info are public; metrics, prometheus and the rest are admin only,
+                    // except a Prometheus scrape on the separate management port (see MONITORING.md)
+                    .requestMatchers("/actuator/health/**", "/actuator/info").permitAll()
+                    .requestMatchers(this::isManagementScrape).permitAll()
+                    .requestMatchers("/actuator/**").hasRole("ADMIN")
                     // API endpoints - with /api prefix
                     .requestMatchers("/api/auth/**").permitAll()
                     .requestMatchers("/api/notes/share/**").permitAll()
@@ -78,11 +93,20 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * @return true for GET /actuator/prometheus received on management.server.port. That port
+     * is bound to an internal address and never published, so reaching it is the credential.
+     */
+    private boolean isManagementScrape(HttpServletRequest request) {
+        return managementPort > 0 && request.getLocalPort() == managementPort
+            && "GET".equals(request.getMethod()) && "/actuator/prometheus".equals(request.getRequestURI());
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOriginPatterns(Arrays.asList("*"));
-        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
+        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
         configuration.setAllowCredentials(true);
         
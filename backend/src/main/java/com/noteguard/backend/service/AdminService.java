@@ -1,18 +1,28 @@
 package com.noteguard.backend.service;
 
+import com.noteguard.backend.dto.NoteDto;
+import com.noteguard.backend.dto.UserDto;
+import com.noteguard.backend.event.NoteChangedEvent;
+import com.noteguard.backend.event.UserChangedEvent;
+import com.noteguard.backend.jfr.NoteDecryptEvent;
 import com.noteguard.backend.model.Note;
+import com.noteguard.backend.model.NoteTombstone;
+import com.noteguard.backend.model.Role;
 import com.noteguard.backend.model.User;
 import com.noteguard.backend.repository.NoteRepository;
+import com.noteguard.backend.repository.NoteTombstoneRepository;
 import com.noteguard.backend.repository.UserRepository;
 import com.noteguard.backend.util.EncryptionUtil;
 import com.noteguard.backend.exception.ResourceNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Service
@@ -26,17 +36,30 @@ public class AdminService {
     @Autowired
     private NoteRepository noteRepository;
 
+    @Autowired
+    private NoteTombstoneRepository noteTombstoneRepository;
+
     @Autowired
     private EncryptionUtil encryptionUtil;
 
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Autowired
+    private CacheService cacheService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Get all users in the system (Admin only)
      * @return List of all users
      */
-    public List<User> getAllUsers() {
+    @Transactional(readOnly = true)
+    public List<UserDto> getAllUsers() {
         try {
             logger.info("Admin: Retrieving all users");
-            List<User> users = userRepository.findAll();
+            List<UserDto> users = userRepository.findAll().stream().map(UserDto::from).toList();
             logger.info("Admin: Retrieved {} users", users.size());
             return users;
         } catch (Exception e) {
@@ -49,24 +72,33 @@ public class AdminService {
      * Get all notes in the system with decrypted content (Admin only)
      * @return List of all notes with decrypted content
      */
-    public List<Note> getAllNotes() {
+    @Transactional(readOnly = true)
+    public List<NoteDto> getAllNotes() {
         try {
             logger.info("Admin: Retrieving all notes");
-            List<Note> notes = noteRepository.findAll();
+            List<NoteDto> notes = new ArrayList<>();
             
             // Decrypt content for all notes for admin view
-            for (Note note : notes) {
+            for (Note note : noteRepository.findAll()) {
+                String title = note.getTitle();
+                String content = note.getContent();
                 try {
+                    NoteDecryptEvent event = new NoteDecryptEvent();
+                    event.begin();
                     if (note.getTitle() != null) {
-                        note.setTitle(encryptionUtil.decrypt(note.getTitle()));
+                        title = encryptionUtil.decrypt(note.getTitle());
                     }
                     if (note.getContent() != null) {
-                        note.setContent(encryptionUtil.decrypt(note.getContent()));
+                        content = encryptionUtil.decrypt(note.getContent());
                     }
+                    event.complete(note.getId(), "admin", note.getTitle(), note.getContent(), title, content);
                 } catch (Exception decryptException) {
                     logger.warn("Admin: Failed to decrypt note ID {}: {}", note.getId(), decryptException.getMessage());
                     // Keep encrypted content if decryption fails
+                    title = note.getTitle();
+                    content = note.getContent();
                 }
+                notes.add(NoteDto.from(note, title, content));
             }
             
             logger.info("Admin: Retrieved {} notes", notes.size());
@@ -91,7 +123,7 @@ public class AdminService {
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with ID: " + userId));
 
             // Check if trying to delete an admin user
-            if ("ADMIN".equals(user.getRole())) {
+            if (user.getRole() == Role.ADMIN) {
                 logger.warn("Admin: Attempted to delete admin user: {}", user.getUsername());
                 throw new AccessDeniedException("Cannot delete admin users");
             }
@@ -101,6 +133,8 @@ public class AdminService {
             
             // Delete user (notes will be deleted automatically due to foreign key cascade)
             userRepository.delete(user);
+            cacheService.evictUser(userId);
+            eventPublisher.publishEvent(UserChangedEvent.deleted(user));
             
             logger.info("Admin: Successfully deleted user '{}' (ID: {}) and {} associated notes", 
                        user.getUsername(), userId, noteCount);
@@ -130,6 +164,8 @@ public class AdminService {
             logger.info("Admin: Deleting note ID {} belonging to user '{}'", noteId, username);
             
             noteRepository.delete(note);
+            noteTombstoneRepository.save(NoteTombstone.deleted(note));
+            eventPublisher.publishEvent(NoteChangedEvent.deleted(note));
             
             logger.info("Admin: Successfully deleted note ID {}", noteId);
             
@@ -142,37 +178,19 @@ public class AdminService {
     }
 
     /**
-     * Get user statistics
+     * Get user statistics from the in-memory counters (no database query)
      * @return UserStats object with user counts
      */
     public UserStats getUserStats() {
-        try {
-            long totalUsers = userRepository.count();
-            long adminUsers = userRepository.countByRole("ADMIN");
-            long regularUsers = totalUsers - adminUsers;
-            
-            return new UserStats(totalUsers, adminUsers, regularUsers);
-        } catch (Exception e) {
-            logger.error("Admin: Error getting user statistics: {}", e.getMessage(), e);
-            throw new RuntimeException("Failed to get user statistics: " + e.getMessage());
-        }
+        return statisticsService.getUserStats();
     }
 
     /**
-     * Get note statistics
+     * Get note statistics from the in-memory counters (no database query)
      * @return NoteStats object with note counts
      */
     public NoteStats getNoteStats() {
-        try {
-            long totalNotes = noteRepository.count();
-            long notesWithShares = noteRepository.countByShareTokenIsNotNull();
-            long expiredNotes = noteRepository.countExpiredNotes(java.time.LocalDateTime.now());
-            
-            return new NoteStats(totalNotes, notesWithShares, expiredNotes);
-        } catch (Exception e) {
-            logger.error("Admin: Error getting note statistics: {}", e.getMessage(), e);
-            throw new RuntimeException("Failed to get note statistics: " + e.getMessage());
-        }
+        return statisticsService.getNoteStats();
     }
 
     // Inner classes for statistics
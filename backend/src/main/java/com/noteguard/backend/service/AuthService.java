@@ -3,11 +3,13 @@ package com.noteguard.backend.service;
 import com.noteguard.backend.dto.AuthResponse;
 import com.noteguard.backend.dto.LoginRequest;
 import com.noteguard.backend.dto.RegisterRequest;
+import com.noteguard.backend.event.UserChangedEvent;
 import com.noteguard.backend.model.Role;
 import com.noteguard.backend.model.User;
 import com.noteguard.backend.repository.UserRepository;
 import com.noteguard.backend.security.JwtUtils;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -24,6 +26,7 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtUtils jwtUtils;
     private final AuthenticationManager authenticationManager;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public AuthResponse register(RegisterRequest request) {
@@ -45,6 +48,7 @@ public class AuthService {
                 .build();
 
         User savedUser = userRepository.save(user);
+        eventPublisher.publishEvent(UserChangedEvent.registered(savedUser));
 
         // Generate JWT token
         String token = jwtUtils.generateTokenFromUsername(savedUser.getUsername());
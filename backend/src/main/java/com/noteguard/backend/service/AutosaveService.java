@@ -0,0 +1,345 @@
+package com.noteguard.backend.service;
+
+import com.noteguard.backend.cache.NoteListVersions;
+import com.noteguard.backend.dto.AutosaveResponse;
+import com.noteguard.backend.dto.NoteDto;
+import com.noteguard.backend.event.NoteChangedEvent;
+import com.noteguard.backend.exception.ResourceNotFoundException;
+import com.noteguard.backend.metrics.NoteGuardMetrics;
+import com.noteguard.backend.model.Note;
+import com.noteguard.backend.model.Role;
+import com.noteguard.backend.model.User;
+import com.noteguard.backend.repository.NoteRepository;
+import com.noteguard.backend.repository.NoteVersionView;
+import com.noteguard.backend.repository.UserRepository;
+import com.noteguard.backend.util.ETags;
+import com.noteguard.backend.util.EncryptionUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind buffer for editor autosaves. Each save replaces the note's entry
+ * in memory; the latest version is written once the note has been quiet for
+ * app.autosave.quiet-period, or at the latest app.autosave.max-delay after the
+ * first buffered save. Reads through NoteService see buffered versions.
+ *
+ * A buffered version carries the time it was saved, and is written with that
+ * time as updatedAt, so its ETag stays the same when it reaches the database.
+ * A flush only writes if the row is older: a later PUT or PATCH wins and the
+ * buffered version is dropped. The row is not locked; the version column
+ * catches a write that lands between the check and the flush. The quiet period must stay well below
+ * app.sync.cursor-lag, or a sync could step over a flushed version.
+ *
+ * History keeps at most one autosaved version per app.autosave.revision-interval:
+ * a flush replacing a version the previous flush wrote inside the interval folds
+ * it into the newest revision instead of recording it (see
+ * {@link NoteRevisionService#coalesce}). PUT and PATCH always record.
+ *
+ * When the buffer holds app.autosave.max-bytes, saves are written through
+ * directly. Everything buffered is written on shutdown. Assumes a single
+ * instance, like the other in-memory state.
+ */
+@Service
+public class AutosaveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AutosaveService.class);
+
+    // Rough per-entry overhead on top of the strings' characters
+    private static final int ENTRY_OVERHEAD_BYTES = 160;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EncryptionUtil encryptionUtil;
+
+    @Autowired
+    private NoteListVersions noteListVersions;
+
+    @Autowired
+    private NoteRevisionService noteRevisionService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private NoteGuardMetrics metrics;
+
+    @Value("${app.autosave.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.autosave.quiet-period:2s}")
+    private Duration quietPeriod;
+
+    @Value("${app.autosave.max-delay:10s}")
+    private Duration maxDelay;
+
+    @Value("${app.autosave.max-bytes:16777216}")
+    private long maxBytes;
+
+    @Value("${app.autosave.revision-interval:5m}")
+    private Duration revisionInterval;
+
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+    // Per note, the version the last flush wrote and when its revision window opened
+    private final Map<Long, Flushed> flushed = new ConcurrentHashMap<>();
+    private final AtomicLong bufferedBytes = new AtomicLong();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private TransactionTemplate transactionTemplate;
+    private Counter saves;
+    private Counter writes;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        saves = metrics.getRegistry().counter("noteguard.autosave.saves");
+        writes = metrics.getRegistry().counter("noteguard.autosave.writes");
+        Gauge.builder("noteguard.autosave.pending", pending, Map::size)
+            .description("Notes with a buffered autosave")
+            .register(metrics.getRegistry());
+        Gauge.builder("noteguard.autosave.buffered.bytes", bufferedBytes, AtomicLong::get)
+            .baseUnit("bytes")
+            .register(metrics.getRegistry());
+        Gauge.builder("noteguard.autosave.coalescing.ratio", this, AutosaveService::getCoalescingRatio)
+            .description("Autosaves received per database write")
+            .register(metrics.getRegistry());
+    }
+
+    /**
+     * Buffers an autosave of a note
+     * @param title New title, or null to keep the current one
+     * @param content New content, or null to keep the current one
+     * @return The buffered version, with the ETag reads will report for it
+     */
+    public AutosaveResponse save(Long noteId, String title, String content, String username) {
+        User user = userRepository.findByUsername(username)
+            .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        NoteVersionView version = noteRepository.findVersionById(noteId)
+            .orElseThrow(() -> new ResourceNotFoundException("Note not found"));
+
+        // Check if user owns the note or is admin
+        if (!version.getOwnerId().equals(user.getId()) && user.getRole() != Role.ADMIN) {
+            throw new AccessDeniedException("Access denied: You can only update your own notes");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (version.getExpirationTime() != null && now.isAfter(version.getExpirationTime())) {
+            throw new ResourceNotFoundException("Note has expired and is no longer available");
+        }
+        if (title != null && title.isBlank()) {
+            throw new IllegalArgumentException("Title must not be blank");
+        }
+
+        saves.increment();
+        // Microseconds, as stored, so the ETag is the same before and after the flush
+        LocalDateTime truncated = now.truncatedTo(ChronoUnit.MICROS);
+        long nanos = System.nanoTime();
+        Pending entry = pending.compute(noteId, (id, previous) -> {
+            if (previous == null) {
+                Pending next = new Pending(id, title, content, truncated, nanos, nanos);
+                bufferedBytes.addAndGet(next.bytes());
+                return next;
+            }
+            // Strictly increasing per note, so a flush never mistakes a newer save for the one it wrote
+            LocalDateTime savedAt = truncated.isAfter(previous.savedAt()) ? truncated : previous.savedAt().plusNanos(1_000);
+            Pending next = new Pending(id, title != null ? title : previous.title(),
+                content != null ? content : previous.content(), savedAt, previous.firstNanos(), nanos);
+            bufferedBytes.addAndGet(next.bytes() - previous.bytes());
+            return next;
+        });
+        noteListVersions.invalidate(version.getOwnerId());
+
+        // Write through when buffering is off or the buffer is full; on failure the entry stays buffered
+        boolean buffered = true;
+        if (!enabled || bufferedBytes.get() > maxBytes) {
+            buffered = !flush(entry);
+        }
+
+        boolean shareExpired = version.getShareExpirationTime() != null
+            && !now.isBefore(version.getShareExpirationTime());
+        String etag = ETags.forNote(noteId, entry.savedAt(), shareExpired ? null : version.getShareToken(),
+            version.getShareExpirationTime());
+        // One write above the row as read, whether flushed already or still buffered
+        Long next = version.getVersion() != null ? version.getVersion() + 1 : null;
+        return new AutosaveResponse(noteId, entry.savedAt(), etag, next, buffered);
+    }
+
+    /**
+     * @return The note with its buffered title and content, if a newer version is buffered.
+     *         Its version is the one the flush will write, one above the stored row.
+     */
+    public NoteDto overlay(NoteDto note) {
+        Pending entry = pending.isEmpty() ? null : pending.get(note.id());
+        if (entry == null || (note.updatedAt() != null && !entry.savedAt().isAfter(note.updatedAt()))) {
+            return note;
+        }
+        return new NoteDto(note.id(), entry.title() != null ? entry.title() : note.title(),
+            entry.content() != null ? entry.content() : note.content(), entry.savedAt(),
+            note.version() != null ? note.version() + 1 : null, note.createdAt(),
+            note.expirationTime(), note.shareToken(), note.shareExpirationTime(), note.ownerId(),
+            note.ownerUsername());
+    }
+
+    /**
+     * @return The buffered version's time if it is newer than updatedAt, else updatedAt
+     */
+    public LocalDateTime effectiveUpdatedAt(Long noteId, LocalDateTime updatedAt) {
+        Pending entry = pending.isEmpty() ? null : pending.get(noteId);
+        return entry != null && (updatedAt == null || entry.savedAt().isAfter(updatedAt)) ? entry.savedAt() : updatedAt;
+    }
+
+    /**
+     * Writes a note's buffered version, if any, within the caller's transaction,
+     * so a conditional write that follows sees what readers were shown. The entry
+     * stays buffered; the next flush finds the row current and drops it.
+     */
+    public void writePending(Long noteId) throws Exception {
+        Pending entry = pending.isEmpty() ? null : pending.get(noteId);
+        if (entry != null) {
+            write(entry);
+        }
+    }
+
+    /**
+     * Writes the notes that have been quiet long enough or waited the maximum delay
+     */
+    @Scheduled(fixedDelayString = "${app.autosave.flush-interval-ms:250}")
+    public void flushDue() {
+        if (pending.isEmpty() || !flushLock.tryLock()) {
+            return;
+        }
+        try {
+            long now = System.nanoTime();
+            flushed.values().removeIf(window -> now - window.openedNanos() >= revisionInterval.toNanos());
+            for (Pending entry : pending.values()) {
+                if (now - entry.lastNanos() >= quietPeriod.toNanos() || now - entry.firstNanos() >= maxDelay.toNanos()) {
+                    flush(entry);
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushAll() {
+        flushLock.lock();
+        try {
+            if (!pending.isEmpty()) {
+                logger.info("Writing {} buffered autosaves before shutdown", pending.size());
+            }
+            for (Pending entry : pending.values()) {
+                flush(entry);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public double getCoalescingRatio() {
+        double written = writes.count();
+        return written > 0 ? saves.count() / written : 0;
+    }
+
+    /**
+     * @return true if the entry was written, or turned out to be superseded
+     */
+    private boolean flush(Pending entry) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try {
+                    write(entry);
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IllegalStateException(e.getMessage(), e);
+                }
+            });
+            // A newer save replaced the entry meanwhile; it stays for the next flush
+            if (pending.remove(entry.noteId(), entry)) {
+                bufferedBytes.addAndGet(-entry.bytes());
+            }
+            return true;
+        } catch (ObjectOptimisticLockingFailureException e) {
+            // Another write landed between the read and the flush; the next pass compares against it
+            logger.debug("Autosave of note {} raced another write", entry.noteId());
+            return false;
+        } catch (Exception e) {
+            // Kept for the next pass
+            logger.warn("Failed to write autosave of note {}: {}", entry.noteId(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void write(Pending entry) throws Exception {
+        Note note = noteRepository.findById(entry.noteId()).orElse(null);
+        if (note == null || (note.getUpdatedAt() != null && !note.getUpdatedAt().isBefore(entry.savedAt()))) {
+            // Deleted, or already holds this version or a later write
+            return;
+        }
+        NoteRevisionService.Base base = NoteRevisionService.Base.of(note);
+        if (entry.title() != null) {
+            note.setTitle(encryptionUtil.encrypt(entry.title()));
+        }
+        if (entry.content() != null) {
+            note.setContent(encryptionUtil.encryptChunked(entry.content()));
+        }
+        note.setUpdatedAt(entry.savedAt());
+        // Flushed here so a concurrent write fails the version check inside this call
+        Note savedNote = noteRepository.saveAndFlush(note);
+        recordRevision(base, entry.content(), savedNote.getVersion());
+        writes.increment();
+        eventPublisher.publishEvent(NoteChangedEvent.updated(savedNote));
+    }
+
+    private void recordRevision(NoteRevisionService.Base base, String content, Long writtenVersion) throws Exception {
+        long now = System.nanoTime();
+        Flushed window = flushed.get(base.noteId());
+        // Only a version this service wrote itself, with nothing written since, can be folded away
+        if (window != null && window.version().equals(base.version())
+            && now - window.openedNanos() < revisionInterval.toNanos()
+            && noteRevisionService.coalesce(base, content)) {
+            flushed.put(base.noteId(), new Flushed(writtenVersion, window.openedNanos()));
+            return;
+        }
+        noteRevisionService.record(base, content);
+        flushed.put(base.noteId(), new Flushed(writtenVersion, now));
+    }
+
+    private record Flushed(Long version, long openedNanos) {
+    }
+
+    private record Pending(Long noteId, String title, String content, LocalDateTime savedAt,
+                           long firstNanos, long lastNanos) {
+
+        long bytes() {
+            return ENTRY_OVERHEAD_BYTES + 2L * ((title != null ? title.length() : 0) + (content != null ? content.length() : 0));
+        }
+    }
+}
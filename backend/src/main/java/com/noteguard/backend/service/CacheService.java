@@ -0,0 +1,145 @@
+package com.noteguard.backend.service;
+
+import com.noteguard.backend.cache.NoteCache;
+import com.noteguard.backend.cache.NoteLoadCoalescer;
+import com.noteguard.backend.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Eviction and statistics for the Hibernate second-level cache (see ehcache.xml)
+ */
+@Service
+public class CacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheService.class);
+
+    private static final String USER_REGION = User.class.getName();
+    private static final String USER_NATURAL_ID_REGION = USER_REGION + "##NaturalId";
+    private static final String QUERY_RESULTS_REGION = "default-query-results-region";
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private NoteCache noteCache;
+
+    @Autowired
+    private NoteLoadCoalescer noteLoadCoalescer;
+
+    /**
+     * Evicts a user and its username mapping from the second-level cache
+     * @param userId The ID of the user
+     */
+    public void evictUser(Long userId) {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictEntityData(User.class, userId);
+        sessionFactory.getCache().evictNaturalIdData(User.class);
+        logger.debug("Evicted user ID {} from second-level cache", userId);
+    }
+
+    /**
+     * Get hit/miss statistics for the second-level cache regions and the note cache
+     * @return CacheStats with one entry per region plus note cache usage and load coalescing
+     */
+    public CacheStats getCacheStats() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        List<RegionStats> regions = new ArrayList<>();
+        for (String region : List.of(USER_REGION, USER_NATURAL_ID_REGION, QUERY_RESULTS_REGION)) {
+            CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+            if (regionStatistics != null) {
+                regions.add(new RegionStats(region,
+                    regionStatistics.getHitCount(),
+                    regionStatistics.getMissCount(),
+                    regionStatistics.getPutCount(),
+                    regionStatistics.getElementCountInMemory()));
+            }
+        }
+
+        return new CacheStats(statistics.isStatisticsEnabled(), regions, noteCache.getStats(),
+            noteLoadCoalescer.getStats());
+    }
+
+    // Inner classes for statistics
+    public static class CacheStats {
+        private final boolean statisticsEnabled;
+        private final List<RegionStats> regions;
+        private final NoteCache.NoteCacheStats noteCache;
+        private final NoteLoadCoalescer.CoalescingStats noteLoads;
+
+        public CacheStats(boolean statisticsEnabled, List<RegionStats> regions, NoteCache.NoteCacheStats noteCache,
+                          NoteLoadCoalescer.CoalescingStats noteLoads) {
+            this.statisticsEnabled = statisticsEnabled;
+            this.regions = regions;
+            this.noteCache = noteCache;
+            this.noteLoads = noteLoads;
+        }
+
+        public boolean isStatisticsEnabled() {
+            return statisticsEnabled;
+        }
+
+        public List<RegionStats> getRegions() {
+            return regions;
+        }
+
+        public NoteCache.NoteCacheStats getNoteCache() {
+            return noteCache;
+        }
+
+        public NoteLoadCoalescer.CoalescingStats getNoteLoads() {
+            return noteLoads;
+        }
+    }
+
+    public static class RegionStats {
+        private final String region;
+        private final long hits;
+        private final long misses;
+        private final long puts;
+        private final long entries;
+
+        public RegionStats(String region, long hits, long misses, long puts, long entries) {
+            this.region = region;
+            this.hits = hits;
+            this.misses = misses;
+            this.puts = puts;
+            this.entries = entries;
+        }
+
+        public String getRegion() {
+            return region;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getPuts() {
+            return puts;
+        }
+
+        public long getEntries() {
+            return entries;
+        }
+
+        public double getHitRatio() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+    }
+}
@@ -1,14 +1,31 @@
 package com.noteguard.backend.service;
 
+import com.noteguard.backend.cache.NoteCache;
+import com.noteguard.backend.cache.NoteListVersions;
+import com.noteguard.backend.event.NoteChangedEvent;
+import com.noteguard.backend.event.NoteEventBroadcaster;
+import com.noteguard.backend.jfr.CleanupBatchEvent;
+import com.noteguard.backend.metrics.NoteGuardMetrics;
+import com.noteguard.backend.model.NoteTombstone;
 import com.noteguard.backend.repository.NoteRepository;
+import com.noteguard.backend.repository.NoteRevisionRepository;
+import com.noteguard.backend.repository.NoteTombstoneRepository;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class CleanupService {
@@ -18,34 +35,143 @@ public class CleanupService {
     @Autowired
     private NoteRepository noteRepository;
 
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Autowired
+    private NoteCache noteCache;
+
+    @Autowired
+    private NoteListVersions noteListVersions;
+
+    @Autowired
+    private NoteTombstoneRepository noteTombstoneRepository;
+
+    @Autowired
+    private NoteRevisionRepository noteRevisionRepository;
+
+    @Autowired
+    private NoteEventBroadcaster noteEventBroadcaster;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private NoteGuardMetrics metrics;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.sync.tombstone-retention:30d}")
+    private Duration tombstoneRetention;
+
+    @Value("${app.revisions.retention:90d}")
+    private Duration revisionRetention;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
     /**
      * Deletes expired notes based on expirationTime
      * Runs every hour at the top of the hour
      */
     @Scheduled(cron = "0 0 * * * *") // Every hour at minute 0
-    @Transactional
     public void deleteExpiredNotes() {
+        // A template rather than @Transactional, so performManualCleanup gets the same transaction
+        transactionTemplate.executeWithoutResult(this::cleanUpExpiredNotes);
+    }
+
+    /**
+     * Tombstones, share token invalidation and the delete commit together or not at all
+     */
+    private void cleanUpExpiredNotes(TransactionStatus status) {
+        long start = System.nanoTime();
+        String outcome = NoteGuardMetrics.ERROR;
+        CleanupBatchEvent event = new CleanupBatchEvent();
+        event.begin();
         try {
-            LocalDateTime now = LocalDateTime.now();
+            // Microseconds, as stored, so the tombstones written below can be found again by their time
+            LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
             logger.info("Starting cleanup of expired notes at {}", now);
 
             // First, invalidate expired share tokens
-            noteRepository.invalidateExpiredShareTokens(now);
-            logger.debug("Invalidated expired share tokens");
+            int invalidatedCount = noteRepository.invalidateExpiredShareTokens(now);
+            event.shareTokensInvalidated = invalidatedCount;
+            metrics.getRegistry().counter("noteguard.cleanup.share_tokens.invalidated").increment(invalidatedCount);
+            logger.debug("Invalidated {} expired share tokens", invalidatedCount);
 
             // Get count of expired notes before deletion for logging
             long expiredCount = noteRepository.countExpiredNotes(now);
             
             if (expiredCount > 0) {
-                // Delete expired notes
+                // Leave tombstones for delta sync clients, then delete expired notes
+                noteTombstoneRepository.insertForExpiredNotes(now);
+                if (noteEventBroadcaster.hasSubscribers()) {
+                    for (NoteTombstone tombstone : noteTombstoneRepository.findByDeletedAtAndReason(now, NoteTombstone.Reason.EXPIRED)) {
+                        eventPublisher.publishEvent(NoteChangedEvent.expired(tombstone));
+                    }
+                }
                 int deletedCount = noteRepository.deleteExpiredNotes(now);
+                event.notesDeleted = deletedCount;
+                metrics.getRegistry().counter("noteguard.cleanup.notes.deleted").increment(deletedCount);
                 logger.info("Cleanup completed: {} expired notes deleted", deletedCount);
             } else {
                 logger.debug("Cleanup completed: No expired notes found");
             }
 
+            // Bulk statements bypass the lifecycle events, so resync the admin counters,
+            // drop cached notes whose note or share link has expired and reset list ETags
+            if (invalidatedCount > 0 || expiredCount > 0) {
+                statisticsService.reconcile();
+                noteCache.evictExpired(now);
+                noteListVersions.invalidateAll();
+            }
+            outcome = NoteGuardMetrics.SUCCESS;
+            event.success = true;
+
         } catch (Exception e) {
+            // Roll back the tombstones too, or sync clients would drop notes that still exist
+            status.setRollbackOnly();
             logger.error("Error during cleanup of expired notes: {}", e.getMessage(), e);
+        } finally {
+            metrics.cleanup(outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            event.commit();
+        }
+    }
+
+    /**
+     * Deletes tombstones older than app.sync.tombstone-retention; sync cursors
+     * that old get a full resync instead
+     * Runs daily at 03:30
+     */
+    @Scheduled(cron = "${app.sync.tombstone-compaction-cron:0 30 3 * * *}")
+    public void compactTombstones() {
+        try {
+            int deletedCount = noteTombstoneRepository.deleteTombstonesBefore(LocalDateTime.now().minus(tombstoneRetention));
+            metrics.getRegistry().counter("noteguard.cleanup.tombstones.deleted").increment(deletedCount);
+            logger.info("Tombstone compaction completed: {} tombstones deleted", deletedCount);
+        } catch (Exception e) {
+            logger.error("Error during tombstone compaction: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Deletes note revisions replaced more than app.revisions.retention ago.
+     * Only the oldest versions of a note go, which nothing newer depends on.
+     * Runs daily at 03:45
+     */
+    @Scheduled(cron = "${app.revisions.compaction-cron:0 45 3 * * *}")
+    public void compactRevisions() {
+        try {
+            int deletedCount = noteRevisionRepository.deleteReplacedBefore(LocalDateTime.now().minus(revisionRetention));
+            metrics.getRegistry().counter("noteguard.cleanup.revisions.deleted").increment(deletedCount);
+            logger.info("Revision compaction completed: {} revisions deleted", deletedCount);
+        } catch (Exception e) {
+            logger.error("Error during revision compaction: {}", e.getMessage(), e);
         }
     }
 
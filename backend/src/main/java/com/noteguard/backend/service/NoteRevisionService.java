@@ -0,0 +1,290 @@
+package com.noteguard.backend.service;
+
+import com.noteguard.backend.dto.NoteRevisionDto;
+import com.noteguard.backend.dto.NoteRevisionSummary;
+import com.noteguard.backend.exception.ResourceNotFoundException;
+import com.noteguard.backend.metrics.NoteGuardMetrics;
+import com.noteguard.backend.model.Note;
+import com.noteguard.backend.model.NoteRevision;
+import com.noteguard.backend.model.Role;
+import com.noteguard.backend.model.User;
+import com.noteguard.backend.repository.NoteContentView;
+import com.noteguard.backend.repository.NoteRepository;
+import com.noteguard.backend.repository.NoteRevisionRepository;
+import com.noteguard.backend.repository.NoteRevisionView;
+import com.noteguard.backend.repository.UserRepository;
+import com.noteguard.backend.util.EncryptionUtil;
+import com.noteguard.backend.util.TextDeltas;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Note history. Every write that replaces a note's content or title first
+ * hands the version it replaces to {@link #record}, in the same transaction.
+ *
+ * Revisions are stored newest-relative: a delta turns the next newer version
+ * back into its own, so a new revision never changes older ones and the oldest
+ * can be dropped freely. Reconstruction starts from the nearest snapshot above
+ * the requested version, or from the note itself, and applies at most
+ * app.revisions.snapshot-interval deltas on the way down.
+ */
+@Service
+public class NoteRevisionService {
+
+    @Autowired
+    private NoteRevisionRepository noteRevisionRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EncryptionUtil encryptionUtil;
+
+    @Autowired
+    private NoteGuardMetrics metrics;
+
+    @Value("${app.revisions.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.revisions.snapshot-interval:20}")
+    private int snapshotInterval;
+
+    @Value("${app.revisions.max-per-note:200}")
+    private int maxPerNote;
+
+    private Counter deltas;
+    private Counter snapshots;
+    private Counter coalesced;
+    private DistributionSummary payloadBytes;
+
+    @PostConstruct
+    void init() {
+        deltas = metrics.getRegistry().counter("noteguard.revisions.written", "kind", "delta");
+        snapshots = metrics.getRegistry().counter("noteguard.revisions.written", "kind", "snapshot");
+        coalesced = metrics.getRegistry().counter("noteguard.revisions.coalesced");
+        payloadBytes = DistributionSummary.builder("noteguard.revisions.payload")
+            .description("Stored size of a revision's encrypted payload")
+            .baseUnit("bytes")
+            .register(metrics.getRegistry());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The state of a note before a write, taken before the entity is changed
+     */
+    public record Base(Long noteId, Long version, LocalDateTime updatedAt, String title, String content) {
+
+        public static Base of(Note note) {
+            return new Base(note.getId(), note.getVersion(), note.getUpdatedAt(), note.getTitle(), note.getContent());
+        }
+
+        public static Base of(NoteContentView note) {
+            return new Base(note.getId(), note.getVersion(), note.getUpdatedAt(), note.getTitle(), note.getContent());
+        }
+    }
+
+    /**
+     * Records the version a write replaced, given the new plaintext content
+     * @param newContent The content written, or null if the write kept the content
+     */
+    public void record(Base base, String newContent) throws Exception {
+        if (!enabled || base.version() == null) {
+            return;
+        }
+        if (takeSnapshot(base)) {
+            save(base, NoteRevision.Kind.SNAPSHOT, storedContent(base));
+            return;
+        }
+        List<EncryptionUtil.TextEdit> edits = newContent == null ? List.of()
+            : TextDeltas.diff(newContent, base.content() != null ? encryptionUtil.decrypt(base.content()) : "");
+        saveDelta(base, edits);
+    }
+
+    /**
+     * Records the version a write replaced, given edits that turn the new content back into it
+     */
+    public void record(Base base, List<EncryptionUtil.TextEdit> reverseEdits) throws Exception {
+        if (!enabled || base.version() == null) {
+            return;
+        }
+        if (takeSnapshot(base)) {
+            save(base, NoteRevision.Kind.SNAPSHOT, storedContent(base));
+            return;
+        }
+        saveDelta(base, reverseEdits);
+    }
+
+    /**
+     * Folds the version a write replaced into the newest revision instead of
+     * recording it: that revision's delta is rewritten to start from the new
+     * content, and the replaced version drops out of the history. Only valid
+     * when no write since the newest revision changed content without recording.
+     * @param newContent The content written, or null if the write kept the content
+     * @return false if the newest revision is not a delta; nothing is written then
+     */
+    public boolean coalesce(Base base, String newContent) throws Exception {
+        if (!enabled || base.version() == null) {
+            return true;
+        }
+        NoteRevision newest = noteRevisionRepository.findFirstByNoteIdOrderByVersionDesc(base.noteId()).orElse(null);
+        if (newest == null || newest.getKind() != NoteRevision.Kind.DELTA || newest.getVersion() >= base.version()) {
+            return false;
+        }
+        String replaced = base.content() != null ? encryptionUtil.decrypt(base.content()) : "";
+        String older = TextDeltas.apply(replaced, TextDeltas.decode(encryptionUtil.decrypt(newest.getPayload())));
+        List<EncryptionUtil.TextEdit> edits = TextDeltas.diff(newContent != null ? newContent : replaced, older);
+        String payload = encryptionUtil.encrypt(TextDeltas.encode(edits));
+        newest.setPayload(payload);
+        newest.setReplacedAt(LocalDateTime.now());
+        noteRevisionRepository.save(newest);
+        payloadBytes.record(payload.length());
+        coalesced.increment();
+        return true;
+    }
+
+    /**
+     * Lists the stored versions of a note, newest first; the current version is the note itself
+     */
+    @Transactional(readOnly = true)
+    public List<NoteRevisionSummary> listRevisions(Long noteId, String username) {
+        Note note = authorizedNote(noteId, username);
+        List<NoteRevisionView> views = noteRevisionRepository.findViewsByNoteId(note.getId());
+        List<NoteRevisionSummary> revisions = new ArrayList<>(views.size());
+        for (NoteRevisionView view : views) {
+            // A revision at or above the note's version was written after this read began
+            if (view.getVersion() < note.getVersion()) {
+                revisions.add(new NoteRevisionSummary(view.getVersion(), view.getUpdatedAt(), view.getReplacedAt()));
+            }
+        }
+        return revisions;
+    }
+
+    /**
+     * Reconstructs a version of a note
+     * @throws ResourceNotFoundException If no revision of that version is kept
+     */
+    @Transactional(readOnly = true)
+    public NoteRevisionDto getRevision(Long noteId, Long version, String username) {
+        try {
+            Note note = authorizedNote(noteId, username);
+            if (version.equals(note.getVersion())) {
+                return new NoteRevisionDto(note.getId(), note.getVersion(), encryptionUtil.decrypt(note.getTitle()),
+                    note.getContent() != null ? encryptionUtil.decrypt(note.getContent()) : "", note.getUpdatedAt(), 0);
+            }
+            if (version > note.getVersion()) {
+                throw new ResourceNotFoundException("Revision not found");
+            }
+
+            NoteRevision snapshot = noteRevisionRepository
+                .findFirstByNoteIdAndKindAndVersionGreaterThanEqualOrderByVersionAsc(noteId, NoteRevision.Kind.SNAPSHOT, version)
+                .filter(revision -> revision.getVersion() < note.getVersion())
+                .orElse(null);
+            String content;
+            long top;
+            if (snapshot != null) {
+                content = snapshot.getPayload() != null ? encryptionUtil.decrypt(snapshot.getPayload()) : "";
+                top = snapshot.getVersion();
+            } else {
+                content = note.getContent() != null ? encryptionUtil.decrypt(note.getContent()) : "";
+                top = note.getVersion();
+            }
+
+            List<NoteRevision> chain = snapshot != null && snapshot.getVersion().equals(version) ? List.of(snapshot)
+                : noteRevisionRepository.findChain(noteId, version, top);
+            if (chain.isEmpty() || !chain.get(chain.size() - 1).getVersion().equals(version)) {
+                throw new ResourceNotFoundException("Revision not found");
+            }
+            int applied = 0;
+            for (NoteRevision revision : chain) {
+                if (revision.getKind() == NoteRevision.Kind.DELTA) {
+                    content = TextDeltas.apply(content, TextDeltas.decode(encryptionUtil.decrypt(revision.getPayload())));
+                    applied++;
+                }
+            }
+            NoteRevision target = chain.get(chain.size() - 1);
+            return new NoteRevisionDto(noteId, target.getVersion(), encryptionUtil.decrypt(target.getTitle()), content,
+                target.getUpdatedAt(), applied);
+        } catch (ResourceNotFoundException | AccessDeniedException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to load revision: " + e.getMessage());
+        }
+    }
+
+    private Note authorizedNote(Long noteId, String username) {
+        User user = userRepository.findByUsername(username)
+            .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        Note note = noteRepository.findById(noteId)
+            .orElseThrow(() -> new ResourceNotFoundException("Note not found"));
+
+        // Check if user owns the note or is admin
+        if (!note.getOwnerId().equals(user.getId()) && user.getRole() != Role.ADMIN) {
+            throw new AccessDeniedException("Access denied: You can only view your own notes");
+        }
+        if (note.getExpirationTime() != null && LocalDateTime.now().isAfter(note.getExpirationTime())) {
+            throw new ResourceNotFoundException("Note has expired and is no longer available");
+        }
+        return note;
+    }
+
+    // Once the deltas above the newest snapshot reach the interval, the next revision is a snapshot
+    private boolean takeSnapshot(Base base) {
+        return noteRevisionRepository.countDeltasSinceSnapshot(base.noteId()) >= snapshotInterval;
+    }
+
+    private void saveDelta(Base base, List<EncryptionUtil.TextEdit> edits) throws Exception {
+        String payload = encryptionUtil.encrypt(TextDeltas.encode(edits));
+        // A delta as large as the whole content (a rewrite) is stored as a snapshot instead
+        String stored = storedContent(base);
+        if (payload.length() >= stored.length() && !edits.isEmpty()) {
+            save(base, NoteRevision.Kind.SNAPSHOT, stored);
+        } else {
+            save(base, NoteRevision.Kind.DELTA, payload);
+        }
+    }
+
+    private String storedContent(Base base) throws Exception {
+        return base.content() != null ? base.content() : encryptionUtil.encryptChunked("");
+    }
+
+    private void save(Base base, NoteRevision.Kind kind, String payload) {
+        noteRevisionRepository.save(NoteRevision.builder()
+            .noteId(base.noteId())
+            .version(base.version())
+            .kind(kind)
+            .title(base.title())
+            .payload(payload)
+            .updatedAt(base.updatedAt())
+            .replacedAt(LocalDateTime.now())
+            .build());
+        payloadBytes.record(payload.length());
+        if (kind == NoteRevision.Kind.DELTA) {
+            deltas.increment();
+            return;
+        }
+        snapshots.increment();
+
+        // Trim to the newest max-per-note at each snapshot, so the cap costs a query every interval writes
+        List<Long> cutoff = noteRevisionRepository.findVersions(base.noteId(), PageRequest.of(maxPerNote, 1));
+        if (!cutoff.isEmpty()) {
+            noteRevisionRepository.deleteUpTo(base.noteId(), cutoff.get(0));
+        }
+    }
+}
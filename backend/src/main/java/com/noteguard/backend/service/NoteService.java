@@ -1,16 +1,43 @@
 package com.noteguard.backend.service;
 
+import com.noteguard.backend.cache.CachedNote;
+import com.noteguard.backend.cache.NoteCache;
+import com.noteguard.backend.cache.NoteListVersions;
+import com.noteguard.backend.cache.NoteLoadCoalescer;
+import com.noteguard.backend.config.ReplicaRoutingDataSource;
+import com.noteguard.backend.dto.NoteDto;
+import com.noteguard.backend.dto.NotePatchRequest;
+import com.noteguard.backend.dto.NotePatchResponse;
+import com.noteguard.backend.dto.NoteSyncResponse;
+import com.noteguard.backend.event.NoteChangedEvent;
+import com.noteguard.backend.jfr.NoteDecryptEvent;
 import com.noteguard.backend.model.Note;
+import com.noteguard.backend.model.NoteTombstone;
+import com.noteguard.backend.model.Role;
 import com.noteguard.backend.model.User;
+import com.noteguard.backend.repository.NoteChangeView;
 import com.noteguard.backend.repository.NoteRepository;
+import com.noteguard.backend.repository.NoteTombstoneRepository;
+import com.noteguard.backend.repository.NoteContentView;
+import com.noteguard.backend.repository.NoteVersionView;
 import com.noteguard.backend.repository.UserRepository;
+import com.noteguard.backend.util.ETags;
 import com.noteguard.backend.util.EncryptionUtil;
+import com.noteguard.backend.exception.LoadTimeoutException;
+import com.noteguard.backend.exception.PreconditionFailedException;
 import com.noteguard.backend.exception.ResourceNotFoundException;
+import com.noteguard.backend.exception.VersionConflictException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -25,16 +52,49 @@ public class NoteService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private NoteTombstoneRepository noteTombstoneRepository;
+
     @Autowired
     private EncryptionUtil encryptionUtil;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private NoteCache noteCache;
+
+    @Autowired
+    private NoteLoadCoalescer noteLoadCoalescer;
+
+    @Autowired
+    private NoteListVersions noteListVersions;
+
+    @Autowired
+    private ShareTokenFilter shareTokenFilter;
+
+    @Autowired
+    private ShareTokenIndex shareTokenIndex;
+
+    @Autowired
+    private AutosaveService autosaveService;
+
+    @Autowired
+    private NoteRevisionService noteRevisionService;
+
+    @Value("${app.sync.tombstone-retention:30d}")
+    private Duration tombstoneRetention;
+
+    @Value("${app.sync.cursor-lag:5s}")
+    private Duration cursorLag;
+
     /**
      * Creates a new note with encrypted content
      * @param note The note to create
      * @param username The username of the note owner
      * @return The created note with decrypted content for response
      */
-    public Note createNote(Note note, String username) {
+    public NoteDto createNote(Note note, String username) {
         return createNote(note, username, null);
     }
 
@@ -45,14 +105,17 @@ public class NoteService {
      * @param expirationTime Optional expiration time for the note
      * @return The created note with decrypted content for response
      */
-    public Note createNote(Note note, String username, LocalDateTime expirationTime) {
+    @Transactional
+    public NoteDto createNote(Note note, String username, LocalDateTime expirationTime) {
         try {
             User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
-            // Encrypt the content before saving
-            String encryptedContent = encryptionUtil.encrypt(note.getContent());
-            String encryptedTitle = encryptionUtil.encrypt(note.getTitle());
+            // Encrypt the content before saving; a note without content is stored as empty
+            String title = note.getTitle();
+            String content = note.getContent() != null ? note.getContent() : "";
+            String encryptedContent = encryptionUtil.encryptChunked(content);
+            String encryptedTitle = encryptionUtil.encrypt(title);
 
             note.setTitle(encryptedTitle);
             note.setContent(encryptedContent);
@@ -67,14 +130,10 @@ public class NoteService {
             }
 
             Note savedNote = noteRepository.save(note);
+            eventPublisher.publishEvent(NoteChangedEvent.created(savedNote));
 
-            // Decrypt content for response
-            savedNote.setTitle(note.getTitle().equals(encryptedTitle) ? 
-                encryptionUtil.decrypt(savedNote.getTitle()) : savedNote.getTitle());
-            savedNote.setContent(note.getContent().equals(encryptedContent) ? 
-                encryptionUtil.decrypt(savedNote.getContent()) : savedNote.getContent());
-
-            return savedNote;
+            // The response carries the plaintext we were given; the entity keeps its ciphertext
+            return NoteDto.from(savedNote, title, content);
         } catch (Exception e) {
             throw new RuntimeException("Failed to create note: " + e.getMessage());
         }
@@ -92,51 +151,131 @@ public class NoteService {
 
     /**
      * Fetches a note by ID and decrypts its content
+     * Served from the note cache when possible (see loadNote)
      * @param noteId The ID of the note
      * @param username The username of the requesting user
      * @return The note with decrypted content
      */
-    public Note getNoteById(Long noteId, String username) {
+    @Transactional(readOnly = true)
+    public NoteDto getNoteById(Long noteId, String username) {
+        // Before any statement: the user lookup may be the one that fixes the read snapshot
+        long generation = noteCache.generation();
         try {
-            Note note = noteRepository.findById(noteId)
-                .orElseThrow(() -> new ResourceNotFoundException("Note not found"));
-
             User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
+            CachedNote cachedNote = loadNote(noteId, generation);
+
             // Check if user owns the note or is admin
-            if (!note.getUser().getId().equals(user.getId()) && !"ADMIN".equals(user.getRole())) {
+            if (!canAccess(cachedNote.getOwnerId(), user)) {
                 throw new AccessDeniedException("Access denied: You can only access your own notes");
             }
 
             // Check if note is expired
-            if (isNoteExpired(note)) {
+            if (cachedNote.isExpired(LocalDateTime.now())) {
                 throw new ResourceNotFoundException("Note has expired and is no longer available");
             }
 
-            // Decrypt content for response
+            User owner = cachedNote.getOwnerId().equals(user.getId()) ? user
+                : userRepository.findById(cachedNote.getOwnerId()).orElse(null);
+
+            // Decrypt content for response (no-op for plaintext cache entries)
             try {
-                note.setTitle(encryptionUtil.decrypt(note.getTitle()));
-                note.setContent(encryptionUtil.decrypt(note.getContent()));
+                return autosaveService.overlay(noteCache.toDto(cachedNote, owner));
             } catch (Exception decryptException) {
                 throw new RuntimeException("Failed to decrypt note content: " + decryptException.getMessage());
             }
-
-            return note;
         } catch (Exception e) {
-            if (e instanceof ResourceNotFoundException || e instanceof AccessDeniedException) {
+            if (e instanceof ResourceNotFoundException || e instanceof AccessDeniedException
+                || e instanceof LoadTimeoutException) {
                 throw e;
             }
             throw new RuntimeException("Failed to fetch note: " + e.getMessage());
         }
     }
 
+    /**
+     * Computes the ETag of a note without loading or decrypting its content:
+     * from the note cache, or else from a query for the version columns only
+     * @param noteId The ID of the note
+     * @param username The username of the requesting user
+     * @return The ETag, or null if the note is missing, expired or not the user's
+     *         (the caller then takes the normal path, which reports the error)
+     */
+    @Transactional(readOnly = true)
+    public String getNoteETag(Long noteId, String username) {
+        User user = userRepository.findByUsername(username).orElse(null);
+        if (user == null) {
+            return null;
+        }
+
+        Long ownerId;
+        LocalDateTime updatedAt;
+        LocalDateTime expirationTime;
+        String shareToken;
+        LocalDateTime shareExpirationTime;
+        CachedNote cachedNote = noteCache.get(noteId);
+        if (cachedNote != null) {
+            ownerId = cachedNote.getOwnerId();
+            updatedAt = cachedNote.getUpdatedAt();
+            expirationTime = cachedNote.getExpirationTime();
+            shareToken = cachedNote.getShareToken();
+            shareExpirationTime = cachedNote.getShareExpirationTime();
+        } else {
+            Optional<NoteVersionView> version = noteRepository.findVersionById(noteId);
+            if (version.isEmpty()) {
+                return null;
+            }
+            ownerId = version.get().getOwnerId();
+            updatedAt = version.get().getUpdatedAt();
+            expirationTime = version.get().getExpirationTime();
+            shareToken = version.get().getShareToken();
+            shareExpirationTime = version.get().getShareExpirationTime();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (!canAccess(ownerId, user)) {
+            return null;
+        }
+        if (expirationTime != null && now.isAfter(expirationTime)) {
+            return null;
+        }
+        // Same rule as NoteCache.toDto: an expired share link is left out of the response
+        boolean shareExpired = shareExpirationTime != null && !now.isBefore(shareExpirationTime);
+        return ETags.forNote(noteId, autosaveService.effectiveUpdatedAt(noteId, updatedAt),
+            shareExpired ? null : shareToken, shareExpirationTime);
+    }
+
+    /**
+     * Loads a note through the note cache; concurrent misses for the same
+     * note share one load, which caches the note
+     * @param noteId The ID of the note
+     * @param generation The note cache generation, read before the transaction's first statement
+     * @return The cache entry
+     */
+    private CachedNote loadNote(Long noteId, long generation) {
+        CachedNote cachedNote = noteCache.get(noteId);
+        if (cachedNote != null) {
+            return cachedNote;
+        }
+        return noteLoadCoalescer.loadById(noteId, generation, () -> {
+            Note note = noteRepository.findById(noteId)
+                .orElseThrow(() -> new ResourceNotFoundException("Note not found"));
+            try {
+                return noteCache.put(note, generation);
+            } catch (Exception decryptException) {
+                throw new RuntimeException("Failed to decrypt note content: " + decryptException.getMessage());
+            }
+        });
+    }
+
     /**
      * Fetches all notes for a specific user
      * @param username The username of the user
      * @return List of notes with decrypted content
      */
-    public List<Note> getNotesByUser(String username) {
+    @Transactional(readOnly = true)
+    public List<NoteDto> getNotesByUser(String username) {
         try {
             User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
@@ -144,20 +283,19 @@ public class NoteService {
             List<Note> notes = noteRepository.findByUserOrderByCreatedAtDesc(user);
 
             // Filter out expired notes and decrypt content for remaining notes
-            List<Note> validNotes = new ArrayList<>();
+            List<NoteDto> validNotes = new ArrayList<>();
             for (Note note : notes) {
                 // Skip expired notes
                 if (isNoteExpired(note)) {
                     continue;
                 }
                 
-                try {
-                    note.setTitle(encryptionUtil.decrypt(note.getTitle()));
-                    note.setContent(encryptionUtil.decrypt(note.getContent()));
-                    validNotes.add(note);
-                } catch (Exception decryptException) {
-                    throw new RuntimeException("Failed to decrypt note content: " + decryptException.getMessage());
-                }
+                validNotes.add(autosaveService.overlay(decryptForList(note, "list")));
+            }
+
+            // A list read from a lagging replica must not become the version If-None-Match is checked against
+            if (ReplicaRoutingDataSource.isReplicaRead()) {
+                noteListVersions.invalidate(user.getId());
             }
 
             return validNotes;
@@ -168,6 +306,85 @@ public class NoteService {
         }
     }
 
+    /**
+     * Returns what changed in a user's notes since a sync cursor: notes created
+     * or updated after it, and tombstones for notes deleted or expired after it.
+     * An unchanged account costs one indexed query. Without a cursor, or with one
+     * older than the tombstone retention, all live notes are returned (full resync).
+     * @param username The username of the user
+     * @param since The cursor returned by the previous sync, or null
+     * @return Changed notes with decrypted content, tombstones and the next cursor
+     */
+    @Transactional(readOnly = true)
+    public NoteSyncResponse getChangesSince(String username, LocalDateTime since) {
+        try {
+            User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+
+            LocalDateTime now = LocalDateTime.now();
+            // Lag the cursor so a write committed just after this read, but stamped
+            // just before it, is still picked up next time; clients dedupe by note id
+            LocalDateTime cursor = now.minus(cursorLag);
+
+            if (since == null || since.isBefore(now.minus(tombstoneRetention))) {
+                List<NoteDto> notes = new ArrayList<>();
+                for (Note note : noteRepository.findByUserOrderByCreatedAtDesc(user)) {
+                    if (!isNoteExpired(note)) {
+                        notes.add(decryptForList(note, "sync"));
+                    }
+                }
+                return new NoteSyncResponse(true, notes, List.of(), cursor);
+            }
+
+            List<NoteChangeView> changes = noteRepository.findChangesSince(user.getId(), since);
+            if (changes.isEmpty()) {
+                return new NoteSyncResponse(false, List.of(), List.of(), cursor);
+            }
+
+            List<Long> changedIds = new ArrayList<>();
+            List<NoteSyncResponse.DeletedNote> deleted = new ArrayList<>();
+            for (NoteChangeView change : changes) {
+                if (change.getReason() == null) {
+                    changedIds.add(change.getNoteId());
+                } else {
+                    deleted.add(new NoteSyncResponse.DeletedNote(change.getNoteId(), change.getChangedAt(), change.getReason()));
+                }
+            }
+
+            List<NoteDto> notes = new ArrayList<>(changedIds.size());
+            if (!changedIds.isEmpty()) {
+                for (Note note : noteRepository.findAllById(changedIds)) {
+                    // Changed, then expired before cleanup got to it: report it gone now
+                    if (isNoteExpired(note)) {
+                        deleted.add(new NoteSyncResponse.DeletedNote(note.getId(), note.getExpirationTime(),
+                            NoteTombstone.Reason.EXPIRED.name()));
+                    } else {
+                        notes.add(decryptForList(note, "sync"));
+                    }
+                }
+            }
+
+            return new NoteSyncResponse(false, notes, deleted, cursor);
+        } catch (ResourceNotFoundException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to sync notes: " + e.getMessage());
+        }
+    }
+
+    private NoteDto decryptForList(Note note, String source) {
+        try {
+            NoteDecryptEvent event = new NoteDecryptEvent();
+            event.begin();
+            String title = encryptionUtil.decrypt(note.getTitle());
+            String content = encryptionUtil.decrypt(note.getContent());
+            event.complete(note.getId(), source, note.getTitle(), note.getContent(), title, content);
+            return NoteDto.from(note, title, content);
+        } catch (Exception decryptException) {
+            throw new RuntimeException("Failed to decrypt note content: " + decryptException.getMessage());
+        }
+    }
+
     /**
      * Updates an existing note
      * @param noteId The ID of the note to update
@@ -175,50 +392,191 @@ public class NoteService {
      * @param username The username of the requesting user
      * @return The updated note with decrypted content
      */
-    public Note updateNote(Long noteId, Note updatedNote, String username) {
+    @Transactional
+    public NoteDto updateNote(Long noteId, Note updatedNote, String username) {
         try {
-            Note existingNote = noteRepository.findById(noteId)
-                .orElseThrow(() -> new ResourceNotFoundException("Note not found"));
+            User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+
+            // A buffered autosave is the version the client was shown; write it first so the versions line up
+            autosaveService.writePending(noteId);
+
+            // The note as it is now, read as a projection so no entity is loaded or managed. The update
+            // only applies at this version, so whatever it does not write is still true afterwards and
+            // the response needs no read after the write.
+            NoteVersionView current;
+            NoteRevisionService.Base base = null;
+            if (noteRevisionService.isEnabled()) {
+                // History needs the title and content being replaced
+                NoteContentView view = noteRepository.findContentById(noteId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Note not found"));
+                base = NoteRevisionService.Base.of(view);
+                current = view;
+            } else {
+                current = noteRepository.findVersionById(noteId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Note not found"));
+            }
+
+            // Clients that predate versions send none; they keep last-writer-wins against the version read here
+            Long baseVersion = updatedNote.getVersion();
+            if (baseVersion != null && !baseVersion.equals(current.getVersion())) {
+                throw updateRejected(noteId, user, LocalDateTime.now());
+            }
+            baseVersion = current.getVersion();
+
+            // Encrypt updated content; PUT replaces the note, so no content means empty content
+            String content = updatedNote.getContent() != null ? updatedNote.getContent() : "";
+            String encryptedTitle = encryptionUtil.encrypt(updatedNote.getTitle());
+            String encryptedContent = encryptionUtil.encryptChunked(content);
+
+            // Ownership, expiry and version are checked by the update itself, so no row is locked
+            LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+            int updated = noteRepository.updateContentIfVersion(noteId, baseVersion, user.getId(),
+                user.getRole() == Role.ADMIN, encryptedTitle, encryptedContent, now);
+            if (updated == 0) {
+                throw updateRejected(noteId, user, now);
+            }
+            if (base != null) {
+                noteRevisionService.record(base, content);
+            }
+
+            Note savedNote = Note.builder()
+                .id(noteId)
+                .title(encryptedTitle)
+                .content(encryptedContent)
+                .createdAt(current.getCreatedAt())
+                .updatedAt(now)
+                .expirationTime(current.getExpirationTime())
+                .shareToken(current.getShareToken())
+                .shareExpirationTime(current.getShareExpirationTime())
+                .ownerId(current.getOwnerId())
+                .user(owner(current.getOwnerId(), user))
+                .version(baseVersion + 1)
+                .build();
+            eventPublisher.publishEvent(NoteChangedEvent.updated(savedNote));
+
+            return NoteDto.from(savedNote, updatedNote.getTitle(), content);
+        } catch (ResourceNotFoundException | AccessDeniedException | VersionConflictException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to update note: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The one ownership rule for reads, ETags, writes and deletes: the owner or an admin
+     */
+    private static boolean canAccess(Long ownerId, User user) {
+        return ownerId.equals(user.getId()) || user.getRole() == Role.ADMIN;
+    }
 
+    /**
+     * @return The owner of a note, read only when an admin writes someone else's note
+     */
+    private User owner(Long ownerId, User user) {
+        return ownerId.equals(user.getId()) ? user : userRepository.findById(ownerId).orElse(null);
+    }
+
+    /**
+     * Works out which condition of a conditional update failed
+     */
+    private RuntimeException updateRejected(Long noteId, User user, LocalDateTime now) {
+        NoteVersionView current = noteRepository.findVersionById(noteId).orElse(null);
+        if (current == null) {
+            return new ResourceNotFoundException("Note not found");
+        }
+        if (!canAccess(current.getOwnerId(), user)) {
+            return new AccessDeniedException("Access denied: You can only update your own notes");
+        }
+        if (current.getExpirationTime() != null && now.isAfter(current.getExpirationTime())) {
+            return new ResourceNotFoundException("Note has expired and is no longer available");
+        }
+        return new VersionConflictException("Note has been changed by another update", current.getVersion());
+    }
+
+    /**
+     * Applies a text diff to a note. Only the encrypted content chunks the edits fall
+     * into are decrypted and re-encrypted, so the cost follows the edit, not the note.
+     * @param noteId The ID of the note to patch
+     * @param patch Edits against the base version, and optionally a new title
+     * @param ifMatch The If-Match header, which must hold the note's current ETag
+     * @param username The username of the requesting user
+     * @return The new version of the note, without content
+     * @throws PreconditionFailedException If the note has changed since the base version
+     * @throws IllegalArgumentException If an edit does not fit the base text
+     */
+    @Transactional
+    public NotePatchResponse patchNote(Long noteId, NotePatchRequest patch, String ifMatch, String username) {
+        try {
             User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
+            Note note = noteRepository.findById(noteId)
+                .orElseThrow(() -> new ResourceNotFoundException("Note not found"));
+
             // Check if user owns the note or is admin
-            if (!existingNote.getUser().getId().equals(user.getId()) && !"ADMIN".equals(user.getRole())) {
+            if (!canAccess(note.getOwnerId(), user)) {
                 throw new AccessDeniedException("Access denied: You can only update your own notes");
             }
 
-            // Encrypt updated content
-            String encryptedTitle = encryptionUtil.encrypt(updatedNote.getTitle());
-            String encryptedContent = encryptionUtil.encrypt(updatedNote.getContent());
+            // The client's base may be a buffered autosave; write it first so the ETags line up
+            autosaveService.writePending(noteId);
 
-            existingNote.setTitle(encryptedTitle);
-            existingNote.setContent(encryptedContent);
-            existingNote.setUpdatedAt(LocalDateTime.now());
+            LocalDateTime now = LocalDateTime.now();
+            if (note.getExpirationTime() != null && now.isAfter(note.getExpirationTime())) {
+                throw new ResourceNotFoundException("Note has expired and is no longer available");
+            }
 
-            Note savedNote = noteRepository.save(existingNote);
+            String etag = noteETag(note, now);
+            if (!ETags.matchesStrong(ifMatch, etag)) {
+                throw new PreconditionFailedException("Note has changed since the base version", etag);
+            }
+
+            NoteRevisionService.Base base = NoteRevisionService.Base.of(note);
+            List<EncryptionUtil.TextEdit> edits = patch.edits() != null ? patch.edits() : List.of();
+            EncryptionUtil.PatchResult result = encryptionUtil.patch(note.getContent(), edits);
+            note.setContent(result.getCiphertext());
+            if (patch.title() != null) {
+                if (patch.title().isBlank()) {
+                    throw new IllegalArgumentException("Title must not be blank");
+                }
+                note.setTitle(encryptionUtil.encrypt(patch.title()));
+            }
+            // Stored with microsecond precision; the returned ETag must match what a reload computes
+            note.setUpdatedAt(now.truncatedTo(ChronoUnit.MICROS));
 
-            // Decrypt content for response
+            // The version check on flush catches a write that landed after the ETag was compared
+            Note savedNote;
             try {
-                savedNote.setTitle(encryptionUtil.decrypt(savedNote.getTitle()));
-                savedNote.setContent(encryptionUtil.decrypt(savedNote.getContent()));
-            } catch (Exception decryptException) {
-                throw new RuntimeException("Failed to decrypt updated note content: " + decryptException.getMessage());
+                savedNote = noteRepository.saveAndFlush(note);
+            } catch (ObjectOptimisticLockingFailureException e) {
+                throw new PreconditionFailedException("Note has changed since the base version", null);
             }
+            noteRevisionService.record(base, result.getReverseEdits());
+            eventPublisher.publishEvent(NoteChangedEvent.updated(savedNote));
 
-            return savedNote;
-        } catch (ResourceNotFoundException | AccessDeniedException e) {
+            return new NotePatchResponse(savedNote.getId(), savedNote.getUpdatedAt(), noteETag(savedNote, now),
+                savedNote.getVersion(), result.getLength(), result.getChunks(), result.getChunksRewritten());
+        } catch (ResourceNotFoundException | AccessDeniedException | PreconditionFailedException
+                 | IllegalArgumentException e) {
             throw e;
         } catch (Exception e) {
-            throw new RuntimeException("Failed to update note: " + e.getMessage());
+            throw new RuntimeException("Failed to patch note: " + e.getMessage());
         }
     }
 
+    private static String noteETag(Note note, LocalDateTime now) {
+        boolean shareExpired = note.getShareExpirationTime() != null && !now.isBefore(note.getShareExpirationTime());
+        return ETags.forNote(note.getId(), note.getUpdatedAt(), shareExpired ? null : note.getShareToken(),
+            note.getShareExpirationTime());
+    }
+
     /**
      * Deletes a note
      * @param noteId The ID of the note to delete
      * @param username The username of the requesting user
      */
+    @Transactional
     public void deleteNote(Long noteId, String username) {
         try {
             Note note = noteRepository.findById(noteId)
@@ -228,11 +586,13 @@ public class NoteService {
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
             // Check if user owns the note or is admin
-            if (!note.getUser().getId().equals(user.getId()) && !"ADMIN".equals(user.getRole())) {
+            if (!canAccess(note.getOwnerId(), user)) {
                 throw new AccessDeniedException("Access denied: You can only delete your own notes");
             }
 
             noteRepository.delete(note);
+            noteTombstoneRepository.save(NoteTombstone.deleted(note));
+            eventPublisher.publishEvent(NoteChangedEvent.deleted(note));
         } catch (ResourceNotFoundException | AccessDeniedException e) {
             throw e;
         } catch (Exception e) {
@@ -247,6 +607,7 @@ public class NoteService {
      * @param expirationHours How many hours the share link should be valid
      * @return The generated share token
      */
+    @Transactional
     public String generateShareToken(Long noteId, String username, int expirationHours) {
         try {
             Note note = noteRepository.findById(noteId)
@@ -265,11 +626,16 @@ public class NoteService {
             
             // Set expiration time
             LocalDateTime expirationTime = LocalDateTime.now().plusHours(expirationHours);
+            String previousShareToken = note.getShareToken();
             
             note.setShareToken(shareToken);
             note.setShareExpirationTime(expirationTime);
+            // Share state is part of the note for delta sync
+            note.setUpdatedAt(LocalDateTime.now());
             
-            noteRepository.save(note);
+            // Flushed so the event carries the bumped version
+            noteRepository.saveAndFlush(note);
+            eventPublisher.publishEvent(NoteChangedEvent.shared(note, previousShareToken));
             
             return shareToken;
         } catch (ResourceNotFoundException | AccessDeniedException e) {
@@ -281,43 +647,98 @@ public class NoteService {
 
     /**
      * Gets a note by share token if it's valid and not expired
+     * Unknown tokens are rejected by the share token filter without a query;
+     * known tokens are resolved to a note id by the share token index and the
+     * note is loaded by primary key (or served from the note cache). Tokens the
+     * index does not know are looked up by query and added to it.
      * @param shareToken The share token
      * @return The note with decrypted content
      */
-    public Note getNoteByShareToken(String shareToken) {
+    @Transactional(readOnly = true)
+    public NoteDto getNoteByShareToken(String shareToken) {
+        long generation = noteCache.generation();
         try {
-            // Clean up expired tokens first
-            noteRepository.invalidateExpiredShareTokens(LocalDateTime.now());
-            
-            Note note = noteRepository.findByShareTokenAndNotExpired(shareToken, LocalDateTime.now())
-                .orElseThrow(() -> new ResourceNotFoundException("Share link not found or expired"));
+            if (!shareTokenFilter.mightExist(shareToken)) {
+                throw new ResourceNotFoundException("Share link not found or expired");
+            }
+
+            if (!shareTokenIndex.isReady()) {
+                return getNoteByShareTokenQuery(shareToken, generation);
+            }
+
+            long noteId = shareTokenIndex.lookup(shareToken);
+            if (noteId == ShareTokenIndex.NOT_FOUND) {
+                // Past the filter, so likely real: shared on another node or missed by an event
+                return getNoteByShareTokenQuery(shareToken, generation);
+            }
+
+            CachedNote cachedNote;
+            try {
+                cachedNote = loadNote(noteId, generation);
+            } catch (ResourceNotFoundException e) {
+                throw new ResourceNotFoundException("Share link not found or expired");
+            }
+
+            // The note row is authoritative; the index only points at it
+            LocalDateTime now = LocalDateTime.now();
+            if (!shareToken.equals(cachedNote.getShareToken()) || cachedNote.isShareExpired(now)) {
+                throw new ResourceNotFoundException("Share link not found or expired");
+            }
 
             // Check if the note itself is expired
-            if (isNoteExpired(note)) {
+            if (cachedNote.isExpired(now)) {
                 throw new ResourceNotFoundException("Note has expired and is no longer available");
             }
 
-            // Decrypt content for response
+            User owner = userRepository.findById(cachedNote.getOwnerId()).orElse(null);
+
+            // Decrypt content for response (no-op for plaintext cache entries)
             try {
-                note.setTitle(encryptionUtil.decrypt(note.getTitle()));
-                note.setContent(encryptionUtil.decrypt(note.getContent()));
+                return autosaveService.overlay(noteCache.toDto(cachedNote, owner));
             } catch (Exception decryptException) {
                 throw new RuntimeException("Failed to decrypt shared note content: " + decryptException.getMessage());
             }
-
-            return note;
-        } catch (ResourceNotFoundException e) {
+        } catch (ResourceNotFoundException | LoadTimeoutException e) {
             throw e;
         } catch (Exception e) {
             throw new RuntimeException("Failed to fetch shared note: " + e.getMessage());
         }
     }
 
+    /**
+     * Resolves a share token with a query, used until the share token index is built,
+     * when it is disabled (app.share-index.enabled=false) or when it misses.
+     * Concurrent requests for the same token share one query and decrypt.
+     */
+    private NoteDto getNoteByShareTokenQuery(String shareToken, long generation) throws Exception {
+        CachedNote cachedNote = noteLoadCoalescer.loadByShareToken(shareToken, generation, () -> {
+            Note note = noteRepository.findByShareTokenAndNotExpired(shareToken, LocalDateTime.now())
+                .orElseThrow(() -> new ResourceNotFoundException("Share link not found or expired"));
+            try {
+                return noteCache.put(note, generation);
+            } catch (Exception decryptException) {
+                throw new RuntimeException("Failed to decrypt shared note content: " + decryptException.getMessage());
+            }
+        });
+        if (shareTokenIndex.isReady()) {
+            shareTokenIndex.put(shareToken, cachedNote.getNoteId(), cachedNote.getShareExpirationTime());
+        }
+
+        // Check if the note itself is expired
+        if (cachedNote.isExpired(LocalDateTime.now())) {
+            throw new ResourceNotFoundException("Note has expired and is no longer available");
+        }
+
+        User owner = userRepository.findById(cachedNote.getOwnerId()).orElse(null);
+        return autosaveService.overlay(noteCache.toDto(cachedNote, owner));
+    }
+
     /**
      * Revokes a share token for a note
      * @param noteId The ID of the note
      * @param username The username of the requesting user
      */
+    @Transactional
     public void revokeShareToken(Long noteId, String username) {
         try {
             Note note = noteRepository.findById(noteId)
@@ -331,10 +752,13 @@ public class NoteService {
                 throw new AccessDeniedException("Access denied: You can only revoke share tokens for your own notes");
             }
 
+            String previousShareToken = note.getShareToken();
             note.setShareToken(null);
             note.setShareExpirationTime(null);
+            note.setUpdatedAt(LocalDateTime.now());
             
-            noteRepository.save(note);
+            noteRepository.saveAndFlush(note);
+            eventPublisher.publishEvent(NoteChangedEvent.shareRevoked(note, previousShareToken));
         } catch (ResourceNotFoundException | AccessDeniedException e) {
             throw e;
         } catch (Exception e) {
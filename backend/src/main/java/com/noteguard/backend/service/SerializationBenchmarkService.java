@@ -0,0 +1,299 @@
+package com.noteguard.backend.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.noteguard.backend.config.JacksonConfig;
+import com.noteguard.backend.dto.ApiResponse;
+import com.noteguard.backend.dto.NoteDto;
+import com.noteguard.backend.model.Note;
+import com.noteguard.backend.model.Role;
+import com.noteguard.backend.model.User;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares the API's wire formats on a synthetic note list shaped like a real
+ * GET /api/notes/user response: one {@code ApiResponse<List<NoteDto>>} per format,
+ * encoded and decoded with the same mappers the message converters use.
+ *
+ * The "json-entity" row is the baseline the DTOs replaced: the same notes as JPA
+ * entities (with the nested owner) through a mapper without Blackbird.
+ *
+ * The corpus is generated from a fixed seed, so sizes are reproducible. Timings
+ * come from the live JVM and include whatever else the server is doing; compare
+ * formats within one run rather than across runs. Only one comparison runs at a time.
+ */
+@Service
+public class SerializationBenchmarkService {
+
+    public static final int MAX_NOTES = 5000;
+    public static final int MAX_ITERATIONS = 200;
+
+    private static final TypeReference<ApiResponse<List<NoteDto>>> NOTE_LIST = new TypeReference<>() {
+    };
+    private static final TypeReference<ApiResponse<List<Note>>> ENTITY_LIST = new TypeReference<>() {
+    };
+
+    private static final String[] WORDS = {
+        "the", "meeting", "notes", "project", "deadline", "review", "client", "budget", "draft", "update",
+        "follow", "up", "with", "team", "on", "for", "and", "to", "of", "a", "in", "next", "week", "todo",
+        "password", "reset", "server", "deploy", "release", "version", "fix", "bug", "customer", "call",
+        "agenda", "idea", "research", "summary", "decision", "action", "item", "owner", "status", "blocked",
+        "done", "pending", "schedule", "travel", "invoice", "payment", "recipe", "grocery", "list", "book",
+        "chapter", "reading", "workout", "plan", "goal", "quarter", "roadmap", "design", "api", "database",
+        "migration", "backup", "key", "account", "phone", "address", "birthday", "gift", "reminder", "check"
+    };
+
+    private final ObjectMapper jsonMapper;
+    private final CBORMapper cborMapper;
+    private final SmileMapper smileMapper;
+    private final ObjectMapper baselineMapper = JacksonConfig.configure(new ObjectMapper());
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public SerializationBenchmarkService(ObjectMapper jsonMapper, CBORMapper cborMapper, SmileMapper smileMapper) {
+        this.jsonMapper = jsonMapper;
+        this.cborMapper = cborMapper;
+        this.smileMapper = smileMapper;
+    }
+
+    /**
+     * @param noteCount Notes in the corpus, capped at {@link #MAX_NOTES}
+     * @param iterations Timed encode/decode rounds per format after warm-up, capped at {@link #MAX_ITERATIONS}
+     * @throws IllegalStateException If a comparison is already running
+     */
+    public SerializationReport compare(int noteCount, int iterations) throws IOException {
+        if (!lock.tryLock()) {
+            throw new IllegalStateException("A comparison is already running");
+        }
+        try {
+            int notes = Math.min(Math.max(noteCount, 1), MAX_NOTES);
+            int rounds = Math.min(Math.max(iterations, 1), MAX_ITERATIONS);
+            List<Note> entities = corpus(notes);
+            List<NoteDto> dtos = new ArrayList<>(entities.size());
+            for (Note note : entities) {
+                dtos.add(NoteDto.from(note, note.getTitle(), note.getContent()));
+            }
+            ApiResponse<List<NoteDto>> payload = new ApiResponse<>("Notes retrieved successfully", dtos, true);
+
+            List<FormatResult> results = new ArrayList<>();
+            results.add(measure("json", MediaType.APPLICATION_JSON_VALUE, jsonMapper, payload, NOTE_LIST, rounds));
+            results.add(measure("cbor", MediaType.APPLICATION_CBOR_VALUE, cborMapper, payload, NOTE_LIST, rounds));
+            results.add(measure("smile", "application/x-jackson-smile", smileMapper, payload, NOTE_LIST, rounds));
+            results.add(measure("json-entity", MediaType.APPLICATION_JSON_VALUE, baselineMapper,
+                new ApiResponse<>("Notes retrieved successfully", entities, true), ENTITY_LIST, rounds));
+
+            long jsonBytes = results.get(0).getPayloadBytes();
+            for (FormatResult result : results) {
+                result.sizeVsJson = (double) result.getPayloadBytes() / jsonBytes;
+            }
+            return new SerializationReport(notes, rounds, results);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static <T> FormatResult measure(String format, String mediaType, ObjectMapper mapper,
+                                            ApiResponse<List<T>> payload, TypeReference<ApiResponse<List<T>>> type,
+                                            int rounds) throws IOException {
+        byte[] encoded = mapper.writeValueAsBytes(payload);
+        if (mapper.readValue(encoded, type).getData().size() != payload.getData().size()) {
+            throw new IllegalStateException("Round trip lost notes for " + format);
+        }
+
+        // Warm-up, so the timed rounds do not measure class loading and the first JIT compiles
+        int warmup = Math.max(rounds / 2, 5);
+        for (int i = 0; i < warmup; i++) {
+            mapper.readValue(mapper.writeValueAsBytes(payload), type);
+        }
+
+        long encodeNanos = 0;
+        long decodeNanos = 0;
+        for (int i = 0; i < rounds; i++) {
+            long start = System.nanoTime();
+            byte[] bytes = mapper.writeValueAsBytes(payload);
+            long encodedAt = System.nanoTime();
+            mapper.readValue(bytes, type);
+            decodeNanos += System.nanoTime() - encodedAt;
+            encodeNanos += encodedAt - start;
+        }
+
+        return new FormatResult(format, mediaType, encoded.length, gzipSize(encoded),
+            encodeNanos / (double) rounds / 1_000_000.0, decodeNanos / (double) rounds / 1_000_000.0);
+    }
+
+    private static int gzipSize(byte[] bytes) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(bytes.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(bytes);
+        }
+        return buffer.size();
+    }
+
+    /**
+     * Notes shaped like production data: short titles, mostly short bodies with a
+     * long tail, about a third shared and a fifth expiring
+     */
+    static List<Note> corpus(int count) {
+        Random random = new Random(42);
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 9, 0);
+
+        User owner = new User();
+        owner.setId(1L);
+        owner.setUsername("alice");
+        owner.setEmail("alice@example.com");
+        owner.setRole(Role.USER);
+        owner.setCreatedAt(base);
+
+        List<Note> notes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int bucket = random.nextInt(10);
+            int contentLength = bucket < 6 ? 200 + random.nextInt(600)
+                : bucket < 9 ? 1_000 + random.nextInt(3_000)
+                : 8_000 + random.nextInt(24_000);
+            LocalDateTime createdAt = base.plusMinutes(random.nextInt(500_000));
+
+            Note note = new Note();
+            note.setId((long) i + 1);
+            note.setTitle(text(random, 20 + random.nextInt(40)));
+            note.setContent(text(random, contentLength));
+            note.setCreatedAt(createdAt);
+            note.setUpdatedAt(createdAt.plusMinutes(random.nextInt(10_000)));
+            if (random.nextInt(5) == 0) {
+                note.setExpirationTime(createdAt.plusDays(1 + random.nextInt(30)));
+            }
+            if (random.nextInt(3) == 0) {
+                note.setShareToken(new UUID(random.nextLong(), random.nextLong()).toString());
+                note.setShareExpirationTime(createdAt.plusHours(1 + random.nextInt(168)));
+            }
+            note.setUser(owner);
+            note.setOwnerId(owner.getId());
+            notes.add(note);
+        }
+        return notes;
+    }
+
+    private static String text(Random random, int length) {
+        StringBuilder text = new StringBuilder(length + 16);
+        boolean sentenceStart = true;
+        while (text.length() < length) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            if (sentenceStart) {
+                text.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+            } else {
+                text.append(word);
+            }
+            int punctuation = random.nextInt(40);
+            sentenceStart = punctuation < 3;
+            if (punctuation == 0) {
+                text.append(".\n\n");
+            } else if (punctuation < 3) {
+                text.append(". ");
+            } else if (punctuation == 3) {
+                text.append(", ");
+            } else {
+                text.append(' ');
+            }
+        }
+        return text.substring(0, length).trim();
+    }
+
+    // Inner class for one format's figures; times in milliseconds per full payload
+    public static class FormatResult {
+        private final String format;
+        private final String mediaType;
+        private final int payloadBytes;
+        private final int gzipBytes;
+        private final double encodeMs;
+        private final double decodeMs;
+        private double sizeVsJson;
+
+        public FormatResult(String format, String mediaType, int payloadBytes, int gzipBytes,
+                            double encodeMs, double decodeMs) {
+            this.format = format;
+            this.mediaType = mediaType;
+            this.payloadBytes = payloadBytes;
+            this.gzipBytes = gzipBytes;
+            this.encodeMs = encodeMs;
+            this.decodeMs = decodeMs;
+        }
+
+        public String getFormat() {
+            return format;
+        }
+
+        public String getMediaType() {
+            return mediaType;
+        }
+
+        public int getPayloadBytes() {
+            return payloadBytes;
+        }
+
+        /**
+         * Size after gzip, for comparison with a compressed JSON response
+         */
+        public int getGzipBytes() {
+            return gzipBytes;
+        }
+
+        public double getEncodeMs() {
+            return encodeMs;
+        }
+
+        public double getDecodeMs() {
+            return decodeMs;
+        }
+
+        /**
+         * Encode throughput in megabytes of output per second
+         */
+        public double getEncodeMbPerSecond() {
+            return encodeMs > 0 ? payloadBytes / 1_000_000.0 / (encodeMs / 1000.0) : 0;
+        }
+
+        /**
+         * Payload size relative to JSON (1.0 = same size)
+         */
+        public double getSizeVsJson() {
+            return sizeVsJson;
+        }
+    }
+
+    // Inner class for the comparison payload
+    public static class SerializationReport {
+        private final int notes;
+        private final int iterations;
+        private final List<FormatResult> formats;
+
+        public SerializationReport(int notes, int iterations, List<FormatResult> formats) {
+            this.notes = notes;
+            this.iterations = iterations;
+            this.formats = formats;
+        }
+
+        public int getNotes() {
+            return notes;
+        }
+
+        public int getIterations() {
+            return iterations;
+        }
+
+        public List<FormatResult> getFormats() {
+            return formats;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.noteguard.backend.service;
+
+import com.noteguard.backend.event.NoteChangedEvent;
+import com.noteguard.backend.repository.NoteRepository;
+import com.noteguard.backend.util.BloomFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory Bloom filter of live share tokens, consulted before the public
+ * share endpoint touches the database. Random or stale tokens are rejected
+ * without a query; only tokens that might exist fall through to the lookup.
+ *
+ * Built at startup from notes.share_token, updated when a note is shared and
+ * rebuilt periodically to forget revoked and expired tokens.
+ */
+@Service
+public class ShareTokenFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShareTokenFilter.class);
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Value("${app.share-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.share-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${app.share-filter.min-capacity:10000}")
+    private long minCapacity;
+
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder passed = new LongAdder();
+
+    // null until the first build completes; lookups pass through until then
+    private volatile BloomFilter filter;
+
+    // Tokens added while a rebuild is loading, replayed into the new filter
+    private volatile Set<String> rebuildJournal;
+
+    private volatile LocalDateTime lastRebuild;
+
+    /**
+     * @param shareToken The token from the request
+     * @return false if the token definitely does not exist, true if it might
+     */
+    public boolean mightExist(String shareToken) {
+        BloomFilter current = filter;
+        if (!enabled || current == null) {
+            return true;
+        }
+        if (current.mightContain(shareToken)) {
+            passed.increment();
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    /**
+     * Adds new share tokens synchronously, before generateShareToken returns them
+     */
+    @EventListener
+    public void onNoteChanged(NoteChangedEvent event) {
+        if (event.getType() == NoteChangedEvent.Type.SHARED && event.getShareToken() != null) {
+            add(event.getShareToken());
+        }
+    }
+
+    /**
+     * Adds new share tokens again once they are committed. A rebuild that queried
+     * before the commit built its filter without the token, and the add above may
+     * have run before that rebuild installed its journal; this one reaches the journal.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNoteChangeCommitted(NoteChangedEvent event) {
+        onNoteChanged(event);
+    }
+
+    private void add(String shareToken) {
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(shareToken);
+        }
+        Set<String> journal = rebuildJournal;
+        if (journal != null) {
+            journal.add(shareToken);
+        }
+        // A rebuild may have swapped filters in between; never lose a token
+        BloomFilter latest = filter;
+        if (latest != null && latest != current) {
+            latest.put(shareToken);
+        }
+    }
+
+    /**
+     * Rebuilds the filter from the live share tokens in the database.
+     * Runs at startup and every app.share-filter.rebuild-interval-ms (default 1 hour).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.share-filter.rebuild-interval-ms:3600000}",
+               initialDelayString = "${app.share-filter.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        if (!enabled || !rebuildLock.tryLock()) {
+            return;
+        }
+        try {
+            Set<String> journal = ConcurrentHashMap.newKeySet();
+            rebuildJournal = journal;
+
+            List<String> tokens = noteRepository.findActiveShareTokens(LocalDateTime.now());
+            BloomFilter rebuilt = new BloomFilter(Math.max(minCapacity, tokens.size() * 2L), falsePositiveRate);
+            tokens.forEach(rebuilt::put);
+
+            filter = rebuilt;
+            journal.forEach(rebuilt::put);
+            rebuildJournal = null;
+            lastRebuild = LocalDateTime.now();
+
+            logger.info("Share token filter rebuilt: {} tokens, {} KB, expected false positive rate {}",
+                tokens.size(), rebuilt.getMemoryBytes() / 1024, String.format("%.5f", rebuilt.expectedFalsePositiveRate()));
+        } catch (Exception e) {
+            rebuildJournal = null;
+            logger.error("Error rebuilding share token filter: {}", e.getMessage(), e);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Get size, memory and false positive statistics of the filter
+     * @return ShareFilterStats snapshot
+     */
+    public ShareFilterStats getStats() {
+        BloomFilter current = filter;
+        if (current == null) {
+            return new ShareFilterStats(enabled, false, 0, 0, 0, 0, 0.0, rejected.sum(), passed.sum(), lastRebuild);
+        }
+        return new ShareFilterStats(enabled, true, current.getInsertions(), current.getBitSize(),
+            current.getHashCount(), current.getMemoryBytes(), current.expectedFalsePositiveRate(),
+            rejected.sum(), passed.sum(), lastRebuild);
+    }
+
+    // Inner class for statistics
+    public static class ShareFilterStats {
+        private final boolean enabled;
+        private final boolean ready;
+        private final long tokens;
+        private final long bitSize;
+        private final int hashCount;
+        private final long memoryBytes;
+        private final double expectedFalsePositiveRate;
+        private final long rejectedLookups;
+        private final long passedLookups;
+        private final LocalDateTime lastRebuild;
+
+        public ShareFilterStats(boolean enabled, boolean ready, long tokens, long bitSize, int hashCount,
+                                long memoryBytes, double expectedFalsePositiveRate, long rejectedLookups,
+                                long passedLookups, LocalDateTime lastRebuild) {
+            this.enabled = enabled;
+            this.ready = ready;
+            this.tokens = tokens;
+            this.bitSize = bitSize;
+            this.hashCount = hashCount;
+            this.memoryBytes = memoryBytes;
+            this.expectedFalsePositiveRate = expectedFalsePositiveRate;
+            this.rejectedLookups = rejectedLookups;
+            this.passedLookups = passedLookups;
+            this.lastRebuild = lastRebuild;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public boolean isReady() {
+            return ready;
+        }
+
+        public long getTokens() {
+            return tokens;
+        }
+
+        public long getBitSize() {
+            return bitSize;
+        }
+
+        public int getHashCount() {
+            return hashCount;
+        }
+
+        public long getMemoryBytes() {
+            return memoryBytes;
+        }
+
+        public double getExpectedFalsePositiveRate() {
+            return expectedFalsePositiveRate;
+        }
+
+        public long getRejectedLookups() {
+            return rejectedLookups;
+        }
+
+        public long getPassedLookups() {
+            return passedLookups;
+        }
+
+        public LocalDateTime getLastRebuild() {
+            return lastRebuild;
+        }
+    }
+}
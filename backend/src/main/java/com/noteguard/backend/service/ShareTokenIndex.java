@@ -0,0 +1,383 @@
+package com.noteguard.backend.service;
+
+import com.noteguard.backend.event.NoteChangedEvent;
+import com.noteguard.backend.repository.NoteRepository;
+import com.noteguard.backend.repository.ShareLinkView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * In-process index from share token to note id, so the public share endpoint
+ * resolves a token without a query and then loads the note by primary key.
+ *
+ * Tokens are UUIDs and are stored as their 128 bits in two longs, next to the
+ * note id and the share expiry (epoch millis), in parallel primitive arrays with
+ * linear probing. There are no boxed keys or per-entry objects.
+ *
+ * Built at startup and maintained from note share events; tokens it missed
+ * (shared on another node, or a lost event) are added when the fallback query
+ * finds them. Writers take a StampedLock write lock; readers probe
+ * optimistically and only fall back to a read lock if a write raced with them.
+ */
+@Service
+public class ShareTokenIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShareTokenIndex.class);
+
+    public static final long NOT_FOUND = -1L;
+
+    private static final int MIN_CAPACITY = 1024;
+    private static final int TOKEN_LENGTH = 36;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Value("${app.share-index.enabled:true}")
+    private boolean enabled;
+
+    private final StampedLock lock = new StampedLock();
+
+    // Replaced as a whole on resize, so a reader always sees arrays of one length
+    private volatile Table table = new Table(MIN_CAPACITY);
+
+    private volatile boolean ready;
+
+    /**
+     * @return true once the index is built; a miss is then checked with a query and added
+     */
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /**
+     * Resolves a share token to its note id
+     * @param shareToken The token from the request
+     * @return The note id, or NOT_FOUND if the token is unknown, malformed or expired
+     */
+    public long lookup(String shareToken) {
+        UUID uuid = parse(shareToken);
+        if (uuid == null) {
+            return NOT_FOUND;
+        }
+        long hi = uuid.getMostSignificantBits();
+        long lo = uuid.getLeastSignificantBits();
+        long now = System.currentTimeMillis();
+
+        long stamp = lock.tryOptimisticRead();
+        long result = probe(table, hi, lo, now);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                result = probe(table, hi, lo, now);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return result;
+    }
+
+    private static long probe(Table t, long hi, long lo, long now) {
+        int mask = t.noteIds.length - 1;
+        int slot = slot(hi, lo, mask);
+        // Bounded so a torn optimistic read can never spin forever
+        for (int i = 0; i <= mask; i++) {
+            long noteId = t.noteIds[slot];
+            if (noteId == 0) {
+                return NOT_FOUND;
+            }
+            if (t.hi[slot] == hi && t.lo[slot] == lo) {
+                return t.expiries[slot] > now ? noteId : NOT_FOUND;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NOT_FOUND;
+    }
+
+    public void put(String shareToken, long noteId, LocalDateTime shareExpirationTime) {
+        UUID uuid = parse(shareToken);
+        if (uuid == null || shareExpirationTime == null) {
+            return;
+        }
+        long expiry = toEpochMillis(shareExpirationTime);
+        long stamp = lock.writeLock();
+        try {
+            if ((table.size + 1) * 2 > table.noteIds.length) {
+                table = resize(table, table.noteIds.length * 2);
+            }
+            insert(table, uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), noteId, expiry);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private static void insert(Table t, long hi, long lo, long noteId, long expiry) {
+        int mask = t.noteIds.length - 1;
+        int slot = slot(hi, lo, mask);
+        while (t.noteIds[slot] != 0 && !(t.hi[slot] == hi && t.lo[slot] == lo)) {
+            slot = (slot + 1) & mask;
+        }
+        if (t.noteIds[slot] == 0) {
+            t.size++;
+        }
+        t.hi[slot] = hi;
+        t.lo[slot] = lo;
+        t.expiries[slot] = expiry;
+        t.noteIds[slot] = noteId;
+    }
+
+    public void remove(String shareToken) {
+        UUID uuid = parse(shareToken);
+        if (uuid == null) {
+            return;
+        }
+        long hi = uuid.getMostSignificantBits();
+        long lo = uuid.getLeastSignificantBits();
+        long stamp = lock.writeLock();
+        try {
+            Table t = table;
+            int mask = t.noteIds.length - 1;
+            int slot = slot(hi, lo, mask);
+            while (t.noteIds[slot] != 0) {
+                if (t.hi[slot] == hi && t.lo[slot] == lo) {
+                    delete(t, slot);
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Backward-shift deletion keeps probe chains intact without tombstones
+    private static void delete(Table t, int slot) {
+        int mask = t.noteIds.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (t.noteIds[next] != 0) {
+            int home = slot(t.hi[next], t.lo[next], mask);
+            boolean movable = hole <= next
+                ? (home <= hole || home > next)
+                : (home <= hole && home > next);
+            if (movable) {
+                t.hi[hole] = t.hi[next];
+                t.lo[hole] = t.lo[next];
+                t.expiries[hole] = t.expiries[next];
+                t.noteIds[hole] = t.noteIds[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        t.noteIds[hole] = 0;
+        t.hi[hole] = 0;
+        t.lo[hole] = 0;
+        t.expiries[hole] = 0;
+        t.size--;
+    }
+
+    private static Table resize(Table old, int capacity) {
+        Table resized = new Table(capacity);
+        for (int i = 0; i < old.noteIds.length; i++) {
+            if (old.noteIds[i] != 0) {
+                insert(resized, old.hi[i], old.lo[i], old.noteIds[i], old.expiries[i]);
+            }
+        }
+        return resized;
+    }
+
+    /**
+     * Adds new share tokens synchronously, before generateShareToken returns them
+     */
+    @EventListener
+    public void onNoteShared(NoteChangedEvent event) {
+        if (event.getType() == NoteChangedEvent.Type.SHARED && event.getShareToken() != null) {
+            put(event.getShareToken(), event.getNoteId(), event.getShareExpirationTime());
+        }
+    }
+
+    /**
+     * Drops replaced, revoked and deleted tokens once the change has committed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNoteChanged(NoteChangedEvent event) {
+        String previous = event.getPreviousShareToken();
+        if (previous != null && !previous.equals(event.getShareToken())) {
+            remove(previous);
+        }
+    }
+
+    /**
+     * Builds the index from the live share links in the database
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            List<ShareLinkView> links = noteRepository.findActiveShareLinks(LocalDateTime.now());
+            long stamp = lock.writeLock();
+            try {
+                Table built = new Table(capacityFor(links.size() + table.size));
+                // Keep tokens shared while the query was running
+                Table current = table;
+                for (int i = 0; i < current.noteIds.length; i++) {
+                    if (current.noteIds[i] != 0) {
+                        insert(built, current.hi[i], current.lo[i], current.noteIds[i], current.expiries[i]);
+                    }
+                }
+                for (ShareLinkView link : links) {
+                    UUID uuid = parse(link.getShareToken());
+                    if (uuid != null) {
+                        insert(built, uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(),
+                            link.getId(), toEpochMillis(link.getShareExpirationTime()));
+                    }
+                }
+                table = built;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            ready = true;
+            logger.info("Share token index built: {} tokens, {} KB", links.size(), table.memoryBytes() / 1024);
+        } catch (Exception e) {
+            logger.error("Error building share token index: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Drops expired entries and shrinks the table if it became sparse
+     */
+    @Scheduled(fixedDelayString = "${app.share-index.purge-interval-ms:3600000}",
+               initialDelayString = "${app.share-index.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        long stamp = lock.writeLock();
+        try {
+            Table current = table;
+            Table purged = new Table(capacityFor(current.size));
+            for (int i = 0; i < current.noteIds.length; i++) {
+                if (current.noteIds[i] != 0 && current.expiries[i] > now) {
+                    insert(purged, current.hi[i], current.lo[i], current.noteIds[i], current.expiries[i]);
+                }
+            }
+            logger.debug("Share token index purged {} expired tokens", current.size - purged.size);
+            table = purged;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Get entry count and memory use of the index
+     * @return ShareIndexStats snapshot
+     */
+    public ShareIndexStats getStats() {
+        long stamp = lock.readLock();
+        try {
+            return new ShareIndexStats(enabled, ready, table.size, table.noteIds.length, table.memoryBytes());
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Strict parse: UUID.fromString also accepts short forms such as "1-1-1-1-1"
+    private static UUID parse(String shareToken) {
+        if (shareToken == null || shareToken.length() != TOKEN_LENGTH) {
+            return null;
+        }
+        try {
+            return UUID.fromString(shareToken);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static int capacityFor(int entries) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < entries * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int slot(long hi, long lo, int mask) {
+        long h = hi ^ Long.rotateLeft(lo, 32);
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    private static final class Table {
+        final long[] hi;
+        final long[] lo;
+        final long[] noteIds;
+        final long[] expiries;
+        int size;
+
+        Table(int capacity) {
+            hi = new long[capacity];
+            lo = new long[capacity];
+            noteIds = new long[capacity];
+            expiries = new long[capacity];
+        }
+
+        long memoryBytes() {
+            return 4L * Long.BYTES * noteIds.length;
+        }
+    }
+
+    // Inner class for statistics
+    public static class ShareIndexStats {
+        private final boolean enabled;
+        private final boolean ready;
+        private final int tokens;
+        private final int capacity;
+        private final long memoryBytes;
+
+        public ShareIndexStats(boolean enabled, boolean ready, int tokens, int capacity, long memoryBytes) {
+            this.enabled = enabled;
+            this.ready = ready;
+            this.tokens = tokens;
+            this.capacity = capacity;
+            this.memoryBytes = memoryBytes;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public boolean isReady() {
+            return ready;
+        }
+
+        public int getTokens() {
+            return tokens;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public long getMemoryBytes() {
+            return memoryBytes;
+        }
+    }
+}
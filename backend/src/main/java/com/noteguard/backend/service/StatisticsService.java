@@ -0,0 +1,139 @@
+package com.noteguard.backend.service;
+
+import com.noteguard.backend.event.NoteChangedEvent;
+import com.noteguard.backend.event.UserChangedEvent;
+import com.noteguard.backend.model.Role;
+import com.noteguard.backend.repository.NoteRepository;
+import com.noteguard.backend.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the admin dashboard counters in memory.
+ * Counters move with note/user lifecycle events and are periodically
+ * reconciled against the database, so reading them never issues a query.
+ */
+@Service
+public class StatisticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatisticsService.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    private final LongAdder totalUsers = new LongAdder();
+    private final LongAdder adminUsers = new LongAdder();
+    private final LongAdder totalNotes = new LongAdder();
+    private final LongAdder notesWithShares = new LongAdder();
+
+    // Depends on the clock rather than on events, so it is only refreshed on reconcile
+    private volatile long expiredNotes;
+
+    /**
+     * Applies a note lifecycle event once the surrounding transaction has committed
+     * @param event The note change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNoteChanged(NoteChangedEvent event) {
+        switch (event.getType()) {
+            case CREATED -> totalNotes.increment();
+            case DELETED -> {
+                totalNotes.decrement();
+                if (event.getPreviousShareToken() != null) {
+                    notesWithShares.decrement();
+                }
+            }
+            case SHARED -> {
+                if (event.getPreviousShareToken() == null) {
+                    notesWithShares.increment();
+                }
+            }
+            case SHARE_REVOKED -> {
+                if (event.getPreviousShareToken() != null) {
+                    notesWithShares.decrement();
+                }
+            }
+            default -> {
+                // Content updates do not affect any counter
+            }
+        }
+    }
+
+    /**
+     * Applies a user lifecycle event once the surrounding transaction has committed.
+     * Deleting a user cascades to an unknown number of notes, so that case reconciles.
+     * @param event The user change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.getType() == UserChangedEvent.Type.REGISTERED) {
+            totalUsers.increment();
+            if (event.getRole() == Role.ADMIN) {
+                adminUsers.increment();
+            }
+        } else {
+            reconcile();
+        }
+    }
+
+    /**
+     * Re-reads every counter from the database and corrects any drift.
+     * Runs at startup and then every app.stats.reconcile-interval-ms (default 5 minutes).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.stats.reconcile-interval-ms:300000}",
+               initialDelayString = "${app.stats.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        try {
+            long drift = 0;
+            drift += correct(totalUsers, userRepository.count());
+            drift += correct(adminUsers, userRepository.countByRole(Role.ADMIN));
+            drift += correct(totalNotes, noteRepository.count());
+            drift += correct(notesWithShares, noteRepository.countByShareTokenIsNotNull());
+            expiredNotes = noteRepository.countExpiredNotes(LocalDateTime.now());
+
+            if (drift != 0) {
+                logger.info("Statistics reconciled: corrected drift of {}", drift);
+            } else {
+                logger.debug("Statistics reconciled: no drift");
+            }
+        } catch (Exception e) {
+            logger.error("Error reconciling statistics: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Moves a counter to the database value by adding the difference, so increments
+     * racing with the reconcile are not lost (the next reconcile settles them)
+     * @return The absolute correction applied
+     */
+    private long correct(LongAdder counter, long actual) {
+        long difference = actual - counter.sum();
+        if (difference != 0) {
+            counter.add(difference);
+        }
+        return Math.abs(difference);
+    }
+
+    public AdminService.UserStats getUserStats() {
+        long total = totalUsers.sum();
+        long admins = adminUsers.sum();
+        return new AdminService.UserStats(total, admins, total - admins);
+    }
+
+    public AdminService.NoteStats getNoteStats() {
+        return new AdminService.NoteStats(totalNotes.sum(), notesWithShares.sum(), expiredNotes);
+    }
+}
@@ -0,0 +1,71 @@
+package com.noteguard.backend.util;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Strong ETags for note resources and If-None-Match matching
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * ETag of a single note response. Covers everything in the response that can
+     * change without the note being rewritten: the update time and the share link,
+     * which is hidden once it expires.
+     * @param shareToken The share token as shown in the response (null if none or expired)
+     */
+    public static String forNote(Long noteId, LocalDateTime updatedAt, String shareToken,
+                                 LocalDateTime shareExpirationTime) {
+        long hash = updatedAt != null ? updatedAt.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + updatedAt.getNano() : 0L;
+        if (shareToken != null) {
+            hash = 31 * hash + shareToken.hashCode();
+            if (shareExpirationTime != null) {
+                hash = 31 * hash + shareExpirationTime.hashCode();
+            }
+        }
+        return "\"n" + noteId + '-' + Long.toHexString(hash) + '"';
+    }
+
+    /**
+     * @param ifNoneMatch The If-None-Match header, possibly a list or "*"
+     * @param etag The current strong ETag, quoted
+     * @return true if the client already has this representation
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            // Weak comparison, as RFC 9110 requires for If-None-Match
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param ifMatch The If-Match header, possibly a list or "*"
+     * @param etag The current strong ETag, quoted
+     * @return true if the client's base version is current; weak tags never match
+     */
+    public static boolean matchesStrong(String ifMatch, String etag) {
+        if (ifMatch == null || etag == null) {
+            return false;
+        }
+        for (String candidate : ifMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,5 +1,8 @@
 package com.noteguard.backend.util;
 
+import com.noteguard.backend.metrics.NoteGuardMetrics;
+import com.noteguard.backend.metrics.RequestSample;
+import com.noteguard.backend.metrics.RequestTimings;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -7,7 +10,9 @@ import javax.crypto.Cipher;
 import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.List;
 
 @Component
 public class EncryptionUtil {
@@ -15,8 +20,28 @@ public class EncryptionUtil {
     private static final String ALGORITHM = "AES";
     private static final String TRANSFORMATION = "AES";
 
-    @Value("${app.encryption.secret-key:mySecretKey12345}")
-    private String secretKey;
+    // Chunked ciphertext: "c2:" then the encrypted, comma-separated plaintext lengths of the
+    // chunks, then each chunk's Base64 ciphertext, joined by ':'. The lengths are encrypted so
+    // stored values do not give away each chunk's exact length; the ciphertext still reveals
+    // its UTF-8 size to within an AES block, as single-block values always have. ':' never
+    // occurs in Base64, so single-block values cannot be mistaken for it.
+    private static final String CHUNKED_PREFIX = "c2:";
+    // Earlier format, still read: "<plaintext length>.<base64>" per chunk, lengths in the clear
+    private static final String LEGACY_CHUNKED_PREFIX = "c1:";
+
+    // Derived once; SecretKeySpec is immutable and safe to share across threads
+    private final SecretKey key;
+
+    private final NoteGuardMetrics metrics;
+    private final int chunkSize;
+
+    public EncryptionUtil(@Value("${app.encryption.secret-key:mySecretKey12345}") String secretKey,
+                          NoteGuardMetrics metrics,
+                          @Value("${app.encryption.chunk-size:2048}") int chunkSize) {
+        this.key = generateKey(secretKey);
+        this.metrics = metrics;
+        this.chunkSize = Math.max(chunkSize, 16);
+    }
 
     /**
      * Encrypts the given plaintext using AES encryption
@@ -25,33 +50,281 @@ public class EncryptionUtil {
      * @throws Exception If encryption fails
      */
     public String encrypt(String plainText) throws Exception {
-        SecretKey key = generateKey();
+        long start = System.nanoTime();
         Cipher cipher = Cipher.getInstance(TRANSFORMATION);
         cipher.init(Cipher.ENCRYPT_MODE, key);
         byte[] encryptedBytes = cipher.doFinal(plainText.getBytes());
-        return Base64.getEncoder().encodeToString(encryptedBytes);
+        String encrypted = Base64.getEncoder().encodeToString(encryptedBytes);
+        long elapsed = System.nanoTime() - start;
+        metrics.recordCrypto(true, plainText.length(), elapsed);
+        RequestTimings.record(RequestTimings.Phase.CRYPTO, elapsed);
+        RequestSample.recordCrypto(elapsed);
+        return encrypted;
+    }
+
+    /**
+     * Encrypts text as independently encrypted chunks of at most app.encryption.chunk-size
+     * characters, so {@link #patch} can later re-encrypt only the chunks an edit touches
+     * @param plainText The text to encrypt; null is stored as empty text
+     * @return Chunked ciphertext
+     * @throws Exception If encryption fails
+     */
+    public String encryptChunked(String plainText) throws Exception {
+        Chunks chunks = new Chunks(new ArrayList<>(), new ArrayList<>());
+        appendChunks(plainText != null ? plainText : "", chunks);
+        return format(chunks);
     }
 
     /**
      * Decrypts the given encrypted text using AES decryption
-     * @param encryptedText Base64 encoded encrypted text
+     * @param encryptedText Base64 encoded encrypted text, or chunked ciphertext; null reads as empty text
      * @return Decrypted plaintext
      * @throws Exception If decryption fails
      */
     public String decrypt(String encryptedText) throws Exception {
-        SecretKey key = generateKey();
+        if (encryptedText == null) {
+            return "";
+        }
+        if (isChunked(encryptedText)) {
+            StringBuilder plainText = new StringBuilder();
+            for (String block : blocks(encryptedText)) {
+                plainText.append(decryptBlock(block));
+            }
+            return plainText.toString();
+        }
+        return decryptBlock(encryptedText);
+    }
+
+    /**
+     * Applies edits to stored content, decrypting and re-encrypting only the chunks
+     * the edits fall into; the ciphertext of every other chunk is kept as is.
+     * Single-block (pre-chunking) content is converted to chunks in full. Reads the
+     * chunk lengths from their encrypted header, which is rewritten with the chunks.
+     * @param stored The stored ciphertext
+     * @param edits Edits against the current plaintext, ascending and non-overlapping
+     * @throws IllegalArgumentException If an edit is out of range or the edits overlap
+     * @throws Exception If encryption or decryption fails
+     */
+    public PatchResult patch(String stored, List<TextEdit> edits) throws Exception {
+        Chunks chunks = stored != null && isChunked(stored) ? parse(stored) : null;
+        if (chunks == null || chunks.blocks().isEmpty()) {
+            String plainText = decrypt(stored);
+            validate(edits, plainText.length());
+            List<String> removed = new ArrayList<>(edits.size());
+            String patched = applyEdits(plainText, edits, 0, removed);
+            Chunks encrypted = new Chunks(new ArrayList<>(), new ArrayList<>());
+            appendChunks(patched, encrypted);
+            int chunkCount = encrypted.blocks().size();
+            return new PatchResult(format(encrypted), patched.length(), chunkCount, chunkCount, reverse(edits, removed));
+        }
+
+        int count = chunks.blocks().size();
+        int[] starts = new int[count + 1];
+        for (int i = 0; i < count; i++) {
+            starts[i + 1] = starts[i] + chunks.lengths().get(i);
+        }
+        int length = starts[count];
+        validate(edits, length);
+
+        Chunks result = new Chunks(new ArrayList<>(count + 1), new ArrayList<>(count + 1));
+        List<String> removed = new ArrayList<>(edits.size());
+        int rewritten = 0;
+        int next = 0;
+        int edit = 0;
+        while (edit < edits.size()) {
+            // Chunks [first, last] cover this edit and any later edit that starts inside them
+            int first = chunkAt(starts, edits.get(edit).offset());
+            int last = chunkAt(starts, editEnd(edits.get(edit)));
+            int groupEnd = edit + 1;
+            while (groupEnd < edits.size() && chunkAt(starts, edits.get(groupEnd).offset()) <= last) {
+                last = Math.max(last, chunkAt(starts, editEnd(edits.get(groupEnd))));
+                groupEnd++;
+            }
+            result.keep(chunks, next, Math.max(first, next));
+
+            StringBuilder span = new StringBuilder();
+            for (int i = first; i <= last; i++) {
+                span.append(decryptBlock(chunks.blocks().get(i)));
+            }
+            int before = result.blocks().size();
+            appendChunks(applyEdits(span.toString(), edits.subList(edit, groupEnd), starts[first], removed), result);
+            rewritten += result.blocks().size() - before;
+            next = last + 1;
+            edit = groupEnd;
+        }
+        result.keep(chunks, next, count);
+
+        int newLength = length;
+        for (TextEdit textEdit : edits) {
+            newLength += textEdit.insertText().length() - textEdit.delete();
+        }
+        return new PatchResult(format(result), newLength, result.blocks().size(), rewritten,
+            reverse(edits, removed));
+    }
+
+    private String decryptBlock(String encryptedText) throws Exception {
+        long start = System.nanoTime();
         Cipher cipher = Cipher.getInstance(TRANSFORMATION);
         cipher.init(Cipher.DECRYPT_MODE, key);
         byte[] decodedBytes = Base64.getDecoder().decode(encryptedText);
         byte[] decryptedBytes = cipher.doFinal(decodedBytes);
-        return new String(decryptedBytes);
+        String decrypted = new String(decryptedBytes);
+        long elapsed = System.nanoTime() - start;
+        metrics.recordCrypto(false, decrypted.length(), elapsed);
+        RequestTimings.record(RequestTimings.Phase.CRYPTO, elapsed);
+        RequestSample.recordCrypto(elapsed);
+        return decrypted;
+    }
+
+    private void appendChunks(String plainText, Chunks chunks) throws Exception {
+        int count = Math.max((plainText.length() + chunkSize - 1) / chunkSize, 1);
+        if (plainText.isEmpty()) {
+            return;
+        }
+        // Even split, so a span that grew just past the limit does not leave a tiny chunk
+        int target = (plainText.length() + count - 1) / count;
+        int start = 0;
+        while (start < plainText.length()) {
+            int end = Math.min(start + target, plainText.length());
+            if (end < plainText.length() && Character.isHighSurrogate(plainText.charAt(end - 1))) {
+                end--;
+            }
+            chunks.lengths().add(end - start);
+            chunks.blocks().add(encrypt(plainText.substring(start, end)));
+            start = end;
+        }
+    }
+
+    private String format(Chunks chunks) throws Exception {
+        if (chunks.blocks().isEmpty()) {
+            return CHUNKED_PREFIX;
+        }
+        StringBuilder lengths = new StringBuilder();
+        for (int length : chunks.lengths()) {
+            lengths.append(lengths.isEmpty() ? "" : ",").append(length);
+        }
+        return CHUNKED_PREFIX + encrypt(lengths.toString()) + ":" + String.join(":", chunks.blocks());
+    }
+
+    private Chunks parse(String stored) throws Exception {
+        List<Integer> lengths = new ArrayList<>();
+        List<String> blocks = new ArrayList<>();
+        if (stored.startsWith(LEGACY_CHUNKED_PREFIX)) {
+            for (String chunk : parts(stored)) {
+                int dot = chunk.indexOf('.');
+                lengths.add(Integer.parseInt(chunk, 0, dot, 10));
+                blocks.add(chunk.substring(dot + 1));
+            }
+            return new Chunks(lengths, blocks);
+        }
+        List<String> parts = parts(stored);
+        if (!parts.isEmpty()) {
+            for (String length : decryptBlock(parts.get(0)).split(",")) {
+                lengths.add(Integer.parseInt(length));
+            }
+            blocks.addAll(parts.subList(1, parts.size()));
+        }
+        return new Chunks(lengths, blocks);
+    }
+
+    // The chunk ciphertexts alone, which is all decrypting needs
+    private static List<String> blocks(String stored) {
+        List<String> parts = parts(stored);
+        if (stored.startsWith(LEGACY_CHUNKED_PREFIX)) {
+            return parts.stream().map(chunk -> chunk.substring(chunk.indexOf('.') + 1)).toList();
+        }
+        return parts.isEmpty() ? parts : parts.subList(1, parts.size());
+    }
+
+    private static List<String> parts(String stored) {
+        String body = stored.substring(CHUNKED_PREFIX.length());
+        return body.isEmpty() ? List.of() : List.of(body.split(":"));
+    }
+
+    private static boolean isChunked(String stored) {
+        return stored.startsWith(CHUNKED_PREFIX) || stored.startsWith(LEGACY_CHUNKED_PREFIX);
+    }
+
+    /**
+     * Chunk plaintext lengths and ciphertexts, in order
+     */
+    private record Chunks(List<Integer> lengths, List<String> blocks) {
+
+        // Copies chunks [from, to) of another list unchanged
+        void keep(Chunks other, int from, int to) {
+            if (from < to) {
+                lengths.addAll(other.lengths().subList(from, to));
+                blocks.addAll(other.blocks().subList(from, to));
+            }
+        }
+    }
+
+    /**
+     * @return Index of the chunk holding the character at position, or the last chunk
+     *         for the end of the text
+     */
+    private static int chunkAt(int[] starts, int position) {
+        int chunkCount = starts.length - 1;
+        for (int i = 0; i < chunkCount; i++) {
+            if (position < starts[i + 1]) {
+                return i;
+            }
+        }
+        return chunkCount - 1;
+    }
+
+    // Last character an edit touches; a pure insert touches the character at its offset
+    private static int editEnd(TextEdit edit) {
+        return edit.delete() > 0 ? edit.offset() + edit.delete() - 1 : edit.offset();
+    }
+
+    private static void validate(List<TextEdit> edits, int length) {
+        int previousEnd = 0;
+        for (TextEdit edit : edits) {
+            if (edit.offset() < previousEnd || edit.delete() < 0 || edit.offset() + edit.delete() > length) {
+                throw new IllegalArgumentException("Invalid edit at offset " + edit.offset()
+                    + ": edits must be ascending, non-overlapping and within the " + length + " character base text");
+            }
+            previousEnd = edit.offset() + edit.delete();
+        }
+    }
+
+    /**
+     * @param base Offset of text within the full plaintext
+     * @param removed Receives the text each edit deletes
+     */
+    private static String applyEdits(String text, List<TextEdit> edits, int base, List<String> removed) {
+        StringBuilder patched = new StringBuilder(text.length() + 64);
+        int copied = 0;
+        for (TextEdit edit : edits) {
+            int offset = edit.offset() - base;
+            patched.append(text, copied, offset).append(edit.insertText());
+            removed.add(text.substring(offset, offset + edit.delete()));
+            copied = offset + edit.delete();
+        }
+        return patched.append(text, copied, text.length()).toString();
+    }
+
+    /**
+     * @return Edits against the patched text that restore the base text
+     */
+    private static List<TextEdit> reverse(List<TextEdit> edits, List<String> removed) {
+        List<TextEdit> reverse = new ArrayList<>(edits.size());
+        int shift = 0;
+        for (int i = 0; i < edits.size(); i++) {
+            TextEdit edit = edits.get(i);
+            reverse.add(new TextEdit(edit.offset() + shift, edit.insertText().length(), removed.get(i)));
+            shift += edit.insertText().length() - edit.delete();
+        }
+        return reverse;
     }
 
     /**
      * Generates a secret key from the configured secret key string
+     * @param secretKey The configured secret key
      * @return SecretKey for AES encryption/decryption
      */
-    private SecretKey generateKey() {
+    private static SecretKey generateKey(String secretKey) {
         // Pad or truncate the secret key to exactly 16 bytes (128 bits)
         String key = secretKey;
         if (key.length() < 16) {
@@ -61,4 +334,60 @@ public class EncryptionUtil {
         }
         return new SecretKeySpec(key.getBytes(), ALGORITHM);
     }
+
+    /**
+     * One splice against the base text
+     * @param offset Start, in UTF-16 code units as in JavaScript strings
+     * @param delete Characters removed at offset
+     * @param insert Text inserted at offset, may be null
+     */
+    public record TextEdit(int offset, int delete, String insert) {
+
+        String insertText() {
+            return insert != null ? insert : "";
+        }
+    }
+
+    // Inner class for the outcome of a patch
+    public static class PatchResult {
+        private final String ciphertext;
+        private final int length;
+        private final int chunks;
+        private final int chunksRewritten;
+        private final List<TextEdit> reverseEdits;
+
+        public PatchResult(String ciphertext, int length, int chunks, int chunksRewritten, List<TextEdit> reverseEdits) {
+            this.ciphertext = ciphertext;
+            this.length = length;
+            this.chunks = chunks;
+            this.chunksRewritten = chunksRewritten;
+            this.reverseEdits = reverseEdits;
+        }
+
+        public String getCiphertext() {
+            return ciphertext;
+        }
+
+        /**
+         * Plaintext length after the patch
+         */
+        public int getLength() {
+            return length;
+        }
+
+        public int getChunks() {
+            return chunks;
+        }
+
+        public int getChunksRewritten() {
+            return chunksRewritten;
+        }
+
+        /**
+         * Edits against the patched text that restore the base text, for note revisions
+         */
+        public List<TextEdit> getReverseEdits() {
+            return reverseEdits;
+        }
+    }
 }
@@ -0,0 +1,232 @@
+package com.noteguard.backend.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Text deltas as lists of {@link EncryptionUtil.TextEdit}: computing one between
+ * two versions, applying it, and a compact string form for storage.
+ */
+public final class TextDeltas {
+
+    /**
+     * Changed words past which a diff stops looking for regions; the round-by-round
+     * trace it keeps grows with the square of this
+     */
+    static final int MAX_WORD_EDITS = 512;
+
+    private TextDeltas() {
+    }
+
+    /**
+     * Edits for each changed region. Past the common prefix and suffix the texts
+     * are compared word by word (Myers' diff), and each changed run of words is
+     * narrowed to the characters that differ, so distant changes are stored
+     * without the text between them. When more than {@link #MAX_WORD_EDITS}
+     * words differ, the span between prefix and suffix becomes a single edit.
+     * @return Edits against {@code from} that produce {@code to}
+     */
+    public static List<EncryptionUtil.TextEdit> diff(String from, String to) {
+        int prefix = commonPrefix(from, 0, from.length(), to, 0, to.length());
+        int suffix = commonSuffix(from, prefix, from.length(), to, prefix, to.length());
+        if (prefix + suffix == from.length() && prefix + suffix == to.length()) {
+            return List.of();
+        }
+        String a = from.substring(prefix, from.length() - suffix);
+        String b = to.substring(prefix, to.length() - suffix);
+        if (a.isEmpty() || b.isEmpty()) {
+            return List.of(new EncryptionUtil.TextEdit(prefix, a.length(), b));
+        }
+
+        Map<String, Integer> ids = new HashMap<>();
+        int[] aStarts = wordStarts(a);
+        int[] bStarts = wordStarts(b);
+        int[] aWords = wordIds(a, aStarts, ids);
+        int[] bWords = wordIds(b, bStarts, ids);
+        List<int[]> matches = matchingRuns(aWords, bWords);
+        if (matches == null) {
+            return List.of(new EncryptionUtil.TextEdit(prefix, a.length(), b));
+        }
+
+        List<EncryptionUtil.TextEdit> edits = new ArrayList<>();
+        int aWord = 0;
+        int bWord = 0;
+        for (int[] match : matches) {
+            addEdit(edits, prefix, a, aStarts[aWord], aStarts[match[0]], b, bStarts[bWord], bStarts[match[1]]);
+            aWord = match[0] + match[2];
+            bWord = match[1] + match[2];
+        }
+        addEdit(edits, prefix, a, aStarts[aWord], a.length(), b, bStarts[bWord], b.length());
+        return edits;
+    }
+
+    // Adds the edit turning a[aStart, aEnd) into b[bStart, bEnd), trimmed to the characters that differ
+    private static void addEdit(List<EncryptionUtil.TextEdit> edits, int base, String a, int aStart, int aEnd,
+                                String b, int bStart, int bEnd) {
+        int prefix = commonPrefix(a, aStart, aEnd, b, bStart, bEnd);
+        int suffix = commonSuffix(a, aStart + prefix, aEnd, b, bStart + prefix, bEnd);
+        if (aEnd - aStart == prefix + suffix && bEnd - bStart == prefix + suffix) {
+            return;
+        }
+        edits.add(new EncryptionUtil.TextEdit(base + aStart + prefix, aEnd - aStart - prefix - suffix,
+            b.substring(bStart + prefix, bEnd - suffix)));
+    }
+
+    // Never split a surrogate pair, which would not survive encryption
+    private static int commonPrefix(String a, int aStart, int aEnd, String b, int bStart, int bEnd) {
+        int limit = Math.min(aEnd - aStart, bEnd - bStart);
+        int prefix = 0;
+        while (prefix < limit && a.charAt(aStart + prefix) == b.charAt(bStart + prefix)) {
+            prefix++;
+        }
+        if (prefix > 0 && Character.isHighSurrogate(a.charAt(aStart + prefix - 1))) {
+            prefix--;
+        }
+        return prefix;
+    }
+
+    private static int commonSuffix(String a, int aStart, int aEnd, String b, int bStart, int bEnd) {
+        int limit = Math.min(aEnd - aStart, bEnd - bStart);
+        int suffix = 0;
+        while (suffix < limit && a.charAt(aEnd - 1 - suffix) == b.charAt(bEnd - 1 - suffix)) {
+            suffix++;
+        }
+        if (suffix > 0 && Character.isLowSurrogate(a.charAt(aEnd - suffix))) {
+            suffix--;
+        }
+        return suffix;
+    }
+
+    // Word i spans [starts[i], starts[i + 1]): a run of non-whitespace and the whitespace after it
+    private static int[] wordStarts(String text) {
+        int[] starts = new int[16];
+        int count = 0;
+        int i = 0;
+        while (i < text.length()) {
+            if (count + 1 >= starts.length) {
+                starts = Arrays.copyOf(starts, starts.length * 2);
+            }
+            starts[count++] = i;
+            while (i < text.length() && !Character.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+        }
+        starts[count] = text.length();
+        return Arrays.copyOf(starts, count + 1);
+    }
+
+    private static int[] wordIds(String text, int[] starts, Map<String, Integer> ids) {
+        int[] words = new int[starts.length - 1];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = ids.computeIfAbsent(text.substring(starts[i], starts[i + 1]), word -> ids.size());
+        }
+        return words;
+    }
+
+    /**
+     * Myers' greedy diff over word ids, keeping the furthest-reaching paths of
+     * each round to walk back along
+     * @return Runs of equal words as {aIndex, bIndex, length} in order, or null past MAX_WORD_EDITS
+     */
+    private static List<int[]> matchingRuns(int[] a, int[] b) {
+        int n = a.length;
+        int m = b.length;
+        int max = Math.min(n + m, MAX_WORD_EDITS);
+        // v[k + max]: furthest x on diagonal k = x - y
+        int[] v = new int[2 * max + 2];
+        List<int[]> trace = new ArrayList<>();
+        for (int d = 0; d <= max; d++) {
+            for (int k = -d; k <= d; k += 2) {
+                int x = k == -d || (k != d && v[k - 1 + max] < v[k + 1 + max]) ? v[k + 1 + max] : v[k - 1 + max] + 1;
+                int y = x - k;
+                while (x < n && y < m && a[x] == b[y]) {
+                    x++;
+                    y++;
+                }
+                v[k + max] = x;
+                if (x >= n && y >= m) {
+                    return walkBack(trace, n, m, d);
+                }
+            }
+            trace.add(Arrays.copyOfRange(v, max - d, max + d + 1));
+        }
+        return null;
+    }
+
+    private static List<int[]> walkBack(List<int[]> trace, int n, int m, int edits) {
+        List<int[]> runs = new ArrayList<>();
+        int x = n;
+        int y = m;
+        for (int d = edits; d > 0; d--) {
+            // Round d - 1 stored diagonals -(d - 1) to d - 1
+            int[] previous = trace.get(d - 1);
+            int k = x - y;
+            int previousK = k == -d || (k != d && previous[k - 1 + d - 1] < previous[k + 1 + d - 1]) ? k + 1 : k - 1;
+            int previousX = previous[previousK + d - 1];
+            int start = previousK == k + 1 ? previousX : previousX + 1;
+            if (x > start) {
+                runs.add(new int[] {start, start - k, x - start});
+            }
+            x = previousX;
+            y = previousX - previousK;
+        }
+        if (x > 0) {
+            runs.add(new int[] {0, 0, x});
+        }
+        Collections.reverse(runs);
+        return runs;
+    }
+
+    /**
+     * @param edits Ascending, non-overlapping edits against text
+     * @throws IllegalStateException If an edit does not fit the text
+     */
+    public static String apply(String text, List<EncryptionUtil.TextEdit> edits) {
+        StringBuilder result = new StringBuilder(text.length() + 64);
+        int copied = 0;
+        for (EncryptionUtil.TextEdit edit : edits) {
+            if (edit.offset() < copied || edit.offset() + edit.delete() > text.length()) {
+                throw new IllegalStateException("Delta does not fit a text of " + text.length() + " characters");
+            }
+            result.append(text, copied, edit.offset()).append(edit.insert() != null ? edit.insert() : "");
+            copied = edit.offset() + edit.delete();
+        }
+        return result.append(text, copied, text.length()).toString();
+    }
+
+    /**
+     * Serializes edits as {@code offset,delete,length:insert} back to back
+     */
+    public static String encode(List<EncryptionUtil.TextEdit> edits) {
+        StringBuilder encoded = new StringBuilder();
+        for (EncryptionUtil.TextEdit edit : edits) {
+            String insert = edit.insert() != null ? edit.insert() : "";
+            encoded.append(edit.offset()).append(',').append(edit.delete()).append(',')
+                .append(insert.length()).append(':').append(insert);
+        }
+        return encoded.toString();
+    }
+
+    public static List<EncryptionUtil.TextEdit> decode(String encoded) {
+        List<EncryptionUtil.TextEdit> edits = new ArrayList<>();
+        int position = 0;
+        while (position < encoded.length()) {
+            int comma = encoded.indexOf(',', position);
+            int secondComma = encoded.indexOf(',', comma + 1);
+            int colon = encoded.indexOf(':', secondComma + 1);
+            int offset = Integer.parseInt(encoded, position, comma, 10);
+            int delete = Integer.parseInt(encoded, comma + 1, secondComma, 10);
+            int length = Integer.parseInt(encoded, secondComma + 1, colon, 10);
+            edits.add(new EncryptionUtil.TextEdit(offset, delete, encoded.substring(colon + 1, colon + 1 + length)));
+            position = colon + 1 + length;
+        }
+        return edits;
+    }
+}
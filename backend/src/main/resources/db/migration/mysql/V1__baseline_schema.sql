@@ -0,0 +1,32 @@
+-- Baseline schema matching the JPA entities (Note, User).
+-- IF NOT EXISTS lets databases previously created by ddl-auto=update be
+-- adopted in place (spring.flyway.baseline-on-migrate).
+
+CREATE TABLE IF NOT EXISTS users (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    username VARCHAR(50) NOT NULL,
+    email VARCHAR(100) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    role ENUM('USER', 'ADMIN') NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_username UNIQUE (username),
+    CONSTRAINT uk_users_email UNIQUE (email)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS notes (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    title VARCHAR(255) NOT NULL,
+    content TEXT,
+    created_at DATETIME(6) NOT NULL,
+    updated_at DATETIME(6),
+    expiration_time DATETIME(6),
+    share_token VARCHAR(255),
+    share_expiration_time DATETIME(6),
+    user_id BIGINT NOT NULL,
+    owner_id BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    -- Unique index also serves findByShareTokenAndNotExpired and countByShareTokenIsNotNull
+    CONSTRAINT uk_notes_share_token UNIQUE (share_token),
+    CONSTRAINT fk_notes_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
+) ENGINE = InnoDB;
@@ -0,0 +1,14 @@
+-- Indexes for the repository queries on the request and cleanup paths.
+-- See db/verify/explain-mysql.sql for the EXPLAIN check of each query.
+
+-- findByUserOrderByCreatedAtDesc, countByUser (leading column)
+CREATE INDEX idx_notes_user_created ON notes (user_id, created_at);
+
+-- invalidateExpiredShareTokens
+CREATE INDEX idx_notes_share_expiration ON notes (share_expiration_time);
+
+-- countExpiredNotes, deleteExpiredNotes, countNotesExpiringBefore
+CREATE INDEX idx_notes_expiration ON notes (expiration_time);
+
+-- countByRole
+CREATE INDEX idx_users_role ON users (role);
@@ -0,0 +1,22 @@
+-- Delta sync (GET /api/notes/sync): tombstones for deleted and expired notes,
+-- written by NoteService/AdminService deletes and CleanupService, and removed
+-- after app.sync.tombstone-retention. Rows go with their owner.
+
+CREATE TABLE note_tombstones (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    note_id BIGINT NOT NULL,
+    owner_id BIGINT NOT NULL,
+    deleted_at DATETIME(6) NOT NULL,
+    reason ENUM('DELETED', 'EXPIRED') NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_note_tombstones_owner FOREIGN KEY (owner_id) REFERENCES users (id) ON DELETE CASCADE
+) ENGINE = InnoDB;
+
+-- findChangesSince (tombstone branch); also serves the owner foreign key
+CREATE INDEX idx_note_tombstones_owner_deleted ON note_tombstones (owner_id, deleted_at);
+
+-- deleteTombstonesBefore (compaction)
+CREATE INDEX idx_note_tombstones_deleted ON note_tombstones (deleted_at);
+
+-- findChangesSince (note branch)
+CREATE INDEX idx_notes_owner_updated ON notes (owner_id, updated_at);
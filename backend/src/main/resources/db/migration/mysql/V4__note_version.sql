@@ -0,0 +1,4 @@
+-- Optimistic concurrency: Note.version (@Version). PUT /api/notes/{id} updates
+-- on id and version in one statement; existing rows start at version 0.
+
+ALTER TABLE notes ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
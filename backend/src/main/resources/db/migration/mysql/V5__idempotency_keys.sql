@@ -0,0 +1,19 @@
+-- Idempotency-Key store shared between instances (app.idempotency.store=database).
+-- A row without response_status is a claim whose request is still running; it
+-- expires after app.idempotency.lease, a completed row after app.idempotency.ttl.
+-- response_body is the encrypted Base64 body (see DatabaseIdempotencyStore);
+-- MEDIUMTEXT because a created note echoes its content.
+
+CREATE TABLE idempotency_keys (
+    id VARCHAR(64) NOT NULL,
+    fingerprint VARCHAR(64) NOT NULL,
+    response_status INT,
+    content_type VARCHAR(255),
+    response_body MEDIUMTEXT,
+    created_at DATETIME(6) NOT NULL,
+    expires_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+-- deleteExpired (purge)
+CREATE INDEX idx_idempotency_keys_expires ON idempotency_keys (expires_at);
@@ -0,0 +1,21 @@
+-- Note history: earlier versions of a note as encrypted reverse deltas, with a
+-- full snapshot every app.revisions.snapshot-interval revisions. Rows go with
+-- their note and are removed after app.revisions.retention.
+
+CREATE TABLE note_revisions (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    note_id BIGINT NOT NULL,
+    version BIGINT NOT NULL,
+    kind ENUM('DELTA', 'SNAPSHOT') NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    payload TEXT,
+    updated_at DATETIME(6),
+    replaced_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    -- Serves every per-note lookup (list, chain, snapshot, counts) and the foreign key
+    CONSTRAINT uk_note_revisions_note_version UNIQUE (note_id, version),
+    CONSTRAINT fk_note_revisions_note FOREIGN KEY (note_id) REFERENCES notes (id) ON DELETE CASCADE
+) ENGINE = InnoDB;
+
+-- deleteReplacedBefore (retention)
+CREATE INDEX idx_note_revisions_replaced ON note_revisions (replaced_at);
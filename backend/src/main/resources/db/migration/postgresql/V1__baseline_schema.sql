@@ -0,0 +1,33 @@
+-- Baseline schema matching the JPA entities (Note, User).
+-- IF NOT EXISTS lets databases previously created by ddl-auto=update be
+-- adopted in place (spring.flyway.baseline-on-migrate).
+
+CREATE TABLE IF NOT EXISTS users (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    username VARCHAR(50) NOT NULL,
+    email VARCHAR(100) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    role VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_username UNIQUE (username),
+    CONSTRAINT uk_users_email UNIQUE (email),
+    CONSTRAINT ck_users_role CHECK (role IN ('USER', 'ADMIN'))
+);
+
+CREATE TABLE IF NOT EXISTS notes (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    title VARCHAR(255) NOT NULL,
+    content TEXT,
+    created_at TIMESTAMP(6) NOT NULL,
+    updated_at TIMESTAMP(6),
+    expiration_time TIMESTAMP(6),
+    share_token VARCHAR(255),
+    share_expiration_time TIMESTAMP(6),
+    user_id BIGINT NOT NULL,
+    owner_id BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    -- Unique index also serves findByShareTokenAndNotExpired and countByShareTokenIsNotNull
+    CONSTRAINT uk_notes_share_token UNIQUE (share_token),
+    CONSTRAINT fk_notes_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
+);
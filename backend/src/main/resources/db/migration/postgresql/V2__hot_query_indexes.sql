@@ -0,0 +1,16 @@
+-- Indexes for the repository queries on the request and cleanup paths.
+-- See db/verify/explain-postgresql.sql for the EXPLAIN check of each query.
+
+-- findByUserOrderByCreatedAtDesc, countByUser (leading column)
+CREATE INDEX IF NOT EXISTS idx_notes_user_created ON notes (user_id, created_at DESC);
+
+-- invalidateExpiredShareTokens; partial, only rows that still carry a share
+CREATE INDEX IF NOT EXISTS idx_notes_share_expiration ON notes (share_expiration_time)
+    WHERE share_expiration_time IS NOT NULL;
+
+-- countExpiredNotes, deleteExpiredNotes, countNotesExpiringBefore
+CREATE INDEX IF NOT EXISTS idx_notes_expiration ON notes (expiration_time)
+    WHERE expiration_time IS NOT NULL;
+
+-- countByRole
+CREATE INDEX IF NOT EXISTS idx_users_role ON users (role);
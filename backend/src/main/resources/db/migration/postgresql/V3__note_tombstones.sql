@@ -0,0 +1,23 @@
+-- Delta sync (GET /api/notes/sync): tombstones for deleted and expired notes,
+-- written by NoteService/AdminService deletes and CleanupService, and removed
+-- after app.sync.tombstone-retention. Rows go with their owner.
+
+CREATE TABLE note_tombstones (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    note_id BIGINT NOT NULL,
+    owner_id BIGINT NOT NULL,
+    deleted_at TIMESTAMP(6) NOT NULL,
+    reason VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_note_tombstones_owner FOREIGN KEY (owner_id) REFERENCES users (id) ON DELETE CASCADE,
+    CONSTRAINT ck_note_tombstones_reason CHECK (reason IN ('DELETED', 'EXPIRED'))
+);
+
+-- findChangesSince (tombstone branch); also serves the owner foreign key
+CREATE INDEX idx_note_tombstones_owner_deleted ON note_tombstones (owner_id, deleted_at);
+
+-- deleteTombstonesBefore (compaction)
+CREATE INDEX idx_note_tombstones_deleted ON note_tombstones (deleted_at);
+
+-- findChangesSince (note branch)
+CREATE INDEX idx_notes_owner_updated ON notes (owner_id, updated_at);
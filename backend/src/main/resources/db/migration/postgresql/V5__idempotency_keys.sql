@@ -0,0 +1,18 @@
+-- Idempotency-Key store shared between instances (app.idempotency.store=database).
+-- A row without response_status is a claim whose request is still running; it
+-- expires after app.idempotency.lease, a completed row after app.idempotency.ttl.
+-- response_body is the encrypted Base64 body (see DatabaseIdempotencyStore).
+
+CREATE TABLE idempotency_keys (
+    id VARCHAR(64) NOT NULL,
+    fingerprint VARCHAR(64) NOT NULL,
+    response_status INTEGER,
+    content_type VARCHAR(255),
+    response_body TEXT,
+    created_at TIMESTAMP(6) NOT NULL,
+    expires_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+-- deleteExpired (purge)
+CREATE INDEX idx_idempotency_keys_expires ON idempotency_keys (expires_at);
@@ -1,31 +0,0 @@
--- Create database if not exists
-CREATE DATABASE IF NOT EXISTS noteguard;
-USE noteguard;
-
--- Users table
-CREATE TABLE IF NOT EXISTS users (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
-    username VARCHAR(50) NOT NULL UNIQUE,
-    email VARCHAR(100) NOT NULL UNIQUE,
-    password VARCHAR(255) NOT NULL,
-    role ENUM('USER', 'ADMIN') NOT NULL DEFAULT 'USER',
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    INDEX idx_username (username),
-    INDEX idx_email (email)
-);
-
--- Notes table
-CREATE TABLE IF NOT EXISTS notes (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
-    title VARCHAR(255) NOT NULL,
-    content TEXT,
-    encrypted_content TEXT,
-    owner_id BIGINT NOT NULL,
-    expiration_time TIMESTAMP NULL,
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    INDEX idx_owner_id (owner_id),
-    INDEX idx_created_at (created_at),
-    INDEX idx_expiration_time (expiration_time),
-    INDEX idx_notes_owner_created (owner_id, created_at DESC),
-    FOREIGN KEY (owner_id) REFERENCES users(id) ON DELETE CASCADE
-);
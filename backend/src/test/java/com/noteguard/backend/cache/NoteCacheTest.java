@@ -0,0 +1,115 @@
+package com.noteguard.backend.cache;
+
+import com.noteguard.backend.event.NoteChangedEvent;
+import com.noteguard.backend.metrics.NoteGuardMetrics;
+import com.noteguard.backend.model.Note;
+import com.noteguard.backend.util.EncryptionUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NoteCacheTest {
+
+    private final EncryptionUtil encryptionUtil = new EncryptionUtil("test-key",
+        new NoteGuardMetrics(new SimpleMeterRegistry()), 2048);
+
+    @Test
+    void aLoadIsStoredWhenNothingWasEvictedMeanwhile() throws Exception {
+        NoteCache cache = cache(false);
+        long generation = cache.generation();
+
+        CachedNote entry = cache.put(note(1L, "secret"), generation);
+
+        assertThat(entry.getContent()).isEqualTo("secret");
+        assertThat(cache.get(1L)).isSameAs(entry);
+        assertThat(cache.getStats().getEntries()).isEqualTo(1);
+        assertThat(cache.getStats().getHits()).isEqualTo(1);
+    }
+
+    @Test
+    void aLoadThatStartedBeforeAnEvictionIsNotStored() throws Exception {
+        NoteCache cache = cache(false);
+        long generation = cache.generation();
+        // Another note changes while this one is loading
+        cache.evict(2L);
+
+        CachedNote entry = cache.put(note(1L, "stale"), generation);
+
+        assertThat(entry.getContent()).isEqualTo("stale");
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.generation()).isGreaterThan(generation);
+    }
+
+    @Test
+    void everyChangeButACreateEvicts() throws Exception {
+        NoteCache cache = cache(false);
+        Note note = note(1L, "content");
+        cache.put(note, cache.generation());
+
+        cache.onNoteChanged(NoteChangedEvent.created(note));
+        assertThat(cache.get(1L)).isNotNull();
+
+        cache.onNoteChanged(NoteChangedEvent.updated(note));
+        assertThat(cache.get(1L)).isNull();
+
+        cache.put(note, cache.generation());
+        cache.onNoteChanged(NoteChangedEvent.shareRevoked(note, "token"));
+        assertThat(cache.get(1L)).isNull();
+    }
+
+    @Test
+    void expiredNotesAndExpiredShareLinksAreEvicted() throws Exception {
+        NoteCache cache = cache(false);
+        LocalDateTime now = LocalDateTime.now();
+        cache.put(note(1L, "kept"), cache.generation());
+        cache.put(note(2L, "expired").toBuilder().expirationTime(now.minusMinutes(1)).build(), cache.generation());
+        cache.put(note(3L, "shared").toBuilder().shareToken("token")
+            .shareExpirationTime(now.minusMinutes(1)).build(), cache.generation());
+
+        cache.evictExpired(now);
+
+        assertThat(cache.get(1L)).isNotNull();
+        assertThat(cache.get(2L)).isNull();
+        assertThat(cache.get(3L)).isNull();
+    }
+
+    @Test
+    void encryptedEntriesKeepTheCiphertextAndDecryptOnEveryHit() throws Exception {
+        NoteCache cache = cache(true);
+        Note note = note(1L, "secret");
+
+        CachedNote entry = cache.put(note, cache.generation());
+
+        assertThat(entry.isEncrypted()).isTrue();
+        assertThat(entry.getContent()).isEqualTo(note.getContent()).doesNotContain("secret");
+        assertThat(cache.toDto(cache.get(1L), null).content()).isEqualTo("secret");
+    }
+
+    @Test
+    void aDisabledCacheStoresNothing() throws Exception {
+        NoteCache cache = new NoteCache(encryptionUtil, false, false, 1 << 20, Duration.ofMinutes(10));
+
+        cache.put(note(1L, "content"), cache.generation());
+
+        assertThat(cache.get(1L)).isNull();
+    }
+
+    private NoteCache cache(boolean storeEncrypted) {
+        return new NoteCache(encryptionUtil, true, storeEncrypted, 1 << 20, Duration.ofMinutes(10));
+    }
+
+    private Note note(Long id, String content) throws Exception {
+        return Note.builder()
+            .id(id)
+            .title(encryptionUtil.encrypt("title"))
+            .content(encryptionUtil.encryptChunked(content))
+            .updatedAt(LocalDateTime.now())
+            .ownerId(10L)
+            .version(0L)
+            .build();
+    }
+}
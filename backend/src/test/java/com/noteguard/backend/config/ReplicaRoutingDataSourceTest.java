@@ -0,0 +1,200 @@
+package com.noteguard.backend.config;
+
+import com.noteguard.backend.cache.NoteCache;
+import com.noteguard.backend.metrics.NoteGuardMetrics;
+import com.noteguard.backend.model.Note;
+import com.noteguard.backend.util.EncryptionUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routing against two embedded H2 databases, wired the way ReplicaRoutingConfig
+ * wires them (lazy proxy around the routing data source). Each database holds a
+ * marker row naming it, so a query shows where it ran.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private DataSource primary;
+    private DataSource replica;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+    }
+
+    @AfterEach
+    void clearUser() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplica() {
+        Routing routing = new Routing(replica);
+
+        assertThat(routing.read()).isEqualTo("replica");
+        assertThat(routing.readInTransaction(ReplicaRoutingDataSource::isReplicaRead)).isTrue();
+        assertThat(ReplicaRoutingDataSource.isReplicaRead()).isFalse();
+        assertThat(routing.write()).isEqualTo("primary");
+        assertThat(routing.dataSource.getReplicaReads()).isEqualTo(2);
+    }
+
+    @Test
+    void aWritePinsOnlyTheWriterToThePrimary() {
+        Routing routing = new Routing(replica);
+
+        signIn("alice");
+        assertThat(routing.read()).isEqualTo("replica");
+        assertThat(routing.write()).isEqualTo("primary");
+        assertThat(routing.read()).isEqualTo("primary");
+        assertThat(routing.dataSource.readsFromReplica()).isFalse();
+        assertThat(routing.readInTransaction(ReplicaRoutingDataSource::isReplicaRead)).isFalse();
+
+        signIn("bob");
+        assertThat(routing.read()).isEqualTo("replica");
+        SecurityContextHolder.clearContext();
+        assertThat(routing.read()).isEqualTo("replica");
+        assertThat(routing.dataSource.getPinnedReads()).isEqualTo(2);
+    }
+
+    @Test
+    void theWriterIsUnpinnedAfterTheWindow() throws InterruptedException {
+        Routing routing = new Routing(replica, Duration.ofMillis(50));
+
+        signIn("alice");
+        routing.write();
+        assertThat(routing.read()).isEqualTo("primary");
+        Thread.sleep(100);
+        assertThat(routing.read()).isEqualTo("replica");
+        routing.dataSource.purgeWriteMarks();
+        assertThat(routing.dataSource.getPinnedUsers()).isZero();
+    }
+
+    @Test
+    void anUnreachableReplicaFallsBackToThePrimary() {
+        JdbcDataSource unreachable = new JdbcDataSource();
+        unreachable.setURL("jdbc:h2:tcp://localhost:1/mem:unreachable");
+        Routing routing = new Routing(unreachable);
+
+        assertThat(routing.read()).isEqualTo("primary");
+        assertThat(routing.dataSource.isReplicaHealthy()).isFalse();
+        assertThat(routing.dataSource.getFallbacks()).isEqualTo(1);
+        assertThat(routing.readInTransaction(ReplicaRoutingDataSource::isReplicaRead)).isFalse();
+
+        // Marked unhealthy, later reads go straight to the primary
+        assertThat(routing.read()).isEqualTo("primary");
+        assertThat(routing.dataSource.getFallbacks()).isEqualTo(1);
+        assertThat(routing.dataSource.getPrimaryReads()).isEqualTo(2);
+        assertThat(routing.dataSource.checkReplica(1)).isFalse();
+    }
+
+    @Test
+    void aRecoveredReplicaIsUsedAgain() {
+        Routing routing = new Routing(replica);
+        routing.dataSource.markReplicaHealthy(false, "test");
+        assertThat(routing.read()).isEqualTo("primary");
+
+        assertThat(routing.dataSource.checkReplica(1)).isTrue();
+        assertThat(routing.read()).isEqualTo("replica");
+    }
+
+    @Test
+    void notesReadFromTheReplicaAreNotCached() throws Exception {
+        Routing routing = new Routing(replica);
+        NoteCache noteCache = new NoteCache(
+            new EncryptionUtil("test-key", new NoteGuardMetrics(new SimpleMeterRegistry()), 2048),
+            true, true, 1 << 20, Duration.ofMinutes(10));
+        Note note = Note.builder().id(7L).ownerId(1L).title("title").content("content")
+            .updatedAt(LocalDateTime.now()).version(3L).build();
+
+        routing.readInTransaction(() -> put(noteCache, note));
+        assertThat(noteCache.get(7L)).isNull();
+
+        signIn("alice");
+        routing.write();
+        routing.readInTransaction(() -> put(noteCache, note));
+        assertThat(noteCache.get(7L)).isNotNull();
+    }
+
+    private static Object put(NoteCache noteCache, Note note) {
+        try {
+            return noteCache.put(note, noteCache.generation());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void signIn(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken(username, null, List.of()));
+    }
+
+    private static DataSource database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE marker (name VARCHAR(16))");
+        jdbc.update("INSERT INTO marker VALUES (?)", name);
+        return dataSource;
+    }
+
+    private class Routing {
+
+        final ReplicaRoutingDataSource dataSource;
+        final JdbcTemplate jdbc;
+        final TransactionTemplate readOnly;
+        final TransactionTemplate readWrite;
+
+        Routing(DataSource replica) {
+            this(replica, Duration.ofSeconds(5));
+        }
+
+        Routing(DataSource replica, Duration readYourWritesWindow) {
+            dataSource = new ReplicaRoutingDataSource(primary, replica, readYourWritesWindow);
+            LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(dataSource);
+            DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(proxy);
+            jdbc = new JdbcTemplate(proxy);
+            readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            readWrite = new TransactionTemplate(transactionManager);
+        }
+
+        // The first statement of a transaction decides its route
+        String query() {
+            return jdbc.queryForObject("SELECT name FROM marker", String.class);
+        }
+
+        String read() {
+            return readOnly.execute(status -> query());
+        }
+
+        String write() {
+            return readWrite.execute(status -> query());
+        }
+
+        <T> T readInTransaction(Supplier<T> work) {
+            return readOnly.execute(status -> {
+                query();
+                return work.get();
+            });
+        }
+    }
+}
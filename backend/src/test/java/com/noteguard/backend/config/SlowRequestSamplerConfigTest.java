@@ -0,0 +1,42 @@
+package com.noteguard.backend.config;
+
+import com.noteguard.backend.metrics.SamplingDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlowRequestSamplerConfigTest {
+
+    @Test
+    void onlyTheApplicationDataSourceIsWrapped() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("dataSource", new RootBeanDefinition(DriverManagerDataSource.class));
+        beanFactory.registerBeanDefinition("otherDataSource", new RootBeanDefinition(DriverManagerDataSource.class));
+
+        assertThat(postProcess(beanFactory, "dataSource")).isInstanceOf(SamplingDataSource.class);
+        assertThat(postProcess(beanFactory, "otherDataSource")).isInstanceOf(DriverManagerDataSource.class);
+    }
+
+    @Test
+    void aPrimaryDataSourceIsWrappedWhateverItsName() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        RootBeanDefinition primary = new RootBeanDefinition(DriverManagerDataSource.class);
+        primary.setPrimary(true);
+        beanFactory.registerBeanDefinition("railwayDataSource", primary);
+
+        assertThat(postProcess(beanFactory, "railwayDataSource")).isInstanceOf(SamplingDataSource.class);
+    }
+
+    private static Object postProcess(DefaultListableBeanFactory beanFactory, String beanName) {
+        SlowRequestSamplerConfig.SamplingDataSourcePostProcessor postProcessor =
+            SlowRequestSamplerConfig.samplingDataSourcePostProcessor();
+        postProcessor.setBeanFactory(beanFactory);
+        DataSource dataSource = new DriverManagerDataSource();
+        return postProcessor.postProcessAfterInitialization(dataSource, beanName);
+    }
+}
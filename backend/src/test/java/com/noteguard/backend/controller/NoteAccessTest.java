@@ -0,0 +1,119 @@
+package com.noteguard.backend.controller;
+
+import com.noteguard.backend.model.Note;
+import com.noteguard.backend.model.Role;
+import com.noteguard.backend.model.User;
+import com.noteguard.backend.repository.NoteRepository;
+import com.noteguard.backend.repository.NoteTombstoneRepository;
+import com.noteguard.backend.repository.UserRepository;
+import com.noteguard.backend.util.EncryptionUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Owner, admin and other users against GET /api/notes/{id}, with and without
+ * If-None-Match: a 304 is only ever given to whoever the GET would answer with 200.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+@TestPropertySource(properties = "management.server.port=-1")
+class NoteAccessTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private NoteTombstoneRepository noteTombstoneRepository;
+
+    @Autowired
+    private EncryptionUtil encryptionUtil;
+
+    private Long noteId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        User owner = userRepository.save(User.builder().username("owner").email("owner@example.com")
+            .password("x").build());
+        userRepository.save(User.builder().username("other").email("other@example.com").password("x").build());
+        userRepository.save(User.builder().username("admin").email("admin@example.com").password("x")
+            .role(Role.ADMIN).build());
+        noteId = noteRepository.saveAndFlush(Note.builder()
+            .title(encryptionUtil.encrypt("title"))
+            .content(encryptionUtil.encryptChunked("content"))
+            .updatedAt(LocalDateTime.now())
+            .user(owner)
+            .ownerId(owner.getId())
+            .build()).getId();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        noteTombstoneRepository.deleteAll();
+        noteRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void theOwnerAndAnAdminGetTheNoteAndA304() throws Exception {
+        String etag = etag("owner");
+
+        assertThat(etag("admin")).isEqualTo(etag);
+        mockMvc.perform(get("/api/notes/{id}", noteId).with(user("owner")).header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/notes/{id}", noteId).with(user("admin")).header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void anotherUserGets403EvenWithTheCurrentETag() throws Exception {
+        String etag = etag("owner");
+
+        mockMvc.perform(get("/api/notes/{id}", noteId).with(user("other")))
+            .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/notes/{id}", noteId).with(user("other")).header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void anAdminCanDeleteAnotherUsersNote() throws Exception {
+        mockMvc.perform(delete("/api/notes/{id}", noteId).with(user("other")))
+            .andExpect(status().isForbidden());
+        mockMvc.perform(delete("/api/notes/{id}", noteId).with(user("admin")))
+            .andExpect(status().isOk());
+
+        assertThat(noteRepository.findById(noteId)).isEmpty();
+    }
+
+    private String etag(String username) throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/notes/{id}", noteId).with(user(username)))
+            .andExpect(status().isOk())
+            .andReturn();
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotNull();
+        return etag;
+    }
+}
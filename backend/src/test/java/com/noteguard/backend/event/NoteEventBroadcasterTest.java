@@ -0,0 +1,113 @@
+package com.noteguard.backend.event;
+
+import com.noteguard.backend.metrics.NoteGuardMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Streams whose sender is held back, so queued events pile up the way they do
+ * for a client that stopped reading.
+ */
+class NoteEventBroadcasterTest {
+
+    private static final int BUFFER_SIZE = 4;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private NoteEventBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        broadcaster = new NoteEventBroadcaster(new NoteGuardMetrics(registry), BUFFER_SIZE, 2, 3,
+            Duration.ofMinutes(30), Duration.ofSeconds(5));
+        ExecutorService blocked = Executors.newSingleThreadExecutor();
+        blocked.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        ExecutorService sender = (ExecutorService) ReflectionTestUtils.getField(broadcaster, "sender");
+        sender.shutdown();
+        ReflectionTestUtils.setField(broadcaster, "sender", blocked);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        broadcaster.shutdown();
+    }
+
+    @Test
+    void aStreamThatStopsReadingIsEvictedWithoutBlockingThePublisher() {
+        broadcaster.subscribe(1L);
+        broadcaster.subscribe(2L);
+
+        // The opening heartbeat and BUFFER_SIZE - 1 events fill the queue
+        for (int i = 0; i < BUFFER_SIZE - 1; i++) {
+            broadcaster.onNoteChanged(updated(1L));
+        }
+        assertThat(broadcaster.getSubscriberCount()).isEqualTo(2);
+        assertThat(evictions()).isZero();
+
+        broadcaster.onNoteChanged(updated(1L));
+        broadcaster.onNoteChanged(updated(1L));
+
+        assertThat(broadcaster.getSubscriberCount()).isEqualTo(1);
+        assertThat(evictions()).isEqualTo(1);
+    }
+
+    @Test
+    void heartbeatsAloneNeverEvictAStream() {
+        broadcaster.subscribe(1L);
+
+        for (int i = 0; i < 2 * BUFFER_SIZE; i++) {
+            broadcaster.heartbeat();
+        }
+
+        assertThat(broadcaster.getSubscriberCount()).isEqualTo(1);
+        assertThat(evictions()).isZero();
+    }
+
+    @Test
+    void theOldestStreamOfAUserIsClosedPastMaxPerUser() {
+        broadcaster.subscribe(1L);
+        broadcaster.subscribe(1L);
+        broadcaster.subscribe(1L);
+
+        assertThat(broadcaster.getSubscriberCount()).isEqualTo(2);
+        assertThat(evictions()).isEqualTo(1);
+    }
+
+    @Test
+    void streamsPastMaxSubscribersAreRefused() {
+        broadcaster.subscribe(1L);
+        broadcaster.subscribe(2L);
+        broadcaster.subscribe(3L);
+
+        assertThatThrownBy(() -> broadcaster.subscribe(4L)).isInstanceOf(IllegalStateException.class);
+        assertThat(broadcaster.getSubscriberCount()).isEqualTo(3);
+    }
+
+    private double evictions() {
+        return registry.counter("noteguard.sse.evictions").count();
+    }
+
+    private static NoteChangedEvent updated(Long ownerId) {
+        return new NoteChangedEvent(NoteChangedEvent.Type.UPDATED, 100L, ownerId, null, null, null,
+            LocalDateTime.now(), 1L);
+    }
+}
@@ -0,0 +1,159 @@
+package com.noteguard.backend.idempotency;
+
+import com.noteguard.backend.metrics.NoteGuardMetrics;
+import com.noteguard.backend.repository.IdempotencyRecordRepository;
+import com.noteguard.backend.util.EncryptionUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The shared store against the idempotency_keys table, created by the MySQL
+ * migrations on H2 (h2 profile). Not run in a test transaction, so concurrent
+ * claims commit like they would from separate requests.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DatabaseIdempotencyStoreTest {
+
+    private static final String NOTE = "{\"id\":1,\"title\":\"Secret plan\",\"content\":\"meet at noon\"}";
+
+    @Autowired
+    private IdempotencyRecordRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private DatabaseIdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = store(Duration.ofSeconds(30));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void claimCompleteAndReplay() {
+        assertThat(store.claim("key", "body").outcome()).isEqualTo(IdempotencyStore.Outcome.ACQUIRED);
+        assertThat(store.claim("key", "body").outcome()).isEqualTo(IdempotencyStore.Outcome.IN_PROGRESS);
+
+        store.complete("key", new IdempotencyStore.StoredResponse(201, "application/json", bytes(NOTE)));
+        IdempotencyStore.Claim replay = store.claim("key", "body");
+
+        assertThat(replay.outcome()).isEqualTo(IdempotencyStore.Outcome.REPLAY);
+        assertThat(replay.response().status()).isEqualTo(201);
+        assertThat(replay.response().contentType()).isEqualTo("application/json");
+        assertThat(replay.response().body()).isEqualTo(bytes(NOTE));
+    }
+
+    @Test
+    void aDifferentBodyIsAMismatch() {
+        store.claim("key", "body");
+        assertThat(store.claim("key", "other").outcome()).isEqualTo(IdempotencyStore.Outcome.MISMATCH);
+
+        store.complete("key", new IdempotencyStore.StoredResponse(201, "application/json", bytes(NOTE)));
+        assertThat(store.claim("key", "other").outcome()).isEqualTo(IdempotencyStore.Outcome.MISMATCH);
+    }
+
+    @Test
+    void storedResponsesAreEncrypted() {
+        store.claim("key", "body");
+        store.complete("key", new IdempotencyStore.StoredResponse(201, "application/json", bytes(NOTE)));
+
+        String stored = jdbc.queryForObject("SELECT response_body FROM idempotency_keys WHERE id = 'key'", String.class);
+        assertThat(stored).doesNotContain("Secret plan").doesNotContain("meet at noon");
+        assertThat(stored).isNotEqualTo(Base64.getEncoder().encodeToString(bytes(NOTE)));
+    }
+
+    @Test
+    void binaryBodiesReplayByteForByte() {
+        byte[] body = new byte[256];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) i;
+        }
+        store.claim("key", "body");
+        store.complete("key", new IdempotencyStore.StoredResponse(201, "application/cbor", body));
+
+        assertThat(store.claim("key", "body").response().body()).isEqualTo(body);
+    }
+
+    @Test
+    void aReleasedClaimCanBeTakenAgain() {
+        store.claim("key", "body");
+        store.release("key");
+
+        assertThat(store.claim("key", "body").outcome()).isEqualTo(IdempotencyStore.Outcome.ACQUIRED);
+    }
+
+    @Test
+    void anAbandonedClaimIsTakenOverAfterTheLease() throws InterruptedException {
+        DatabaseIdempotencyStore shortLease = store(Duration.ofMillis(50));
+        shortLease.claim("key", "body");
+        Thread.sleep(100);
+
+        assertThat(shortLease.claim("key", "body").outcome()).isEqualTo(IdempotencyStore.Outcome.ACQUIRED);
+    }
+
+    @Test
+    void exactlyOneOfConcurrentClaimsIsAcquired() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(20);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<IdempotencyStore.Outcome>> outcomes = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                Callable<IdempotencyStore.Outcome> claim = () -> {
+                    start.await();
+                    return store.claim("key", "body").outcome();
+                };
+                outcomes.add(executor.submit(claim));
+            }
+            start.countDown();
+
+            List<IdempotencyStore.Outcome> results = new ArrayList<>();
+            for (Future<IdempotencyStore.Outcome> outcome : outcomes) {
+                results.add(outcome.get());
+            }
+            assertThat(results).filteredOn(IdempotencyStore.Outcome.ACQUIRED::equals).hasSize(1);
+            assertThat(results).filteredOn(IdempotencyStore.Outcome.IN_PROGRESS::equals).hasSize(19);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private DatabaseIdempotencyStore store(Duration lease) {
+        EncryptionUtil encryptionUtil = new EncryptionUtil("test-key",
+            new NoteGuardMetrics(new SimpleMeterRegistry()), 2048);
+        return new DatabaseIdempotencyStore(repository, encryptionUtil, Duration.ofHours(1), lease);
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,267 @@
+package com.noteguard.backend.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.noteguard.backend.metrics.NoteGuardMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The filter around a fake controller that counts its calls, with the in-memory store
+ */
+class IdempotencyFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicInteger calls = new AtomicInteger();
+    private IdempotencyFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new IdempotencyFilter(new InMemoryIdempotencyStore(Duration.ofHours(1), Duration.ofSeconds(30), 1 << 20),
+            new ObjectMapper(), new NoteGuardMetrics(registry), true);
+        signIn("alice");
+    }
+
+    @AfterEach
+    void clearUser() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void aRetryGetsTheFirstResponseWithoutRunningAgain() throws Exception {
+        MockHttpServletResponse first = post("/api/notes", "key-1", "{\"title\":\"a\"}", created());
+        MockHttpServletResponse retry = post("/api/notes", "key-1", "{\"title\":\"a\"}", created());
+
+        assertThat(calls).hasValue(1);
+        assertThat(first.getStatus()).isEqualTo(201);
+        assertThat(first.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isNull();
+        assertThat(retry.getStatus()).isEqualTo(201);
+        assertThat(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(retry.getContentType()).isEqualTo(first.getContentType());
+        assertThat(retry.getContentAsByteArray()).isEqualTo(first.getContentAsByteArray());
+        assertThat(outcome("acquired")).isEqualTo(1);
+        assertThat(outcome("replay")).isEqualTo(1);
+    }
+
+    @Test
+    void theSameKeyWithAnotherBodyIsRejected() throws Exception {
+        post("/api/notes", "key-1", "{\"title\":\"a\"}", created());
+        MockHttpServletResponse other = post("/api/notes", "key-1", "{\"title\":\"b\"}", created());
+
+        assertThat(other.getStatus()).isEqualTo(422);
+        assertThat(calls).hasValue(1);
+        assertThat(outcome("mismatch")).isEqualTo(1);
+    }
+
+    @Test
+    void theSameKeyAskingForAnotherRepresentationIsRejected() throws Exception {
+        post("/api/notes", "key-1", "{}", "application/json", created());
+        MockHttpServletResponse other = post("/api/notes", "key-1", "{}", "application/cbor", created());
+
+        assertThat(other.getStatus()).isEqualTo(422);
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void theBufferedBodyCanBeReadAsynchronously() throws Exception {
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        AtomicBoolean allRead = new AtomicBoolean();
+        post("/api/notes", "key-1", "{\"title\":\"a\"}", (request, response) -> {
+            ServletInputStream input = request.getInputStream();
+            input.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    while (input.isReady() && !input.isFinished()) {
+                        read.write(input.read());
+                    }
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    allRead.set(true);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    throw new IllegalStateException(t);
+                }
+            });
+        });
+
+        assertThat(allRead).isTrue();
+        assertThat(read.toString(StandardCharsets.UTF_8)).isEqualTo("{\"title\":\"a\"}");
+    }
+
+    @Test
+    void aRetryWhileTheFirstRunsIsToldToWait() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        Thread first = new Thread(() -> {
+            try {
+                signIn("alice");
+                post("/api/notes", "key-1", "{}", (request, response) -> {
+                    running.countDown();
+                    await(finish);
+                    created().doFilter(request, response);
+                });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        first.start();
+        running.await();
+
+        MockHttpServletResponse retry = post("/api/notes", "key-1", "{}", created());
+        finish.countDown();
+        first.join();
+
+        assertThat(retry.getStatus()).isEqualTo(409);
+        assertThat(retry.getHeader("Retry-After")).isEqualTo("1");
+        assertThat(calls).hasValue(1);
+        assertThat(outcome("in_progress")).isEqualTo(1);
+        assertThat(post("/api/notes", "key-1", "{}", created()).getHeader(IdempotencyFilter.REPLAYED_HEADER))
+            .isEqualTo("true");
+    }
+
+    @Test
+    void concurrentRetriesRunOnce() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        AtomicInteger conflicts = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    signIn("alice");
+                    await(start);
+                    MockHttpServletResponse response = post("/api/notes", "key-1", "{}", (request, res) -> {
+                        // Hold the key until every other request has been answered
+                        await(finish);
+                        created().doFilter(request, res);
+                    });
+                    if (response.getStatus() == 409 && conflicts.incrementAndGet() == 19) {
+                        finish.countDown();
+                    }
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(calls).hasValue(1);
+        assertThat(conflicts).hasValue(19);
+    }
+
+    @Test
+    void aFailedRequestCanBeRetried() throws Exception {
+        MockHttpServletResponse failed = post("/api/notes", "key-1", "{}", (request, response) -> {
+            calls.incrementAndGet();
+            ((HttpServletResponse) response).setStatus(500);
+        });
+        MockHttpServletResponse retry = post("/api/notes", "key-1", "{}", created());
+
+        assertThat(failed.getStatus()).isEqualTo(500);
+        assertThat(retry.getStatus()).isEqualTo(201);
+        assertThat(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isNull();
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    void keysAreScopedToTheUserAndRoute() throws Exception {
+        post("/api/notes", "key-1", "{}", created());
+        post("/api/notes/7/share", "key-1", "{}", created());
+        signIn("bob");
+        MockHttpServletResponse other = post("/api/notes", "key-1", "{}", created());
+
+        assertThat(other.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isNull();
+        assertThat(calls).hasValue(3);
+    }
+
+    @Test
+    void requestsWithoutAKeyOrOnOtherRoutesPassThrough() throws Exception {
+        post("/api/notes", null, "{}", created());
+        post("/api/notes", null, "{}", created());
+        post("/api/notes/7", "key-1", "{}", created());
+        post("/api/notes/7", "key-1", "{}", created());
+
+        assertThat(calls).hasValue(4);
+    }
+
+    private MockHttpServletResponse post(String path, String key, String body, FilterChain chain) throws Exception {
+        return post(path, key, body, null, chain);
+    }
+
+    private MockHttpServletResponse post(String path, String key, String body, String accept,
+                                         FilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setContentType("application/json");
+        if (accept != null) {
+            request.addHeader("Accept", accept);
+        }
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        if (key != null) {
+            request.addHeader(IdempotencyFilter.HEADER, key);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    // Answers 201 with the request body and a per-call id, so a replay is told apart from a rerun
+    private FilterChain created() {
+        return (request, response) -> {
+            int call = calls.incrementAndGet();
+            byte[] body = request.getInputStream().readAllBytes();
+            HttpServletResponse http = (HttpServletResponse) response;
+            http.setStatus(201);
+            http.setContentType("application/json");
+            http.getOutputStream().write(("{\"call\":" + call + ",\"body\":" + new String(body, StandardCharsets.UTF_8)
+                + "}").getBytes(StandardCharsets.UTF_8));
+        };
+    }
+
+    private double outcome(String outcome) {
+        return registry.counter("noteguard.idempotency.requests", "outcome", outcome).count();
+    }
+
+    private static void signIn(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken(username, null, List.of()));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
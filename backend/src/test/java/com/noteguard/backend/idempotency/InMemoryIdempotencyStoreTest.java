@@ -0,0 +1,37 @@
+package com.noteguard.backend.idempotency;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryIdempotencyStoreTest {
+
+    @Test
+    void runningClaimsAreNotEvictedForSpace() {
+        InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(Duration.ofHours(1), Duration.ofMinutes(1), 4096);
+        store.claim("running", "body");
+
+        // Completed responses well past the size bound
+        for (int i = 0; i < 100; i++) {
+            store.claim("done-" + i, "body");
+            store.complete("done-" + i, new IdempotencyStore.StoredResponse(201, "application/json", new byte[512]));
+        }
+        store.cleanUp();
+
+        assertThat(store.claim("running", "body").outcome()).isEqualTo(IdempotencyStore.Outcome.IN_PROGRESS);
+    }
+
+    @Test
+    void aRunningClaimLapsesAfterTheLease() throws InterruptedException {
+        InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(Duration.ofHours(1), Duration.ofMillis(50), 4096);
+        store.claim("running", "body");
+        store.claim("done", "body");
+        store.complete("done", new IdempotencyStore.StoredResponse(201, "application/json", new byte[16]));
+        Thread.sleep(100);
+
+        assertThat(store.claim("running", "body").outcome()).isEqualTo(IdempotencyStore.Outcome.ACQUIRED);
+        assertThat(store.claim("done", "body").outcome()).isEqualTo(IdempotencyStore.Outcome.REPLAY);
+    }
+}
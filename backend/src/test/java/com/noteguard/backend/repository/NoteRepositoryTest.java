@@ -0,0 +1,68 @@
+package com.noteguard.backend.repository;
+
+import com.noteguard.backend.model.Note;
+import com.noteguard.backend.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bulk statements against the MySQL migrations on H2 (h2 profile)
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class NoteRepositoryTest {
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void invalidatedShareLinksAreReportedToSync() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        User user = userRepository.save(User.builder().username("alice").email("alice@example.com")
+            .password("x").build());
+        Note expired = note(user, now.minusHours(2), now.minusMinutes(1));
+        Note valid = note(user, now.minusHours(2), now.plusHours(1));
+        LocalDateTime cursor = now.minusHours(1);
+
+        int invalidated = noteRepository.invalidateExpiredShareTokens(now);
+        entityManager.clear();
+
+        assertThat(invalidated).isEqualTo(1);
+        Note cleared = noteRepository.findById(expired.getId()).orElseThrow();
+        assertThat(cleared.getShareToken()).isNull();
+        assertThat(cleared.getUpdatedAt()).isEqualTo(now);
+        assertThat(cleared.getVersion()).isEqualTo(expired.getVersion() + 1);
+        assertThat(noteRepository.findChangesSince(user.getId(), cursor))
+            .extracting(NoteChangeView::getNoteId)
+            .containsExactly(expired.getId());
+        assertThat(noteRepository.findById(valid.getId()).orElseThrow().getShareToken()).isNotNull();
+    }
+
+    private Note note(User user, LocalDateTime updatedAt, LocalDateTime shareExpirationTime) {
+        return noteRepository.saveAndFlush(Note.builder()
+            .title("title")
+            .content("content")
+            .updatedAt(updatedAt)
+            .shareToken("token-" + shareExpirationTime)
+            .shareExpirationTime(shareExpirationTime)
+            .user(user)
+            .ownerId(user.getId())
+            .build());
+    }
+}
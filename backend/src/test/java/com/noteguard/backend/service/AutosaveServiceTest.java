@@ -0,0 +1,188 @@
+package com.noteguard.backend.service;
+
+import com.noteguard.backend.cache.NoteListVersions;
+import com.noteguard.backend.dto.AutosaveResponse;
+import com.noteguard.backend.dto.NoteDto;
+import com.noteguard.backend.dto.NoteRevisionSummary;
+import com.noteguard.backend.metrics.NoteGuardMetrics;
+import com.noteguard.backend.model.Note;
+import com.noteguard.backend.model.User;
+import com.noteguard.backend.repository.NoteRepository;
+import com.noteguard.backend.repository.NoteRevisionRepository;
+import com.noteguard.backend.repository.UserRepository;
+import com.noteguard.backend.util.EncryptionUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The write-behind buffer against the MySQL migrations on H2 (h2 profile).
+ * Not run in a test transaction, since flushes commit their own. With a zero
+ * quiet period every flushDue writes whatever is buffered.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({AutosaveService.class, NoteRevisionService.class, EncryptionUtil.class, NoteGuardMetrics.class,
+    NoteListVersions.class, AutosaveServiceTest.Metrics.class})
+@TestPropertySource(properties = {
+    "app.autosave.quiet-period=0s",
+    "app.autosave.revision-interval=1h"
+})
+class AutosaveServiceTest {
+
+    private static final String TEXT = "lorem ipsum dolor sit amet ".repeat(20);
+
+    @TestConfiguration
+    static class Metrics {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private AutosaveService autosaveService;
+
+    @Autowired
+    private NoteRevisionService noteRevisionService;
+
+    @Autowired
+    private NoteRevisionRepository noteRevisionRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EncryptionUtil encryptionUtil;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Long noteId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        User user = userRepository.save(User.builder().username("alice").email("alice@example.com")
+            .password("x").build());
+        noteId = noteRepository.saveAndFlush(Note.builder()
+            .title(encryptionUtil.encrypt("title"))
+            .content(encryptionUtil.encryptChunked(TEXT + "stored"))
+            .updatedAt(LocalDateTime.now().minusMinutes(1).truncatedTo(ChronoUnit.MICROS))
+            .user(user)
+            .ownerId(user.getId())
+            .build()).getId();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        noteRevisionRepository.deleteAll();
+        noteRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void readsSeeTheBufferedVersionAsItWillBeWritten() throws Exception {
+        AutosaveResponse saved = autosaveService.save(noteId, null, TEXT + "autosaved", "alice");
+        NoteDto stored = stored();
+
+        NoteDto overlaid = autosaveService.overlay(stored);
+
+        assertThat(saved.buffered()).isTrue();
+        assertThat(overlaid.content()).isEqualTo(TEXT + "autosaved");
+        assertThat(overlaid.title()).isEqualTo("title");
+        assertThat(overlaid.updatedAt()).isEqualTo(saved.updatedAt());
+        assertThat(overlaid.version()).isEqualTo(stored.version() + 1).isEqualTo(saved.version());
+
+        autosaveService.flushDue();
+        NoteDto flushed = stored();
+
+        assertThat(flushed.content()).isEqualTo(TEXT + "autosaved");
+        assertThat(flushed.updatedAt()).isEqualTo(saved.updatedAt());
+        assertThat(flushed.version()).isEqualTo(saved.version());
+        assertThat(autosaveService.overlay(flushed)).isSameAs(flushed);
+    }
+
+    @Test
+    void savesBetweenFlushesAreWrittenOnce() throws Exception {
+        // The registry is shared by every test in the context
+        double writes = writes();
+        autosaveService.save(noteId, "new title", TEXT + "one", "alice");
+        autosaveService.save(noteId, null, TEXT + "two", "alice");
+        AutosaveResponse last = autosaveService.save(noteId, null, TEXT + "three", "alice");
+
+        autosaveService.flushDue();
+        NoteDto flushed = stored();
+
+        assertThat(flushed.title()).isEqualTo("new title");
+        assertThat(flushed.content()).isEqualTo(TEXT + "three");
+        assertThat(flushed.updatedAt()).isEqualTo(last.updatedAt());
+        assertThat(writes()).isEqualTo(writes + 1);
+    }
+
+    @Test
+    void aLaterWriteWinsOverABufferedSave() throws Exception {
+        autosaveService.save(noteId, null, TEXT + "autosaved", "alice");
+        // A PUT lands before the flush
+        Note note = noteRepository.findById(noteId).orElseThrow();
+        note.setContent(encryptionUtil.encryptChunked(TEXT + "put"));
+        note.setUpdatedAt(LocalDateTime.now().plusSeconds(1).truncatedTo(ChronoUnit.MICROS));
+        noteRepository.saveAndFlush(note);
+        NoteDto afterPut = stored();
+
+        assertThat(autosaveService.overlay(afterPut)).isSameAs(afterPut);
+
+        autosaveService.flushDue();
+
+        assertThat(stored().content()).isEqualTo(TEXT + "put");
+        assertThat(stored().version()).isEqualTo(afterPut.version());
+        assertThat(autosaveService.effectiveUpdatedAt(noteId, afterPut.updatedAt())).isEqualTo(afterPut.updatedAt());
+    }
+
+    @Test
+    void flushesWithinTheRevisionIntervalKeepOneRevision() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            autosaveService.save(noteId, null, TEXT + "autosave " + i, "alice");
+            autosaveService.flushDue();
+        }
+
+        assertThat(stored().content()).isEqualTo(TEXT + "autosave 2");
+        assertThat(noteRevisionService.listRevisions(noteId, "alice"))
+            .extracting(NoteRevisionSummary::version)
+            .containsExactly(0L);
+        assertThat(noteRevisionService.getRevision(noteId, 0L, "alice").content()).isEqualTo(TEXT + "stored");
+    }
+
+    private double writes() {
+        return meterRegistry.counter("noteguard.autosave.writes").count();
+    }
+
+    private NoteDto stored() throws Exception {
+        Note note = noteRepository.findById(noteId).orElseThrow();
+        return new NoteDto(note.getId(), encryptionUtil.decrypt(note.getTitle()),
+            encryptionUtil.decrypt(note.getContent()), note.getUpdatedAt(), note.getVersion(), note.getCreatedAt(),
+            note.getExpirationTime(), note.getShareToken(), note.getShareExpirationTime(), note.getOwnerId(), null);
+    }
+}
@@ -0,0 +1,289 @@
+package com.noteguard.backend.service;
+
+import com.noteguard.backend.dto.NoteRevisionDto;
+import com.noteguard.backend.dto.NoteRevisionSummary;
+import com.noteguard.backend.exception.ResourceNotFoundException;
+import com.noteguard.backend.metrics.NoteGuardMetrics;
+import com.noteguard.backend.model.Note;
+import com.noteguard.backend.model.NoteRevision;
+import com.noteguard.backend.model.User;
+import com.noteguard.backend.repository.NoteRepository;
+import com.noteguard.backend.repository.NoteRevisionRepository;
+import com.noteguard.backend.repository.UserRepository;
+import com.noteguard.backend.util.EncryptionUtil;
+import com.noteguard.backend.util.TextDeltas;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Revision history against the MySQL migrations on H2 (h2 profile). Writes go
+ * through the note entity and {@link NoteRevisionService#record} the way
+ * NoteService does; every version written is remembered in plaintext and
+ * compared with what the service reconstructs.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({NoteRevisionService.class, EncryptionUtil.class, NoteGuardMetrics.class,
+    NoteRevisionServiceTest.Metrics.class})
+@TestPropertySource(properties = {
+    "app.revisions.snapshot-interval=" + NoteRevisionServiceTest.SNAPSHOT_INTERVAL,
+    "app.revisions.max-per-note=" + NoteRevisionServiceTest.MAX_PER_NOTE,
+    "app.encryption.chunk-size=16"
+})
+class NoteRevisionServiceTest {
+
+    static final int SNAPSHOT_INTERVAL = 3;
+    static final int MAX_PER_NOTE = 10;
+
+    @TestConfiguration
+    static class Metrics {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private NoteRevisionService noteRevisionService;
+
+    @Autowired
+    private NoteRevisionRepository noteRevisionRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EncryptionUtil encryptionUtil;
+
+    // Plaintext content of every version a revision was recorded for
+    private final Map<Long, String> history = new HashMap<>();
+    private Long noteId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        User user = userRepository.save(User.builder().username("alice").email("alice@example.com")
+            .password("x").build());
+        Note note = noteRepository.saveAndFlush(Note.builder()
+            .title(encryptionUtil.encrypt("title"))
+            .content(encryptionUtil.encryptChunked("first version"))
+            .updatedAt(LocalDateTime.now())
+            .user(user)
+            .ownerId(user.getId())
+            .build());
+        noteId = note.getId();
+    }
+
+    @Test
+    void versionsAroundSharingAreReconstructed() throws Exception {
+        put("second version");
+        share("token-1");
+        put("third version, written while shared");
+        revoke();
+        share("token-2");
+        put("fourth version");
+
+        assertThat(versions()).containsExactly(5L, 2L, 0L);
+        assertAllReconstructed();
+        // Share and revoke bump the version without a revision of their own
+        assertThatThrownBy(() -> noteRevisionService.getRevision(noteId, 1L, "alice"))
+            .isInstanceOf(ResourceNotFoundException.class);
+        assertThatThrownBy(() -> noteRevisionService.getRevision(noteId, 4L, "alice"))
+            .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void aSnapshotIsWrittenEverySnapshotIntervalDeltas() throws Exception {
+        String text = "lorem ipsum dolor sit amet ".repeat(20);
+        // Two rounds, which stay below MAX_PER_NOTE
+        for (int i = 0; i < 2 * (SNAPSHOT_INTERVAL + 1); i++) {
+            put(text + i);
+        }
+
+        List<NoteRevision.Kind> kinds = noteRevisionRepository.findAll().stream()
+            .sorted((a, b) -> Long.compare(a.getVersion(), b.getVersion()))
+            .map(NoteRevision::getKind)
+            .toList();
+        List<NoteRevision.Kind> expected = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            expected.addAll(Collections.nCopies(SNAPSHOT_INTERVAL, NoteRevision.Kind.DELTA));
+            expected.add(NoteRevision.Kind.SNAPSHOT);
+        }
+        assertThat(kinds).isEqualTo(expected);
+        assertAllReconstructed();
+    }
+
+    @Test
+    void patchedVersionsAreReconstructedFromTheirReverseEdits() throws Exception {
+        put("The quick brown fox jumps over the lazy dog");
+        patch(List.of(new EncryptionUtil.TextEdit(4, 5, "slow"), new EncryptionUtil.TextEdit(40, 3, "cat")));
+        share("token-1");
+        patch(List.of(new EncryptionUtil.TextEdit(0, 0, "Again: ")));
+        put("rewritten");
+
+        assertAllReconstructed();
+    }
+
+    @Test
+    void coalescedVersionsDropOutOfTheHistory() throws Exception {
+        String text = "lorem ipsum dolor sit amet ".repeat(20);
+        put(text + "kept");
+        put(text + "autosaved once");
+        Long replaced = note().getVersion();
+        coalesce(text + "autosaved twice");
+        coalesce(text + "autosaved three times");
+
+        assertThat(versions()).containsExactly(1L, 0L);
+        assertThat(replaced).isEqualTo(2L);
+        assertAllReconstructed();
+    }
+
+    @Test
+    void onlyADeltaIsCoalesced() throws Exception {
+        // The write after SNAPSHOT_INTERVAL deltas records a snapshot
+        for (int i = 0; i <= SNAPSHOT_INTERVAL; i++) {
+            put("lorem ipsum dolor sit amet ".repeat(20) + i);
+        }
+        Note note = note();
+        NoteRevisionService.Base base = NoteRevisionService.Base.of(note);
+
+        assertThat(noteRevisionService.coalesce(base, "rewritten")).isFalse();
+        assertThat(versions()).hasSize(SNAPSHOT_INTERVAL + 1);
+    }
+
+    @Test
+    void trimmingKeepsTheNewestVersionsReconstructable() throws Exception {
+        Random random = new Random(7);
+        for (int i = 0; i < 60; i++) {
+            switch (random.nextInt(4)) {
+                case 0 -> share("token-" + i);
+                case 1 -> revoke();
+                default -> put("content " + i + " " + "x".repeat(random.nextInt(40)));
+            }
+            List<Long> versions = versions();
+            assertThat(versions.size()).isLessThanOrEqualTo(MAX_PER_NOTE + SNAPSHOT_INTERVAL);
+            // Only the oldest revisions are ever dropped
+            assertThat(versions).isEqualTo(history.keySet().stream()
+                .sorted((a, b) -> Long.compare(b, a)).limit(versions.size()).toList());
+        }
+        assertThat(history).hasSizeGreaterThan(MAX_PER_NOTE + SNAPSHOT_INTERVAL);
+        assertThat(noteRevisionRepository.findAll()).extracting(NoteRevision::getKind)
+            .contains(NoteRevision.Kind.DELTA, NoteRevision.Kind.SNAPSHOT);
+        assertAllReconstructed();
+    }
+
+    @Test
+    void retentionKeepsTheNewerVersionsReconstructable() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            put("old content " + i);
+        }
+        Thread.sleep(5);
+        LocalDateTime cutoff = LocalDateTime.now();
+        Thread.sleep(5);
+        for (int i = 0; i < 4; i++) {
+            put("recent content " + i);
+        }
+
+        // What CleanupService.compactRevisions runs
+        int deleted = noteRevisionRepository.deleteReplacedBefore(cutoff);
+
+        assertThat(deleted).isEqualTo(5);
+        assertThat(versions()).containsExactly(8L, 7L, 6L, 5L);
+        assertAllReconstructed();
+    }
+
+    private void assertAllReconstructed() {
+        List<Long> versions = versions();
+        assertThat(versions).isNotEmpty();
+        for (Long version : versions) {
+            NoteRevisionDto revision = noteRevisionService.getRevision(noteId, version, "alice");
+            assertThat(revision.content()).as("content of version %d", version).isEqualTo(history.get(version));
+            assertThat(revision.deltasApplied()).isLessThanOrEqualTo(SNAPSHOT_INTERVAL);
+        }
+    }
+
+    private List<Long> versions() {
+        return noteRevisionService.listRevisions(noteId, "alice").stream()
+            .map(NoteRevisionSummary::version)
+            .toList();
+    }
+
+    // PUT: replaces the content and records the version it replaced
+    private void put(String content) throws Exception {
+        Note note = note();
+        NoteRevisionService.Base base = NoteRevisionService.Base.of(note);
+        history.put(base.version(), encryptionUtil.decrypt(base.content()));
+        note.setContent(encryptionUtil.encryptChunked(content));
+        note.setUpdatedAt(LocalDateTime.now());
+        noteRepository.saveAndFlush(note);
+        noteRevisionService.record(base, content);
+    }
+
+    // Autosave flush within the revision interval: the replaced version is folded into the newest revision
+    private void coalesce(String content) throws Exception {
+        Note note = note();
+        NoteRevisionService.Base base = NoteRevisionService.Base.of(note);
+        note.setContent(encryptionUtil.encryptChunked(content));
+        note.setUpdatedAt(LocalDateTime.now());
+        noteRepository.saveAndFlush(note);
+        assertThat(noteRevisionService.coalesce(base, content)).isTrue();
+    }
+
+    // PATCH: patches the stored chunks and records the reverse edits
+    private void patch(List<EncryptionUtil.TextEdit> edits) throws Exception {
+        Note note = note();
+        NoteRevisionService.Base base = NoteRevisionService.Base.of(note);
+        history.put(base.version(), encryptionUtil.decrypt(base.content()));
+        EncryptionUtil.PatchResult result = encryptionUtil.patch(note.getContent(), edits);
+        assertThat(TextDeltas.apply(encryptionUtil.decrypt(result.getCiphertext()), result.getReverseEdits()))
+            .isEqualTo(history.get(base.version()));
+        note.setContent(result.getCiphertext());
+        note.setUpdatedAt(LocalDateTime.now());
+        noteRepository.saveAndFlush(note);
+        noteRevisionService.record(base, result.getReverseEdits());
+    }
+
+    // Sharing changes share state only: the version moves, no revision is recorded
+    private void share(String token) {
+        Note note = note();
+        note.setShareToken(token);
+        note.setShareExpirationTime(LocalDateTime.now().plusDays(1));
+        noteRepository.saveAndFlush(note);
+    }
+
+    private void revoke() {
+        Note note = note();
+        note.setShareToken(null);
+        note.setShareExpirationTime(null);
+        noteRepository.saveAndFlush(note);
+    }
+
+    private Note note() {
+        return noteRepository.findById(noteId).orElseThrow();
+    }
+}
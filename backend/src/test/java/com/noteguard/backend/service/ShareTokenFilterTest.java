@@ -0,0 +1,107 @@
+package com.noteguard.backend.service;
+
+import com.noteguard.backend.event.NoteChangedEvent;
+import com.noteguard.backend.model.Note;
+import com.noteguard.backend.repository.NoteRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Rebuilds against a stubbed repository, so a share can be made to land while
+ * the rebuild is loading the live tokens.
+ */
+class ShareTokenFilterTest {
+
+    private final NoteRepository noteRepository = mock(NoteRepository.class);
+    private final ShareTokenFilter filter = new ShareTokenFilter();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(filter, "noteRepository", noteRepository);
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "falsePositiveRate", 1e-6);
+        ReflectionTestUtils.setField(filter, "minCapacity", 1000L);
+    }
+
+    @Test
+    void everythingPassesUntilTheFirstBuild() {
+        assertThat(filter.mightExist("anything")).isTrue();
+        assertThat(filter.getStats().isReady()).isFalse();
+    }
+
+    @Test
+    void aRebuildForgetsRevokedTokens() {
+        when(noteRepository.findActiveShareTokens(any())).thenReturn(List.of("live", "revoked"));
+        filter.rebuild();
+        when(noteRepository.findActiveShareTokens(any())).thenReturn(List.of("live"));
+        filter.rebuild();
+
+        assertThat(filter.mightExist("live")).isTrue();
+        assertThat(filter.mightExist("revoked")).isFalse();
+        assertThat(filter.getStats().getRejectedLookups()).isEqualTo(1);
+    }
+
+    @Test
+    void aTokenSharedWhileTheRebuildLoadsIsReplayedFromTheJournal() {
+        when(noteRepository.findActiveShareTokens(any())).thenReturn(List.of("old"));
+        filter.rebuild();
+        // Shared after the query read the table: only the journal sees it
+        when(noteRepository.findActiveShareTokens(any())).thenAnswer(invocation -> {
+            filter.onNoteChanged(shared("during-rebuild"));
+            return List.of("old");
+        });
+
+        filter.rebuild();
+
+        assertThat(filter.mightExist("during-rebuild")).isTrue();
+        assertThat(ReflectionTestUtils.getField(filter, "rebuildJournal")).isNull();
+    }
+
+    @Test
+    void theCommitAddsATokenTheRebuildMissed() {
+        when(noteRepository.findActiveShareTokens(any())).thenReturn(List.of());
+        filter.rebuild();
+        // Added synchronously, then a rebuild queries before the share commits
+        filter.onNoteChanged(shared("uncommitted"));
+        filter.rebuild();
+        assertThat(filter.mightExist("uncommitted")).isFalse();
+
+        filter.onNoteChangeCommitted(shared("uncommitted"));
+
+        assertThat(filter.mightExist("uncommitted")).isTrue();
+    }
+
+    @Test
+    void aFailedRebuildKeepsTheFilterAndDropsTheJournal() {
+        when(noteRepository.findActiveShareTokens(any())).thenReturn(List.of("live"));
+        filter.rebuild();
+        when(noteRepository.findActiveShareTokens(any())).thenThrow(new IllegalStateException("database down"));
+
+        filter.rebuild();
+
+        assertThat(filter.mightExist("live")).isTrue();
+        assertThat(filter.mightExist("unknown")).isFalse();
+        assertThat(ReflectionTestUtils.getField(filter, "rebuildJournal")).isNull();
+    }
+
+    private static NoteChangedEvent shared(String token) {
+        Note note = Note.builder()
+            .id(1L)
+            .ownerId(10L)
+            .shareToken(token)
+            .shareExpirationTime(LocalDateTime.now().plusDays(1))
+            .updatedAt(LocalDateTime.now())
+            .version(1L)
+            .build();
+        return NoteChangedEvent.shared(note, null);
+    }
+}
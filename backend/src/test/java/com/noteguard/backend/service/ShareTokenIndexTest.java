@@ -0,0 +1,177 @@
+package com.noteguard.backend.service;
+
+import com.noteguard.backend.event.NoteChangedEvent;
+import com.noteguard.backend.model.Note;
+import com.noteguard.backend.repository.NoteRepository;
+import com.noteguard.backend.repository.ShareLinkView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The open-addressing table checked against a HashMap through random puts and
+ * removes, which exercises probe chains, wraparound, resizes and backward-shift
+ * deletion.
+ */
+class ShareTokenIndexTest {
+
+    private static final LocalDateTime TOMORROW = LocalDateTime.now().plusDays(1);
+
+    private final NoteRepository noteRepository = mock(NoteRepository.class);
+    private final ShareTokenIndex index = new ShareTokenIndex();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(index, "noteRepository", noteRepository);
+        ReflectionTestUtils.setField(index, "enabled", true);
+    }
+
+    @Test
+    void randomPutsAndRemovesMatchAMap() {
+        Random random = new Random(3);
+        Map<String, Long> expected = new HashMap<>();
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 4000; i++) {
+            tokens.add(new UUID(random.nextLong(), random.nextLong()).toString());
+        }
+
+        for (int round = 0; round < 20_000; round++) {
+            String token = tokens.get(random.nextInt(tokens.size()));
+            if (random.nextInt(3) == 0) {
+                index.remove(token);
+                expected.remove(token);
+            } else {
+                long noteId = round + 1;
+                index.put(token, noteId, TOMORROW);
+                expected.put(token, noteId);
+            }
+        }
+
+        for (String token : tokens) {
+            assertThat(index.lookup(token)).as(token).isEqualTo(expected.getOrDefault(token, ShareTokenIndex.NOT_FOUND));
+        }
+        ShareTokenIndex.ShareIndexStats stats = index.getStats();
+        assertThat(stats.getTokens()).isEqualTo(expected.size());
+        assertThat(stats.getCapacity()).isGreaterThanOrEqualTo(2 * expected.size());
+    }
+
+    @Test
+    void removingFromTheMiddleOfAProbeChainKeepsTheRestReachable() {
+        // 500 tokens stay in the initial 1024 slots, just under the resize threshold
+        Random random = new Random(5);
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            String token = new UUID(random.nextLong(), random.nextLong()).toString();
+            tokens.add(token);
+            index.put(token, i + 1, TOMORROW);
+        }
+
+        for (int i = 0; i < tokens.size(); i += 2) {
+            index.remove(tokens.get(i));
+        }
+
+        for (int i = 0; i < tokens.size(); i++) {
+            long expected = i % 2 == 0 ? ShareTokenIndex.NOT_FOUND : i + 1;
+            assertThat(index.lookup(tokens.get(i))).isEqualTo(expected);
+        }
+        assertThat(index.getStats().getTokens()).isEqualTo(250);
+    }
+
+    @Test
+    void malformedAndExpiredTokensAreNotFound() {
+        String expired = UUID.randomUUID().toString();
+        index.put(expired, 1L, LocalDateTime.now().minusSeconds(1));
+        index.put("1-1-1-1-1", 2L, TOMORROW);
+
+        assertThat(index.lookup(expired)).isEqualTo(ShareTokenIndex.NOT_FOUND);
+        assertThat(index.lookup("1-1-1-1-1")).isEqualTo(ShareTokenIndex.NOT_FOUND);
+        assertThat(index.lookup(null)).isEqualTo(ShareTokenIndex.NOT_FOUND);
+        assertThat(index.getStats().getTokens()).isEqualTo(1);
+
+        index.purgeExpired();
+
+        assertThat(index.getStats().getTokens()).isZero();
+    }
+
+    @Test
+    void replacedAndRevokedTokensAreDropped() {
+        String first = UUID.randomUUID().toString();
+        String second = UUID.randomUUID().toString();
+        Note note = note(first);
+        index.onNoteShared(NoteChangedEvent.shared(note, null));
+        assertThat(index.lookup(first)).isEqualTo(1L);
+
+        // An edit keeps the token
+        index.onNoteChanged(NoteChangedEvent.updated(note));
+        assertThat(index.lookup(first)).isEqualTo(1L);
+
+        NoteChangedEvent reshared = NoteChangedEvent.shared(note(second), first);
+        index.onNoteShared(reshared);
+        index.onNoteChanged(reshared);
+        assertThat(index.lookup(first)).isEqualTo(ShareTokenIndex.NOT_FOUND);
+        assertThat(index.lookup(second)).isEqualTo(1L);
+
+        index.onNoteChanged(NoteChangedEvent.shareRevoked(note(null), second));
+        assertThat(index.lookup(second)).isEqualTo(ShareTokenIndex.NOT_FOUND);
+    }
+
+    @Test
+    void theBuildKeepsTokensSharedWhileItWasLoading() {
+        String stored = UUID.randomUUID().toString();
+        String sharedMeanwhile = UUID.randomUUID().toString();
+        when(noteRepository.findActiveShareLinks(any())).thenAnswer(invocation -> {
+            index.put(sharedMeanwhile, 2L, TOMORROW);
+            return List.of(link(1L, stored));
+        });
+        assertThat(index.isReady()).isFalse();
+
+        index.build();
+
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.lookup(stored)).isEqualTo(1L);
+        assertThat(index.lookup(sharedMeanwhile)).isEqualTo(2L);
+    }
+
+    private static Note note(String shareToken) {
+        return Note.builder()
+            .id(1L)
+            .ownerId(10L)
+            .shareToken(shareToken)
+            .shareExpirationTime(shareToken != null ? TOMORROW : null)
+            .updatedAt(LocalDateTime.now())
+            .version(1L)
+            .build();
+    }
+
+    private static ShareLinkView link(Long id, String shareToken) {
+        return new ShareLinkView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getShareToken() {
+                return shareToken;
+            }
+
+            @Override
+            public LocalDateTime getShareExpirationTime() {
+                return TOMORROW;
+            }
+        };
+    }
+}
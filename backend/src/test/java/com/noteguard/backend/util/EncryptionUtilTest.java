@@ -0,0 +1,307 @@
+package com.noteguard.backend.util;
+
+import com.noteguard.backend.metrics.NoteGuardMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Chunked encryption and {@link EncryptionUtil#patch}. Uses the smallest chunk
+ * size (16 characters) so short texts span many chunks.
+ */
+class EncryptionUtilTest {
+
+    private static final int CHUNK = 16;
+
+    private final EncryptionUtil encryptionUtil =
+        new EncryptionUtil("test-secret-key", new NoteGuardMetrics(new SimpleMeterRegistry()), CHUNK);
+
+    @Test
+    void chunkedTextRoundTrips() throws Exception {
+        String text = text(100);
+        String stored = encryptionUtil.encryptChunked(text);
+
+        assertThat(stored).startsWith("c2:");
+        assertThat(chunks(stored)).hasSize(7);
+        assertThat(encryptionUtil.decrypt(stored)).isEqualTo(text);
+    }
+
+    @Test
+    void nullContentIsStoredAndReadAsEmpty() throws Exception {
+        String stored = encryptionUtil.encryptChunked(null);
+
+        assertThat(stored).isEqualTo("c2:");
+        assertThat(encryptionUtil.decrypt(stored)).isEmpty();
+        assertThat(encryptionUtil.decrypt(null)).isEmpty();
+        assertThat(encryptionUtil.decrypt(encryptionUtil.patch(null, List.of(edit(0, 0, "new"))).getCiphertext()))
+            .isEqualTo("new");
+    }
+
+    @Test
+    void editWithinOneChunkRewritesOnlyThatChunk() throws Exception {
+        String text = text(100);
+        String stored = encryptionUtil.encryptChunked(text);
+        List<EncryptionUtil.TextEdit> edits = List.of(edit(20, 3, "XYZW"));
+
+        EncryptionUtil.PatchResult result = encryptionUtil.patch(stored, edits);
+
+        assertPatched(text, stored, edits, result);
+        assertThat(result.getChunksRewritten()).isEqualTo(1);
+        List<String> before = chunks(stored);
+        List<String> after = chunks(result.getCiphertext());
+        assertThat(after.get(0)).isEqualTo(before.get(0));
+        assertThat(after.subList(2, after.size())).isEqualTo(before.subList(2, before.size()));
+    }
+
+    @Test
+    void editAcrossChunkBoundariesRewritesTheSpannedChunks() throws Exception {
+        String text = text(100);
+        String stored = encryptionUtil.encryptChunked(text);
+        // Starts in the second chunk, ends in the fourth
+        List<EncryptionUtil.TextEdit> edits = List.of(edit(20, 30, "joined"));
+
+        EncryptionUtil.PatchResult result = encryptionUtil.patch(stored, edits);
+
+        assertPatched(text, stored, edits, result);
+        List<String> before = chunks(stored);
+        List<String> after = chunks(result.getCiphertext());
+        assertThat(after.get(0)).isEqualTo(before.get(0));
+        assertThat(after.subList(after.size() - 3, after.size())).isEqualTo(before.subList(4, 7));
+        assertThat(result.getChunksRewritten()).isEqualTo(after.size() - 4);
+    }
+
+    @Test
+    void editsEndingExactlyOnABoundaryKeepTheNextChunk() throws Exception {
+        String text = text(64);
+        String stored = encryptionUtil.encryptChunked(text);
+        List<EncryptionUtil.TextEdit> edits = List.of(edit(16, 16, "replaced second chunk"));
+
+        EncryptionUtil.PatchResult result = encryptionUtil.patch(stored, edits);
+
+        assertPatched(text, stored, edits, result);
+        List<String> before = chunks(stored);
+        List<String> after = chunks(result.getCiphertext());
+        assertThat(after.get(0)).isEqualTo(before.get(0));
+        assertThat(after.subList(after.size() - 2, after.size())).isEqualTo(before.subList(2, 4));
+    }
+
+    @Test
+    void severalEditsInOnePatch() throws Exception {
+        String text = text(120);
+        String stored = encryptionUtil.encryptChunked(text);
+        List<EncryptionUtil.TextEdit> edits = List.of(
+            edit(0, 0, "head "),
+            edit(15, 2, ""),
+            edit(17, 0, "+"),
+            edit(60, 5, "middle"),
+            edit(119, 1, "!"));
+
+        assertPatched(text, stored, edits, encryptionUtil.patch(stored, edits));
+    }
+
+    @Test
+    void insertAtTheEndOfTheText() throws Exception {
+        String text = text(48);
+        String stored = encryptionUtil.encryptChunked(text);
+        List<EncryptionUtil.TextEdit> edits = List.of(edit(48, 0, " and more text at the end"));
+
+        EncryptionUtil.PatchResult result = encryptionUtil.patch(stored, edits);
+
+        assertPatched(text, stored, edits, result);
+        assertThat(chunks(result.getCiphertext()).subList(0, 2)).isEqualTo(chunks(stored).subList(0, 2));
+    }
+
+    @Test
+    void insertIntoEmptyChunkedText() throws Exception {
+        String stored = encryptionUtil.encryptChunked("");
+        List<EncryptionUtil.TextEdit> edits = List.of(edit(0, 0, text(40)));
+
+        EncryptionUtil.PatchResult result = encryptionUtil.patch(stored, edits);
+
+        assertPatched("", stored, edits, result);
+        assertThat(result.getChunks()).isEqualTo(3);
+    }
+
+    @Test
+    void deleteThatEmptiesAChunkDropsIt() throws Exception {
+        String text = text(64);
+        String stored = encryptionUtil.encryptChunked(text);
+        List<EncryptionUtil.TextEdit> edits = List.of(edit(16, 16, ""));
+
+        EncryptionUtil.PatchResult result = encryptionUtil.patch(stored, edits);
+
+        assertPatched(text, stored, edits, result);
+        List<String> before = chunks(stored);
+        assertThat(chunks(result.getCiphertext())).containsExactly(before.get(0), before.get(2), before.get(3));
+        assertThat(result.getChunksRewritten()).isZero();
+    }
+
+    @Test
+    void deletingEverythingLeavesEmptyText() throws Exception {
+        String text = text(50);
+        String stored = encryptionUtil.encryptChunked(text);
+        List<EncryptionUtil.TextEdit> edits = List.of(edit(0, 50, null));
+
+        EncryptionUtil.PatchResult result = encryptionUtil.patch(stored, edits);
+
+        assertPatched(text, stored, edits, result);
+        assertThat(result.getCiphertext()).isEqualTo("c2:");
+        assertThat(result.getChunks()).isZero();
+    }
+
+    @Test
+    void legacySingleBlockContentIsConvertedToChunks() throws Exception {
+        String text = text(70);
+        String stored = encryptionUtil.encrypt(text);
+        List<EncryptionUtil.TextEdit> edits = List.of(edit(30, 10, "patched"));
+
+        EncryptionUtil.PatchResult result = encryptionUtil.patch(stored, edits);
+
+        assertPatched(text, stored, edits, result);
+        assertThat(result.getCiphertext()).startsWith("c2:");
+        assertThat(result.getChunksRewritten()).isEqualTo(result.getChunks());
+    }
+
+    @Test
+    void chunkLengthsAreNotStoredInTheClear() throws Exception {
+        String stored = encryptionUtil.encryptChunked(text(40));
+        String header = stored.substring("c2:".length(), stored.indexOf(':', "c2:".length()));
+
+        assertThat(encryptionUtil.decrypt(header)).isEqualTo("14,14,12");
+        assertThat(stored).doesNotContain(".");
+    }
+
+    @Test
+    void legacyChunksWithPlainLengthsAreStillReadAndPatched() throws Exception {
+        String text = text(40);
+        String stored = "c1:16." + encryptionUtil.encrypt(text.substring(0, 16))
+            + ":16." + encryptionUtil.encrypt(text.substring(16, 32))
+            + ":8." + encryptionUtil.encrypt(text.substring(32));
+        List<EncryptionUtil.TextEdit> edits = List.of(edit(25, 5, "patch"));
+
+        assertThat(encryptionUtil.decrypt(stored)).isEqualTo(text);
+        EncryptionUtil.PatchResult result = encryptionUtil.patch(stored, edits);
+
+        assertPatched(text, stored, edits, result);
+        assertThat(result.getCiphertext()).startsWith("c2:");
+        assertThat(result.getChunksRewritten()).isEqualTo(1);
+    }
+
+    @Test
+    void surrogatePairsAreNeverSplitAcrossChunks() throws Exception {
+        // 32 characters split evenly into two chunks of 16, with the emoji straddling the boundary
+        String text = "a".repeat(15) + "😀" + "b".repeat(15);
+        String stored = encryptionUtil.encryptChunked(text);
+
+        assertThat(encryptionUtil.decrypt(stored)).isEqualTo(text);
+        assertThat(chunkLength(chunks(stored).get(0))).isEqualTo(15);
+        assertWholeCodePoints(stored);
+    }
+
+    @Test
+    void patchesAroundSurrogatePairsKeepThemWhole() throws Exception {
+        String text = "a".repeat(14) + "😀" + "b".repeat(31);
+        String stored = encryptionUtil.encryptChunked(text);
+        List<EncryptionUtil.TextEdit> edits = List.of(
+            edit(14, 0, "🎉"),
+            edit(16, 2, "🚀x"));
+
+        EncryptionUtil.PatchResult result = encryptionUtil.patch(stored, edits);
+
+        assertPatched(text, stored, edits, result);
+        assertWholeCodePoints(result.getCiphertext());
+    }
+
+    @Test
+    void invalidEditsAreRejected() throws Exception {
+        String stored = encryptionUtil.encryptChunked(text(40));
+
+        assertThatThrownBy(() -> encryptionUtil.patch(stored, List.of(edit(35, 10, ""))))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> encryptionUtil.patch(stored, List.of(edit(10, 5, ""), edit(12, 1, ""))))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> encryptionUtil.patch(stored, List.of(edit(5, -1, ""))))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void randomPatchesMatchPlainStringEdits() throws Exception {
+        Random random = new Random(42);
+        String text = text(200);
+        String stored = encryptionUtil.encryptChunked(text);
+        for (int round = 0; round < 200; round++) {
+            List<EncryptionUtil.TextEdit> edits = randomEdits(random, text.length());
+            EncryptionUtil.PatchResult result = encryptionUtil.patch(stored, edits);
+            assertPatched(text, stored, edits, result);
+            text = TextDeltas.apply(text, edits);
+            stored = result.getCiphertext();
+        }
+    }
+
+    private void assertPatched(String text, String stored, List<EncryptionUtil.TextEdit> edits,
+                               EncryptionUtil.PatchResult result) throws Exception {
+        String expected = TextDeltas.apply(text, edits);
+        assertThat(encryptionUtil.decrypt(result.getCiphertext())).isEqualTo(expected);
+        assertThat(result.getLength()).isEqualTo(expected.length());
+        assertThat(result.getChunks()).isEqualTo(chunks(result.getCiphertext()).size());
+        for (String chunk : chunks(result.getCiphertext())) {
+            assertThat(chunkLength(chunk)).isBetween(1, CHUNK);
+        }
+        // The reverse edits turn the patched text back into the base, for note revisions
+        assertThat(TextDeltas.apply(expected, result.getReverseEdits())).isEqualTo(text);
+        assertThat(encryptionUtil.decrypt(stored)).isEqualTo(text);
+    }
+
+    private void assertWholeCodePoints(String stored) throws Exception {
+        for (String chunk : chunks(stored)) {
+            String plainText = encryptionUtil.decrypt(chunk);
+            assertThat(Character.isLowSurrogate(plainText.charAt(0))).isFalse();
+            assertThat(Character.isHighSurrogate(plainText.charAt(plainText.length() - 1))).isFalse();
+        }
+    }
+
+    private static List<EncryptionUtil.TextEdit> randomEdits(Random random, int length) {
+        List<EncryptionUtil.TextEdit> edits = new ArrayList<>();
+        int position = 0;
+        while (position <= length && edits.size() < 4) {
+            int offset = position + random.nextInt(Math.max(length - position, 0) / 2 + 1);
+            int delete = random.nextInt(Math.min(length - offset, 40) + 1);
+            String insert = random.nextInt(3) == 0 ? "" : text(random.nextInt(40));
+            edits.add(edit(offset, delete, insert));
+            position = offset + delete + 1;
+        }
+        return edits;
+    }
+
+    private static EncryptionUtil.TextEdit edit(int offset, int delete, String insert) {
+        return new EncryptionUtil.TextEdit(offset, delete, insert);
+    }
+
+    private static String text(int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append((char) ('a' + i % 26));
+        }
+        return text.toString();
+    }
+
+    // The chunk ciphertexts, after the encrypted lengths header
+    private static List<String> chunks(String stored) {
+        String body = stored.substring("c2:".length());
+        if (body.isEmpty()) {
+            return List.of();
+        }
+        List<String> parts = List.of(body.split(":"));
+        return parts.subList(1, parts.size());
+    }
+
+    private int chunkLength(String chunk) throws Exception {
+        return encryptionUtil.decrypt(chunk).length();
+    }
+}
@@ -0,0 +1,41 @@
+package com.noteguard.backend.util;
+
+import com.noteguard.backend.exception.LoadTimeoutException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    @Test
+    void aWaiterGivesUpWithALoadTimeoutWhileTheLeaderCompletes() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>(Duration.ofMillis(50));
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> {
+            try {
+                return flight.execute("key", () -> {
+                    loading.countDown();
+                    finish.await();
+                    return "value";
+                });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        loading.await();
+
+        assertThatThrownBy(() -> flight.execute("key", () -> "other"))
+            .isInstanceOf(LoadTimeoutException.class);
+        finish.countDown();
+
+        assertThat(leader.get()).isEqualTo("value");
+        assertThat(flight.getTimeouts()).isEqualTo(1);
+        assertThat(flight.getInFlight()).isZero();
+    }
+}
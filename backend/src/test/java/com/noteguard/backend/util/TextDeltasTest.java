@@ -0,0 +1,109 @@
+package com.noteguard.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TextDeltasTest {
+
+    private static final String WORDS = "lorem ipsum dolor sit amet consectetur adipiscing elit sed do eiusmod ";
+
+    @Test
+    void distantChangesAreSeparateEdits() {
+        String from = WORDS.repeat(50) + "start " + WORDS.repeat(50);
+        String to = "Changed " + WORDS.repeat(50) + "middle " + WORDS.repeat(50) + "end";
+
+        List<EncryptionUtil.TextEdit> edits = TextDeltas.diff(from, to);
+
+        assertThat(TextDeltas.apply(from, edits)).isEqualTo(to);
+        assertThat(edits).hasSize(3);
+        assertThat(TextDeltas.encode(edits).length()).isLessThan(64);
+    }
+
+    @Test
+    void editsAreNarrowedToTheChangedCharacters() {
+        List<EncryptionUtil.TextEdit> edits = TextDeltas.diff("one two three four", "one tw0 three fours");
+
+        assertThat(edits).containsExactly(
+            new EncryptionUtil.TextEdit(6, 1, "0"),
+            new EncryptionUtil.TextEdit(18, 0, "s"));
+    }
+
+    @Test
+    void equalTextsHaveNoEdits() {
+        assertThat(TextDeltas.diff("same text", "same text")).isEmpty();
+        assertThat(TextDeltas.diff("", "")).isEmpty();
+    }
+
+    @Test
+    void textWithoutWhitespaceIsOneEdit() {
+        List<EncryptionUtil.TextEdit> edits = TextDeltas.diff("abcdefghij", "aXcdefghiY");
+
+        assertThat(edits).containsExactly(new EncryptionUtil.TextEdit(1, 9, "XcdefghiY"));
+    }
+
+    @Test
+    void tooManyChangedWordsFallBackToOneEdit() {
+        StringBuilder from = new StringBuilder();
+        StringBuilder to = new StringBuilder();
+        for (int i = 0; i < TextDeltas.MAX_WORD_EDITS; i++) {
+            from.append("a").append(i).append(' ');
+            to.append("b").append(i).append(' ');
+        }
+
+        List<EncryptionUtil.TextEdit> edits = TextDeltas.diff(from.toString(), to.toString());
+
+        assertThat(edits).hasSize(1);
+        assertThat(TextDeltas.apply(from.toString(), edits)).isEqualTo(to.toString());
+    }
+
+    @Test
+    void surrogatePairsAreNeverSplit() {
+        String from = "smile 😀 here and 😀 there";
+        String to = "smile 😁 here and 😃 there";
+
+        List<EncryptionUtil.TextEdit> edits = TextDeltas.diff(from, to);
+
+        assertThat(TextDeltas.apply(from, edits)).isEqualTo(to);
+        for (EncryptionUtil.TextEdit edit : edits) {
+            assertThat(Character.isLowSurrogate(from.charAt(edit.offset()))).isFalse();
+            assertThat(Character.isHighSurrogate(edit.insert().charAt(edit.insert().length() - 1))).isFalse();
+        }
+    }
+
+    @Test
+    void randomEditsRoundTripThroughTheStoredForm() {
+        Random random = new Random(11);
+        String text = WORDS.repeat(20);
+        for (int round = 0; round < 300; round++) {
+            String next = mutate(random, text);
+            List<EncryptionUtil.TextEdit> edits = TextDeltas.diff(text, next);
+
+            assertThat(TextDeltas.apply(text, TextDeltas.decode(TextDeltas.encode(edits)))).isEqualTo(next);
+            int end = 0;
+            for (EncryptionUtil.TextEdit edit : edits) {
+                assertThat(edit.offset()).isGreaterThanOrEqualTo(end);
+                end = edit.offset() + edit.delete();
+            }
+            text = next;
+        }
+    }
+
+    private static String mutate(Random random, String text) {
+        StringBuilder result = new StringBuilder(text);
+        for (int i = random.nextInt(4); i >= 0; i--) {
+            int offset = random.nextInt(result.length() + 1);
+            int delete = Math.min(random.nextInt(12), result.length() - offset);
+            String insert = switch (random.nextInt(3)) {
+                case 0 -> "";
+                case 1 -> "new words ";
+                default -> "x\n";
+            };
+            result.replace(offset, offset + delete, insert);
+        }
+        return result.toString();
+    }
+}
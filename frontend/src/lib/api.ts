@@ -74,6 +74,9 @@ apiClient.interceptors.response.use(
       case 404:
         toast.error("Resource not found.");
         break;
+      case 409:
+        toast.error("This note was changed elsewhere. Reload it to see the latest version.");
+        break;
       case 422:
         // Handle validation errors
         if (error.response?.data?.fieldErrors) {
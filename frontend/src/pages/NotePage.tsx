@@ -132,6 +132,7 @@ const NotePage: React.FC = () => {
       const updateData: UpdateNoteRequest = {
         title: editFormData.title.trim(),
         content: editFormData.content.trim(),
+        version: note.version,
         ...(editFormData.expirationTime && {
           expirationTime: editFormData.expirationTime,
         }),
@@ -140,8 +141,11 @@ const NotePage: React.FC = () => {
       await noteApi.updateNote(id, updateData);
       toast.success("Note updated successfully!");
       navigate(`/note/${id}`); // Navigate back to view mode
-    } catch (error) {
-      toast.error("Failed to update note");
+    } catch (error: any) {
+      // A 409 is reported by the API client; anything else gets the generic message
+      if (error?.response?.status !== 409) {
+        toast.error("Failed to update note");
+      }
     } finally {
       setIsUpdating(false);
     }
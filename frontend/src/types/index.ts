@@ -13,12 +13,13 @@ export interface Note {
   content: string;
   userId?: number; // Keep for backward compatibility
   ownerId: number; // This is what the backend actually returns
-  user?: User; // The full user object from backend
+  ownerUsername?: string;
   shareToken?: string;
   shareExpirationTime?: string;
   expirationTime?: string;
   createdAt: string;
   updatedAt: string;
+  version: number; // Row version, sent back with updates
 }
 
 export interface AuthContextType {
@@ -66,6 +67,7 @@ export interface UpdateNoteRequest {
   title?: string;
   content?: string;
   expirationTime?: string;
+  version?: number; // Version the edit is based on; the update fails with 409 if it is stale
 }
 
 export interface ShareNoteRequest {